@@ -0,0 +1,95 @@
+package com.transsion.springanimation;
+
+import java.util.Arrays;
+
+/**
+ * A trajectory of {@link RectFSpringSolver} precomputed at a fixed frame interval, so that playing
+ * it back only requires reading and interpolating the stored frames.
+ *
+ * Frames are packed into a single array, {@link #STRIDE} values per frame: left, top, right,
+ * bottom, progress. The last frame is always the final position.
+ */
+public class BakedTrajectory {
+
+    public static final int STRIDE = RectFSpringSolver.FRAME_STRIDE;
+
+    // Upper bound on the length of a trajectory, in case the spring never comes to rest.
+    private static final float MAX_DURATION_MS = 10_000;
+
+    private final float[] mFrames;
+    private final int mFrameCount;
+    private final float mFrameIntervalMs;
+
+    private BakedTrajectory(float[] frames, int frameCount, float frameIntervalMs) {
+        mFrames = frames;
+        mFrameCount = frameCount;
+        mFrameIntervalMs = frameIntervalMs;
+    }
+
+    /**
+     * Samples {@param solver}, which must have been started, every {@param frameIntervalMs} from
+     * time 0 until it comes to rest.
+     */
+    public static BakedTrajectory bake(RectFSpringSolver solver, float frameIntervalMs) {
+        if (frameIntervalMs <= 0) {
+            throw new IllegalArgumentException("Frame interval must be positive");
+        }
+        float durationMs = Math.min(solver.getSettleTimeMs(), MAX_DURATION_MS);
+        int capacity = (int) Math.ceil(durationMs / frameIntervalMs) + 2;
+        float[] frames = new float[capacity * STRIDE];
+
+        int frameCount = 0;
+        boolean atRest = false;
+        while (!atRest) {
+            atRest = solver.compute(frameCount * frameIntervalMs) || frameCount == capacity - 1;
+            if (atRest) {
+                solver.computeEnd();
+            }
+            solver.getFrame(frames, frameCount * STRIDE);
+            frameCount++;
+        }
+        return new BakedTrajectory(Arrays.copyOf(frames, frameCount * STRIDE), frameCount,
+                frameIntervalMs);
+    }
+
+    /**
+     * Returns the packed frames, which must not be modified.
+     */
+    public float[] getFrames() {
+        return mFrames;
+    }
+
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    public float getFrameIntervalMs() {
+        return mFrameIntervalMs;
+    }
+
+    public float getDurationMs() {
+        return (mFrameCount - 1) * mFrameIntervalMs;
+    }
+
+    /**
+     * Writes the frame at {@param timeMs} into {@param out}, linearly interpolating between the
+     * two closest stored frames.
+     *
+     * @return Whether {@param timeMs} is at or past the end of the trajectory.
+     */
+    public boolean getFrame(float timeMs, float[] out) {
+        float position = Math.max(0, timeMs / mFrameIntervalMs);
+        int index = (int) position;
+        if (index >= mFrameCount - 1) {
+            System.arraycopy(mFrames, (mFrameCount - 1) * STRIDE, out, 0, STRIDE);
+            return true;
+        }
+        float fraction = position - index;
+        int from = index * STRIDE;
+        int to = from + STRIDE;
+        for (int i = 0; i < STRIDE; i++) {
+            out[i] = mFrames[from + i] + fraction * (mFrames[to + i] - mFrames[from + i]);
+        }
+        return false;
+    }
+}
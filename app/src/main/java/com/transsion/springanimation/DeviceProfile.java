@@ -0,0 +1,54 @@
+package com.transsion.springanimation;
+
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.util.DisplayMetrics;
+
+/**
+ * The screen metrics and dimens used by the transitions, loaded once per configuration and
+ * shared by every animation and view until the configuration changes. Instances are immutable,
+ * a configuration change creates a new one rather than updating the current one.
+ *
+ * Like the animations, {@link #get(Resources)} must be called from the main thread.
+ */
+public class DeviceProfile {
+
+    private static DeviceProfile sProfile;
+    // Copy of the configuration sProfile was loaded for, the one held by the resources is updated
+    // in place.
+    private static Configuration sConfiguration;
+
+    public final int widthPx;
+    public final int heightPx;
+    // Ratio of the longest side of the screen to its shortest side.
+    public final float aspectRatio;
+
+    // Dimens of RectFSpringAnim, in pixels.
+    public final float flingMinVisChangePx;
+    public final float yOvershootPx;
+
+    private DeviceProfile(Resources resources) {
+        DisplayMetrics metrics = resources.getDisplayMetrics();
+        widthPx = metrics.widthPixels;
+        heightPx = metrics.heightPixels;
+        aspectRatio = Math.max(widthPx, heightPx)
+                / (float) Math.max(1, Math.min(widthPx, heightPx));
+
+        flingMinVisChangePx =
+                resources.getDimensionPixelSize(R.dimen.swipe_up_fling_min_visible_change);
+        yOvershootPx = resources.getDimensionPixelSize(R.dimen.swipe_up_y_overshoot);
+    }
+
+    /**
+     * Returns the profile for the current configuration of {@param resources}, only loading it
+     * the first time and after the configuration changed.
+     */
+    public static DeviceProfile get(Resources resources) {
+        Configuration configuration = resources.getConfiguration();
+        if (sProfile == null || !sConfiguration.equals(configuration)) {
+            sProfile = new DeviceProfile(resources);
+            sConfiguration = new Configuration(configuration);
+        }
+        return sProfile;
+    }
+}
@@ -27,20 +27,74 @@ import androidx.dynamicanimation.animation.SpringForce;
  */
 public class FlingSpringAnim {
 
-    private static final float FLING_FRICTION = 1.5f;
-    private static final float SPRING_STIFFNESS = 200;
-    private static final float SPRING_DAMPING = 0.8f;
+    // Trace section of the handoff from the fling to the spring, see TransitionTrace.
+    private static final String TRACE_HANDOFF = "FlingSpringAnim#handoff";
 
     private final FlingAnimation mFlingAnim;
-    private SpringAnimation mSpringAnim;
+    private final SpringAnimation mSpringAnim;
 
     private float mTargetPosition;
+    private float mSpringVelocityFactor;
+    // Whether the fling has ended and the spring has taken over.
+    private boolean mInSpringPhase;
+    private OnHandoffListener mOnHandoffListener;
 
     public <K> FlingSpringAnim(K object, FloatPropertyCompat<K> property, float startPosition,
                                float targetPosition, float startVelocity, float minVisChange, float minValue,
                                float maxValue, float springVelocityFactor, OnAnimationEndListener onEndListener) {
+        this(object, property, onEndListener);
+        reset(startPosition, targetPosition, startVelocity, minVisChange, minValue, maxValue,
+                springVelocityFactor);
+    }
+
+    /**
+     * Creates an animation that can be started repeatedly, each time after setting its
+     * parameters through {@link #reset}.
+     */
+    public <K> FlingSpringAnim(K object, FloatPropertyCompat<K> property,
+            OnAnimationEndListener onEndListener) {
         mFlingAnim = new FlingAnimation(object, property)
-                .setFriction(FLING_FRICTION)
+                .setFriction(FlingSpringSolver.FLING_FRICTION);
+        // Built up front and re-armed at the end of every fling, so that the handoff between the
+        // two doesn't allocate in the middle of the animation.
+        mSpringAnim = new SpringAnimation(object, property)
+                .setSpring(new SpringForce()
+                        .setStiffness(FlingSpringSolver.SPRING_STIFFNESS)
+                        .setDampingRatio(FlingSpringSolver.SPRING_DAMPING));
+        mSpringAnim.addEndListener(onEndListener);
+
+        mFlingAnim.addEndListener(((animation, canceled, value, velocity) -> {
+            boolean trace = TransitionTrace.isEnabled();
+            if (trace) {
+                TransitionTrace.beginSection(TRACE_HANDOFF);
+            }
+            mInSpringPhase = true;
+            if (mOnHandoffListener != null) {
+                mOnHandoffListener.onHandoff(this, value, velocity);
+            }
+            mSpringAnim
+                    .setStartValue(value)
+                    .setStartVelocity(velocity * mSpringVelocityFactor)
+                    .animateToFinalPosition(mTargetPosition);
+            if (trace) {
+                TransitionTrace.endSection();
+            }
+        }));
+    }
+
+    /**
+     * Sets a listener to be notified when the fling ends and the spring takes over.
+     */
+    public void setOnHandoffListener(OnHandoffListener onHandoffListener) {
+        mOnHandoffListener = onHandoffListener;
+    }
+
+    /**
+     * Sets the parameters for the next {@link #start()}. Must not be called while running.
+     */
+    public void reset(float startPosition, float targetPosition, float startVelocity,
+            float minVisChange, float minValue, float maxValue, float springVelocityFactor) {
+        mFlingAnim
                 // Have the spring pull towards the target if we've slowed down too much before
                 // reaching it.
                 .setMinimumVisibleChange(minVisChange)
@@ -48,17 +102,8 @@ public class FlingSpringAnim {
                 .setMinValue(minValue)
                 .setMaxValue(maxValue);
         mTargetPosition = targetPosition;
-
-        mFlingAnim.addEndListener(((animation, canceled, value, velocity) -> {
-            mSpringAnim = new SpringAnimation(object, property)
-                    .setStartValue(value)
-                    .setStartVelocity(velocity * springVelocityFactor)
-                    .setSpring(new SpringForce(mTargetPosition)
-                            .setStiffness(SPRING_STIFFNESS)
-                            .setDampingRatio(SPRING_DAMPING));
-            mSpringAnim.addEndListener(onEndListener);
-            mSpringAnim.animateToFinalPosition(mTargetPosition);
-        }));
+        mSpringVelocityFactor = springVelocityFactor;
+        mInSpringPhase = false;
     }
 
     public float getTargetPosition() {
@@ -69,7 +114,7 @@ public class FlingSpringAnim {
         mFlingAnim.setMinValue(Math.min(startPosition, targetPosition))
                 .setMaxValue(Math.max(startPosition, targetPosition));
         mTargetPosition = targetPosition;
-        if (mSpringAnim != null) {
+        if (mInSpringPhase) {
             mSpringAnim.animateToFinalPosition(mTargetPosition);
         }
     }
@@ -79,9 +124,18 @@ public class FlingSpringAnim {
     }
 
     public void end() {
+        // Canceling a running fling hands off to the spring, which then skips to the target.
         mFlingAnim.cancel();
         if (mSpringAnim.canSkipToEnd()) {
             mSpringAnim.skipToEnd();
         }
     }
+
+    public interface OnHandoffListener {
+        /**
+         * Called when the fling ends and the spring takes over, with the value and velocity at
+         * the end of the fling.
+         */
+        void onHandoff(FlingSpringAnim anim, float value, float velocity);
+    }
 }
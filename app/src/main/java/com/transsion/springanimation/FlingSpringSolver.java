@@ -0,0 +1,164 @@
+package com.transsion.springanimation;
+
+/**
+ * Closed-form equivalent of {@link FlingSpringAnim}: first apply friction to the fling until we
+ * pass the target, then apply a spring force to pull towards the target. Position and velocity
+ * can be evaluated at any time, which makes the result deterministic and independent of the
+ * frames that happen to be sampled.
+ *
+ * Times are in milliseconds relative to the start of the animation and velocities are in pixels
+ * per second.
+ */
+public class FlingSpringSolver {
+
+    public static final float FLING_FRICTION = 1.5f;
+    public static final float SPRING_STIFFNESS = 200;
+    public static final float SPRING_DAMPING = 0.8f;
+
+    // Same as FlingAnimation, the friction scalar is multiplied by this to get the drag rate.
+    private static final float DEFAULT_FRICTION = -4.2f;
+
+    private final double mFriction;
+    private final SpringSolver mSpring;
+
+    private float mMinValue;
+    private float mMaxValue;
+    private double mVelocityThreshold;
+    private float mSpringVelocityFactor;
+    private float mTargetPosition;
+
+    private double mFlingStartTime;
+    private double mFlingStartValue;
+    private double mFlingStartVelocity;
+    private double mHandoffTime;
+
+    public FlingSpringSolver() {
+        this(FLING_FRICTION, SPRING_STIFFNESS, SPRING_DAMPING);
+    }
+
+    public FlingSpringSolver(float flingFriction, float springStiffness, float springDamping) {
+        if (flingFriction <= 0) {
+            throw new IllegalArgumentException("Friction must be positive");
+        }
+        mFriction = flingFriction * DEFAULT_FRICTION;
+        mSpring = new SpringSolver(springStiffness, springDamping);
+    }
+
+    /**
+     * Starts the fling at time 0, with the same arguments as {@link FlingSpringAnim}.
+     */
+    public void start(float startPosition, float targetPosition, float startVelocity,
+            float minVisChange, float minValue, float maxValue, float springVelocityFactor) {
+        mTargetPosition = targetPosition;
+        mMinValue = minValue;
+        mMaxValue = maxValue;
+        mVelocityThreshold = minVisChange * SpringSolver.VALUE_THRESHOLD_MULTIPLIER
+                * SpringSolver.VELOCITY_THRESHOLD_MULTIPLIER;
+        mSpringVelocityFactor = springVelocityFactor;
+        startFling(0, startPosition, startVelocity);
+    }
+
+    public float getTargetPosition() {
+        return mTargetPosition;
+    }
+
+    /**
+     * Equivalent of {@link FlingSpringAnim#updatePosition}, applied at {@param timeMs} without
+     * changing the current position or velocity.
+     */
+    public void updatePosition(float timeMs, float startPosition, float targetPosition) {
+        mMinValue = Math.min(startPosition, targetPosition);
+        mMaxValue = Math.max(startPosition, targetPosition);
+        mTargetPosition = targetPosition;
+        if (isFlinging(timeMs)) {
+            startFling(timeMs, getFlingValue(timeMs), getFlingVelocity(timeMs));
+        } else {
+            mSpring.setFinalPosition(timeMs, targetPosition);
+        }
+    }
+
+    /**
+     * Returns whether {@param timeMs} is before the handoff from the fling to the spring.
+     */
+    public boolean isFlinging(float timeMs) {
+        return timeMs < mHandoffTime;
+    }
+
+    /**
+     * Returns the time at which the fling ends and the spring takes over.
+     */
+    public float getHandoffTimeMs() {
+        return (float) mHandoffTime;
+    }
+
+    public float getPosition(float timeMs) {
+        return isFlinging(timeMs) ? (float) getFlingValue(timeMs) : mSpring.getValue(timeMs);
+    }
+
+    public float getVelocity(float timeMs) {
+        return isFlinging(timeMs) ? (float) getFlingVelocity(timeMs) : mSpring.getVelocity(timeMs);
+    }
+
+    public boolean isAtEquilibrium(float timeMs) {
+        return !isFlinging(timeMs) && mSpring.isAtEquilibrium(timeMs);
+    }
+
+    /**
+     * Returns a time at which both the fling and the spring are guaranteed to have ended.
+     */
+    public float getSettleTimeMs() {
+        return mSpring.getSettleTimeMs();
+    }
+
+    private void startFling(float timeMs, double startValue, double startVelocity) {
+        mFlingStartTime = timeMs;
+        mFlingStartValue = startValue;
+        mFlingStartVelocity = startVelocity;
+        mHandoffTime = timeMs + computeFlingDurationMs();
+
+        double handoffValue =
+                Math.max(mMinValue, Math.min(mMaxValue, getFlingValue(mHandoffTime)));
+        double handoffVelocity = getFlingVelocity(mHandoffTime);
+        mSpring.start((float) mHandoffTime, (float) handoffValue,
+                (float) handoffVelocity * mSpringVelocityFactor, mTargetPosition);
+    }
+
+    /**
+     * x(t) = x0 + v0 / k * (e^(k * t) - 1), where k is the (negative) drag rate.
+     */
+    private double getFlingValue(double timeMs) {
+        double t = (timeMs - mFlingStartTime) / 1000;
+        return mFlingStartValue
+                + mFlingStartVelocity / mFriction * (Math.exp(mFriction * t) - 1);
+    }
+
+    /**
+     * v(t) = v0 * e^(k * t).
+     */
+    private double getFlingVelocity(double timeMs) {
+        double t = (timeMs - mFlingStartTime) / 1000;
+        return mFlingStartVelocity * Math.exp(mFriction * t);
+    }
+
+    /**
+     * Returns how long the fling lasts, either until it slows down below the velocity threshold
+     * or until it reaches one of the bounds, whichever comes first.
+     */
+    private double computeFlingDurationMs() {
+        double x0 = mFlingStartValue;
+        double v0 = mFlingStartVelocity;
+        if ((v0 >= 0 && x0 >= mMaxValue) || (v0 <= 0 && x0 <= mMinValue)
+                || Math.abs(v0) < mVelocityThreshold) {
+            return 0;
+        }
+        double duration = Math.log(mVelocityThreshold / Math.abs(v0)) / mFriction;
+
+        // Solve x(t) = bound, i.e. e^(k * t) = 1 + k * (bound - x0) / v0.
+        double bound = v0 > 0 ? mMaxValue : mMinValue;
+        double e = 1 + mFriction * (bound - x0) / v0;
+        if (e > 0) {
+            duration = Math.min(duration, Math.log(e) / mFriction);
+        }
+        return Math.max(0, duration) * 1000;
+    }
+}
@@ -1,9 +1,7 @@
 package com.transsion.springanimation;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ValueAnimator;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Outline;
@@ -18,13 +16,12 @@ import android.util.Log;
 import android.util.Property;
 import android.view.View;
 import android.view.ViewOutlineProvider;
+import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
 import android.widget.FrameLayout;
 
 import androidx.annotation.Nullable;
-import androidx.dynamicanimation.animation.FloatPropertyCompat;
-import androidx.dynamicanimation.animation.SpringAnimation;
 import androidx.dynamicanimation.animation.SpringForce;
 
 /**
@@ -35,8 +32,13 @@ import androidx.dynamicanimation.animation.SpringForce;
 class FloatingIconView extends View implements ClipPathView {
     private static final String TAG = FloatingIconView.class.getSimpleName();
     public static final Interpolator LINEAR = new LinearInterpolator();
+    // The interpolator of a default ValueAnimator, which the reveal used to be driven through.
+    private static final Interpolator REVEAL_INTERPOLATOR = new AccelerateDecelerateInterpolator();
 
     public static final float SHAPE_PROGRESS_DURATION = 0.10f;
+    // Trace sections, see TransitionTrace.
+    private static final String TRACE_UPDATE = "FloatingIconView#update";
+    private static final String TRACE_DRAW = "FloatingIconView#draw";
     private static final int FADE_DURATION_MS = 200;
     private static final Rect sTmpRect = new Rect();
     private static final RectF sTmpRectF = new RectF();
@@ -47,57 +49,75 @@ class FloatingIconView extends View implements ClipPathView {
     private static final int FG_TRANS_X_FACTOR = 60;
     private static final int FG_TRANS_Y_FACTOR = 75;
 
-    private final SpringAnimation mFgSpringY;
+    // Stepped by mFrameScheduler, along with the other animations of the transition. Only
+    // created for adaptive icons, whose foreground is drawn separately.
+    private Vector2SpringSolver mFgSpring;
     private float mFgTransY;
-    private final SpringAnimation mFgSpringX;
     private float mFgTransX;
+    private TransitionFrameScheduler mFrameScheduler;
+    @Nullable
+    private TransitionMetrics mMetrics;
+    private boolean mFgSpringRunning;
+    private long mFgStartTimeNanos;
+    // Time of the last frame stepped, relative to mFgStartTimeNanos.
+    private float mFgTimeMs;
+    // Translations stepped for the current frame, until they are committed.
+    private float mFgNextTransX;
+    private float mFgNextTransY;
+    private final TransitionFrameScheduler.FrameClient mFgFrameClient =
+            new TransitionFrameScheduler.FrameClient() {
+                @Override
+                public boolean onStep(long frameTimeNanos) {
+                    if (mFgStartTimeNanos < 0) {
+                        mFgStartTimeNanos = frameTimeNanos;
+                    }
+                    mFgTimeMs = (frameTimeNanos - mFgStartTimeNanos) / 1_000_000f;
+                    mFgSpringRunning = !mFgSpring.compute(mFgTimeMs);
+                    mFgNextTransX = mFgSpring.getX();
+                    mFgNextTransY = mFgSpring.getY();
+                    return mFgSpringRunning;
+                }
+
+                @Override
+                public void onCommit(long frameTimeNanos) {
+                    if (mFgTransX != mFgNextTransX || mFgTransY != mFgNextTransY) {
+                        mFgTransX = mFgNextTransX;
+                        mFgTransY = mFgNextTransY;
+                        invalidate();
+                    }
+                }
+            };
 
     private @Nullable Drawable mBadge;
     private @Nullable Drawable mForeground;
     private @Nullable Drawable mBackground;
-    private ValueAnimator mRevealAnimator;
+    // The shape of this icon, or null to use the default shape.
+    @Nullable
+    private IconShape mIconShape;
+    // Created once per shape and reset for every transition, see #update.
+    private ShapeReveal mReveal;
+    private IconShape mRevealShape;
     private final Rect mStartRevealRect = new Rect();
     private final Rect mEndRevealRect = new Rect();
     private Path mClipPath;
     private float mTaskCornerRadius;
 
+    // Progress of the current reveal, or -1 until it starts.
+    private float mRevealProgress = -1;
+    private int mFgTargetX;
+    private int mFgTargetY;
+
     private final Rect mOutline = new Rect();
     private final Rect mFinalDrawableBounds = new Rect();
 
+    private DeviceProfile mDeviceProfile;
+
     private boolean mIsVerticalBarLayout = false;
     private boolean mIsAdaptiveIcon = false;
     private boolean mIsOpening;
     private final boolean mIsRtl = false;
     private final int mBlurSizeOutline = 3;
 
-    private static final FloatPropertyCompat<FloatingIconView> mFgTransYProperty
-            = new FloatPropertyCompat<FloatingIconView>("FloatingViewFgTransY") {
-        @Override
-        public float getValue(FloatingIconView view) {
-            return view.mFgTransY;
-        }
-
-        @Override
-        public void setValue(FloatingIconView view, float transY) {
-            view.mFgTransY = transY;
-            view.invalidate();
-        }
-    };
-
-    private static final FloatPropertyCompat<FloatingIconView> mFgTransXProperty
-            = new FloatPropertyCompat<FloatingIconView>("FloatingViewFgTransX") {
-        @Override
-        public float getValue(FloatingIconView view) {
-            return view.mFgTransX;
-        }
-
-        @Override
-        public void setValue(FloatingIconView view, float transX) {
-            view.mFgTransX = transX;
-            view.invalidate();
-        }
-    };
-
     public static final Property<Drawable, Integer> DRAWABLE_ALPHA =
             new Property<Drawable, Integer>(Integer.TYPE, "drawableAlpha") {
                 @Override
@@ -125,15 +145,30 @@ class FloatingIconView extends View implements ClipPathView {
 
     public FloatingIconView(Context context, @Nullable AttributeSet attrs, int defStyleAttr, int defStyleRes) {
         super(context, attrs, defStyleAttr, defStyleRes);
+        mDeviceProfile = DeviceProfile.get(getResources());
+        setPivotX(0);
+        setPivotY(0);
+    }
 
-        mFgSpringX = new SpringAnimation(this, mFgTransXProperty)
-                .setSpring(new SpringForce()
-                        .setDampingRatio(SpringForce.DAMPING_RATIO_LOW_BOUNCY)
-                        .setStiffness(SpringForce.STIFFNESS_LOW));
-        mFgSpringY = new SpringAnimation(this, mFgTransYProperty)
-                .setSpring(new SpringForce()
-                        .setDampingRatio(SpringForce.DAMPING_RATIO_LOW_BOUNCY)
-                        .setStiffness(SpringForce.STIFFNESS_LOW));
+    /**
+     * Sets the scheduler stepping the foreground springs, which should be the one stepping the
+     * animation driving {@link #update}, so that both are applied in the same frame. If none is
+     * set, the view creates its own.
+     */
+    public void setFrameScheduler(TransitionFrameScheduler scheduler) {
+        if (mFgSpringRunning && mFrameScheduler != null) {
+            mFrameScheduler.remove(mFgFrameClient);
+            scheduler.add(mFgFrameClient);
+        }
+        mFrameScheduler = scheduler;
+    }
+
+    /**
+     * Sets the metrics notified of every draw of this view, or null to stop timing them. Usually
+     * the metrics of the animation driving {@link #update}.
+     */
+    public void setMetrics(@Nullable TransitionMetrics metrics) {
+        mMetrics = metrics;
     }
 
     /**
@@ -145,11 +180,17 @@ class FloatingIconView extends View implements ClipPathView {
      */
     public void update(RectF rect, float alpha, float progress, float shapeProgressStart,
                        float cornerRadius, boolean isOpening) {
+        boolean trace = TransitionTrace.isEnabled();
+        if (trace) {
+            TransitionTrace.beginSection(TRACE_UPDATE);
+        }
+        // Translation, scale and alpha are render node properties: the framework skips unchanged
+        // values and applying them does not require redrawing the content of this view.
         setAlpha(alpha);
         FrameLayout.LayoutParams lp = (FrameLayout.LayoutParams) getLayoutParams();
         float dX = mIsRtl
                 ? rect.left
-                - (/*mLauncher.getDeviceProfile().widthPx*/1080 - lp.getMarginStart() - lp.width)
+                - (mDeviceProfile.widthPx - lp.getMarginStart() - lp.width)
                 : rect.left - lp.getMarginStart();
         float dY = rect.top - lp.topMargin;
         setTranslationX(dX);
@@ -160,8 +201,6 @@ class FloatingIconView extends View implements ClipPathView {
         float scaleY = rect.height() / minSize;
         float scale = Math.max(1f, Math.min(scaleX, scaleY));
 
-        setPivotX(0);
-        setPivotY(0);
         setScaleX(scale);
         setScaleY(scale);
 
@@ -171,29 +210,42 @@ class FloatingIconView extends View implements ClipPathView {
                 Math.max(shapeProgressStart, progress), shapeProgressStart, 1f, 0, toMax,
                 LINEAR), 0, 1);
 
+        // The outline is in whole pixels, only update it when it changes at that resolution.
+        boolean outlineChanged = false;
         if (mIsVerticalBarLayout) {
-            mOutline.right = (int) (rect.width() / scale);
+            int right = (int) (rect.width() / scale);
+            outlineChanged = mOutline.right != right;
+            mOutline.right = right;
         } else {
-            mOutline.bottom = (int) (rect.height() / scale);
+            int bottom = (int) (rect.height() / scale);
+            outlineChanged = mOutline.bottom != bottom;
+            mOutline.bottom = bottom;
         }
 
-        mTaskCornerRadius = cornerRadius / scale;
+        float taskCornerRadius = cornerRadius / scale;
+        if (mTaskCornerRadius != taskCornerRadius) {
+            mTaskCornerRadius = taskCornerRadius;
+            outlineChanged = true;
+        }
         if (mIsAdaptiveIcon) {
             if (!isOpening && progress >= shapeProgressStart) {
-                if (mRevealAnimator == null) {
-                    mRevealAnimator = (ValueAnimator) IconShape.getShape().createRevealAnimator(
-                            this, mStartRevealRect, mOutline, mTaskCornerRadius, !isOpening);
-                    mRevealAnimator.addListener(new AnimatorListenerAdapter() {
-                        @Override
-                        public void onAnimationEnd(Animator animation) {
-                            mRevealAnimator = null;
-                        }
-                    });
-                    mRevealAnimator.start();
-                    // We pause here so we can set the current fraction ourselves.
-                    mRevealAnimator.pause();
+                float revealProgress = REVEAL_INTERPOLATOR.getInterpolation(shapeRevealProgress);
+                if (mRevealProgress < 0) {
+                    IconShape shape = mIconShape != null ? mIconShape : IconShape.getShape();
+                    if (mRevealShape != shape) {
+                        mRevealShape = shape;
+                        mReveal = shape.createReveal(this);
+                    }
+                    mReveal.reset(mStartRevealRect, mOutline, mTaskCornerRadius, !isOpening);
+                    mReveal.setProgress(revealProgress);
+                } else if (outlineChanged || revealProgress != mRevealProgress) {
+                    // The reveal ends on mOutline, so it also changes with the outline.
+                    mReveal.setProgress(revealProgress);
                 }
-                mRevealAnimator.setCurrentFraction(shapeRevealProgress);
+                mRevealProgress = revealProgress;
+            } else {
+                // Not revealing yet, e.g. at the start of the next transition.
+                mRevealProgress = -1;
             }
 
             float drawableScale = (mIsVerticalBarLayout ? mOutline.width() : mOutline.height())
@@ -209,20 +261,75 @@ class FloatingIconView extends View implements ClipPathView {
                         : 0;
                 sTmpRect.set(mFinalDrawableBounds);
                 sTmpRect.offset(diffX, diffY);
-                mForeground.setBounds(sTmpRect);
+                setDrawableBounds(mForeground, sTmpRect);
             } else {
                 // Spring the foreground relative to the icon's movement within the DragLayer.
-                int diffX = (int) (dX / 1080/*mLauncher.getDeviceProfile().availableWidthPx*/
-                        * FG_TRANS_X_FACTOR);
-                int diffY = (int) (dY / 1920/*mLauncher.getDeviceProfile().availableHeightPx*/
-                        * FG_TRANS_Y_FACTOR);
-
-                mFgSpringX.animateToFinalPosition(diffX);
-                mFgSpringY.animateToFinalPosition(diffY);
+                int diffX = (int) (dX / mDeviceProfile.widthPx * FG_TRANS_X_FACTOR);
+                int diffY = (int) (dY / mDeviceProfile.heightPx * FG_TRANS_Y_FACTOR);
+
+                // Don't restart springs that already rest on, or are heading to, the same target.
+                if (diffX != mFgTargetX || diffY != mFgTargetY) {
+                    mFgTargetX = diffX;
+                    mFgTargetY = diffY;
+                    animateForegroundTo(diffX, diffY);
+                }
             }
         }
-        invalidate();
-        invalidateOutline();
+        if (outlineChanged) {
+            invalidateOutline();
+        }
+        if (trace) {
+            TransitionTrace.endSection();
+        }
+    }
+
+    /**
+     * Sets the shape revealed by this icon, e.g. one registered through
+     * {@link IconShape#registerShape} for the app or folder it represents, or null to use the
+     * default shape. Takes effect from the next reveal.
+     */
+    public void setIconShape(@Nullable IconShape shape) {
+        mIconShape = shape;
+    }
+
+    /**
+     * Springs the foreground towards the given translation, keeping its current position and
+     * velocity if it is already moving.
+     */
+    private void animateForegroundTo(int transX, int transY) {
+        if (mFgSpringRunning) {
+            mFgSpring.setFinalPosition(mFgTimeMs, transX, transY);
+            return;
+        }
+        if (mFgSpring == null) {
+            mFgSpring = new Vector2SpringSolver(SpringForce.STIFFNESS_LOW,
+                    SpringForce.DAMPING_RATIO_LOW_BOUNCY);
+        }
+        mFgStartTimeNanos = -1;
+        mFgTimeMs = 0;
+        mFgSpring.start(0, mFgTransX, mFgTransY, 0, 0, transX, transY);
+        mFgSpringRunning = true;
+        if (mFrameScheduler == null) {
+            mFrameScheduler = new TransitionFrameScheduler();
+        }
+        mFrameScheduler.add(mFgFrameClient);
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        mDeviceProfile = DeviceProfile.get(getResources());
+    }
+
+    /**
+     * Sets the bounds of {@param drawable}, invalidating this view only if they changed. Changes
+     * of the render node properties alone, such as translation, don't need to invalidate.
+     */
+    private void setDrawableBounds(Drawable drawable, Rect bounds) {
+        if (!drawable.getBounds().equals(bounds)) {
+            drawable.setBounds(bounds);
+            invalidate();
+        }
     }
 
     private void setBackgroundDrawableBounds(float scale) {
@@ -234,17 +341,24 @@ class FloatingIconView extends View implements ClipPathView {
         } else {
             sTmpRect.offsetTo(sTmpRect.left, (int) (mFinalDrawableBounds.top * scale));
         }
-        mBackground.setBounds(sTmpRect);
+        setDrawableBounds(mBackground, sTmpRect);
     }
 
     @Override
     public void setClipPath(Path clipPath) {
+        // The same path may be set again with new contents, so always invalidate.
         mClipPath = clipPath;
         invalidate();
     }
 
     @Override
     public void draw(Canvas canvas) {
+        TransitionMetrics metrics = mMetrics;
+        long drawStartNanos = metrics != null ? System.nanoTime() : 0;
+        boolean trace = TransitionTrace.isEnabled();
+        if (trace) {
+            TransitionTrace.beginSection(TRACE_DRAW);
+        }
         int count = canvas.save();
         if (mClipPath != null) {
             canvas.clipPath(mClipPath);
@@ -263,6 +377,12 @@ class FloatingIconView extends View implements ClipPathView {
             mBadge.draw(canvas);
         }
         canvas.restoreToCount(count);
+        if (trace) {
+            TransitionTrace.endSection();
+        }
+        if (metrics != null) {
+            metrics.onIconDrawn(drawStartNanos, System.nanoTime());
+        }
     }
 
     /**
@@ -345,6 +465,7 @@ class FloatingIconView extends View implements ClipPathView {
     public void setIcon(@Nullable Drawable drawable, @Nullable Drawable badge,
                          int iconOffset) {
         mBadge = badge;
+        mRevealProgress = -1;
 
         mIsAdaptiveIcon = drawable instanceof AdaptiveIconDrawable;
         if (mIsAdaptiveIcon) {
@@ -388,7 +509,7 @@ class FloatingIconView extends View implements ClipPathView {
             scaleRectAboutCenter(mStartRevealRect,
                         IconShape.getNormalizationScale());
 
-            float aspectRatio = 1920/1080;/*mLauncher.getDeviceProfile().aspectRatio;*/
+            float aspectRatio = mDeviceProfile.aspectRatio;
             if (mIsVerticalBarLayout) {
                 lp.width = (int) Math.max(lp.width, lp.height * aspectRatio);
             } else {
@@ -396,7 +517,7 @@ class FloatingIconView extends View implements ClipPathView {
             }
 
             int left = mIsRtl
-                    ? 1080/*mLauncher.getDeviceProfile().widthPx*/ - lp.getMarginStart() - lp.width
+                    ? mDeviceProfile.widthPx - lp.getMarginStart() - lp.width
                     : lp.leftMargin;
             layout(left, lp.topMargin, left + lp.width, lp.topMargin + lp.height);
 
@@ -0,0 +1,91 @@
+package com.transsion.springanimation;
+
+/**
+ * Fixed size queue of frames, {@link #STRIDE} values each, for exactly one producer thread and
+ * one consumer thread. It is lock-free: each side only writes its own counter, and publishes the
+ * frames it wrote or frees the slots it read through that volatile write.
+ */
+public class FrameRingBuffer {
+
+    public static final int STRIDE = RectFSpringSolver.FRAME_STRIDE;
+
+    private final float[] mFrames;
+    private final int mCapacity;
+    private final int mMask;
+
+    // Number of frames offered and polled since the last clear. Only the producer writes
+    // mWriteCount and only the consumer writes mReadCount.
+    private volatile long mWriteCount;
+    private volatile long mReadCount;
+
+    /**
+     * @param capacity The number of frames the buffer can hold, a power of two.
+     */
+    public FrameRingBuffer(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        mCapacity = capacity;
+        mMask = capacity - 1;
+        mFrames = new float[capacity * STRIDE];
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Returns the number of frames that can be offered before the buffer is full. Only exact
+     * when called by the producer, the consumer may free more slots at any time.
+     */
+    public int getRemainingCapacity() {
+        return mCapacity - (int) (mWriteCount - mReadCount);
+    }
+
+    /**
+     * Returns whether there is no frame to poll. Only exact when called by the consumer, the
+     * producer may offer more frames at any time.
+     */
+    public boolean isEmpty() {
+        return mReadCount == mWriteCount;
+    }
+
+    /**
+     * Producer side: copies the frame at {@param offset} of {@param frame} into the buffer.
+     *
+     * @return False if the buffer is full, in which case nothing was copied.
+     */
+    public boolean offer(float[] frame, int offset) {
+        long writeCount = mWriteCount;
+        if (writeCount - mReadCount == mCapacity) {
+            return false;
+        }
+        System.arraycopy(frame, offset, mFrames, (int) (writeCount & mMask) * STRIDE, STRIDE);
+        mWriteCount = writeCount + 1;
+        return true;
+    }
+
+    /**
+     * Consumer side: copies the oldest frame into {@param out} at {@param offset} and removes it
+     * from the buffer.
+     *
+     * @return False if the buffer is empty, in which case nothing was copied.
+     */
+    public boolean poll(float[] out, int offset) {
+        long readCount = mReadCount;
+        if (readCount == mWriteCount) {
+            return false;
+        }
+        System.arraycopy(mFrames, (int) (readCount & mMask) * STRIDE, out, offset, STRIDE);
+        mReadCount = readCount + 1;
+        return true;
+    }
+
+    /**
+     * Removes all the frames. Must only be called while neither side is using the buffer.
+     */
+    public void clear() {
+        mReadCount = 0;
+        mWriteCount = 0;
+    }
+}
@@ -0,0 +1,180 @@
+package com.transsion.springanimation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The inputs of one run of a {@link RectFSpringAnim}: the start and target rects, the velocity
+ * it was started with, the dimens and backend it used and every change of the target rect while
+ * it was running, timed from its first frame. Filled through
+ * {@link RectFSpringAnim#setGestureRecording} and replayed on a JVM by the benchmark module's
+ * GestureReplay.
+ *
+ * Recordings are stored as a compact binary record, see {@link #writeTo(DataOutput)}. A file
+ * holds any number of records one after the other.
+ */
+public class GestureRecording {
+
+    private static final int MAGIC = 0x52534752; // "RSGR"
+    // Version 2 added the backend, version 1 records were all made with the default one.
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_BACKEND = 1;
+
+    // Number of values per target change: time, left, top, right, bottom.
+    public static final int RETARGET_STRIDE = 5;
+
+    private final float[] mStartRect = new float[4];
+    private final float[] mTargetRect = new float[4];
+    private float mVelocityXPxPerMs;
+    private float mVelocityYPxPerMs;
+    private float mMinVisChange;
+    private float mYOvershoot;
+    private int mBackend;
+    private float[] mRetargets = new float[4 * RETARGET_STRIDE];
+    private int mRetargetCount;
+
+    /**
+     * Starts a new recording, discarding the previous one.
+     */
+    public void onStart(float startLeft, float startTop, float startRight, float startBottom,
+            float targetLeft, float targetTop, float targetRight, float targetBottom,
+            float velocityXPxPerMs, float velocityYPxPerMs, float minVisChange,
+            float yOvershoot, int backend) {
+        set(mStartRect, startLeft, startTop, startRight, startBottom);
+        set(mTargetRect, targetLeft, targetTop, targetRight, targetBottom);
+        mVelocityXPxPerMs = velocityXPxPerMs;
+        mVelocityYPxPerMs = velocityYPxPerMs;
+        mMinVisChange = minVisChange;
+        mYOvershoot = yOvershoot;
+        mBackend = backend;
+        mRetargetCount = 0;
+    }
+
+    /**
+     * Records that the target rect changed {@param timeMs} after the first frame.
+     */
+    public void onRetarget(float timeMs, float left, float top, float right, float bottom) {
+        int offset = mRetargetCount * RETARGET_STRIDE;
+        if (offset + RETARGET_STRIDE > mRetargets.length) {
+            mRetargets = Arrays.copyOf(mRetargets, mRetargets.length * 2);
+        }
+        mRetargets[offset] = timeMs;
+        mRetargets[offset + 1] = left;
+        mRetargets[offset + 2] = top;
+        mRetargets[offset + 3] = right;
+        mRetargets[offset + 4] = bottom;
+        mRetargetCount++;
+    }
+
+    /** Returns the start rect as left, top, right, bottom. */
+    public float[] getStartRect() {
+        return mStartRect;
+    }
+
+    /** Returns the initial target rect as left, top, right, bottom. */
+    public float[] getTargetRect() {
+        return mTargetRect;
+    }
+
+    public float getVelocityXPxPerMs() {
+        return mVelocityXPxPerMs;
+    }
+
+    public float getVelocityYPxPerMs() {
+        return mVelocityYPxPerMs;
+    }
+
+    public float getMinVisChange() {
+        return mMinVisChange;
+    }
+
+    public float getYOvershoot() {
+        return mYOvershoot;
+    }
+
+    /**
+     * Returns the backend of the recorded run, one of the RectFSpringAnim backends.
+     */
+    public int getBackend() {
+        return mBackend;
+    }
+
+    public int getRetargetCount() {
+        return mRetargetCount;
+    }
+
+    /**
+     * Returns the target changes, {@link #RETARGET_STRIDE} values each. Only the first
+     * {@link #getRetargetCount()} are valid.
+     */
+    public float[] getRetargets() {
+        return mRetargets;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeFloats(out, mStartRect, 4);
+        writeFloats(out, mTargetRect, 4);
+        out.writeFloat(mVelocityXPxPerMs);
+        out.writeFloat(mVelocityYPxPerMs);
+        out.writeFloat(mMinVisChange);
+        out.writeFloat(mYOvershoot);
+        out.writeByte(mBackend);
+        out.writeInt(mRetargetCount);
+        writeFloats(out, mRetargets, mRetargetCount * RETARGET_STRIDE);
+    }
+
+    /**
+     * Reads a record written by {@link #writeTo(DataOutput)}, replacing this recording.
+     */
+    public void readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a gesture recording");
+        }
+        int version = in.readByte();
+        if (version != VERSION && version != VERSION_WITHOUT_BACKEND) {
+            throw new IOException("Unsupported gesture recording version " + version);
+        }
+        readFloats(in, mStartRect, 4);
+        readFloats(in, mTargetRect, 4);
+        mVelocityXPxPerMs = in.readFloat();
+        mVelocityYPxPerMs = in.readFloat();
+        mMinVisChange = in.readFloat();
+        mYOvershoot = in.readFloat();
+        // The default backend, RectFSpringAnim#BACKEND_DYNAMIC_ANIMATION.
+        mBackend = version == VERSION_WITHOUT_BACKEND ? 0 : in.readByte();
+        int retargetCount = in.readInt();
+        if (retargetCount < 0) {
+            throw new IOException("Invalid number of target changes " + retargetCount);
+        }
+        int length = retargetCount * RETARGET_STRIDE;
+        if (length > mRetargets.length) {
+            mRetargets = new float[length];
+        }
+        readFloats(in, mRetargets, length);
+        mRetargetCount = retargetCount;
+    }
+
+    private static void set(float[] rect, float left, float top, float right, float bottom) {
+        rect[0] = left;
+        rect[1] = top;
+        rect[2] = right;
+        rect[3] = bottom;
+    }
+
+    private static void writeFloats(DataOutput out, float[] values, int count)
+            throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeFloat(values[i]);
+        }
+    }
+
+    private static void readFloats(DataInput in, float[] values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readFloat();
+        }
+    }
+}
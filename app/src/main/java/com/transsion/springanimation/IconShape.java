@@ -2,10 +2,9 @@ package com.transsion.springanimation;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
-import android.animation.FloatArrayEvaluator;
 import android.animation.ValueAnimator;
-import android.animation.ValueAnimator.AnimatorUpdateListener;
 import android.graphics.Canvas;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.Rect;
@@ -14,11 +13,17 @@ import android.util.TypedValue;
 import android.view.View;
 import android.view.ViewOutlineProvider;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 import androidx.annotation.Nullable;
 
 /**
  * Created by xuecci on 2020/5/30.
  * Email: xuecci@gmail.com
+ *
+ * Shapes are immutable descriptors of the icon geometry, and can be drawn and turned into paths
+ * from any thread. Besides the default shape, any number of shapes can be registered by key,
+ * e.g. for per-app or per-folder shapes, see {@link #registerShape}.
  */
 
 public abstract class IconShape {
@@ -26,43 +31,203 @@ public abstract class IconShape {
     // Ratio of the diameter of an normalized circular icon to the actual icon size.
     public static final float ICON_VISIBLE_AREA_FACTOR = 0.92f;
 
-    private static IconShape sInstance = new RoundedSquare(0.5f);
-    private static Path sShapePath;
-    private static float sNormalizationScale = ICON_VISIBLE_AREA_FACTOR;
+    // Number of sizes for which each shape keeps a path, see #getPath.
+    private static final int PATH_CACHE_SIZE = 8;
+
+    private static volatile IconShape sDefaultShape = new RoundedSquare(0.5f);
+    private static final ConcurrentHashMap<String, IconShape> sShapes = new ConcurrentHashMap<>();
+    @Nullable
+    private static volatile ShapeMaskCache sMaskCache;
 
     public static final int DEFAULT_PATH_SIZE = 100;
 
+    // Trace sections of the path builders, see TransitionTrace.
+    private static final String TRACE_BUILD_PATH = "IconShape#buildPath";
+    private static final String TRACE_SCALE_PATH = "IconShape#scalePath";
+    private static final String TRACE_REVEAL_PATH = "IconShape#revealPath";
+
+    /**
+     * Returns the default shape, used by icons without a registered shape.
+     */
     public static IconShape getShape() {
-        return sInstance;
+        return sDefaultShape;
     }
 
-    public static Path getShapePath() {
-        if (sShapePath == null) {
-            Path p = new Path();
-            getShape().addToPath(p, 0, 0, DEFAULT_PATH_SIZE * 0.5f);
-            sShapePath = p;
-        }
-        return sShapePath;
+    /**
+     * Returns the shape registered for {@param key}, or the default shape if there is none.
+     */
+    public static IconShape getShape(String key) {
+        IconShape shape = sShapes.get(key);
+        return shape != null ? shape : sDefaultShape;
+    }
+
+    /**
+     * Sets the default shape, after building its geometry on the calling thread.
+     */
+    public static void setShape(IconShape shape) {
+        shape.getUnitPath();
+        sDefaultShape = shape;
+    }
+
+    /**
+     * Registers {@param shape} for {@param key}, replacing the shape previously registered for
+     * it. Its geometry is built on the calling thread, so that shapes can be prepared on a
+     * background thread before the main thread draws them.
+     */
+    public static void registerShape(String key, IconShape shape) {
+        shape.getUnitPath();
+        sShapes.put(key, shape);
+    }
+
+    public static void unregisterShape(String key) {
+        sShapes.remove(key);
     }
 
     public static float getNormalizationScale() {
-        return sNormalizationScale;
+        return ICON_VISIBLE_AREA_FACTOR;
+    }
+
+    /**
+     * Sets the cache from which {@link #drawShape} draws filled shapes, or null to always draw
+     * them directly.
+     */
+    public static void setMaskCache(@Nullable ShapeMaskCache maskCache) {
+        sMaskCache = maskCache;
+    }
+
+    @Nullable
+    public static ShapeMaskCache getMaskCache() {
+        return sMaskCache;
     }
 
     private SparseArray<TypedValue> mAttrs;
 
+    // The shape with a radius of 1, from which the paths of every size are derived. Built once
+    // and never modified afterwards, see #getUnitPath.
+    private volatile Path mUnitPath;
+    // Paths of the most recently used sizes, most recent first. The cache and mTmpMatrix are
+    // guarded by mCachedPaths.
+    private final float[] mCachedRadii = new float[PATH_CACHE_SIZE];
+    private final Path[] mCachedPaths = new Path[PATH_CACHE_SIZE];
+    private int mCachedCount;
+    private final Matrix mTmpMatrix = new Matrix();
+
     public boolean enableShapeDetection(){
         return false;
     };
 
-    public abstract void drawShape(Canvas canvas, float offsetX, float offsetY, float radius,
-                                   Paint paint);
+    public final void drawShape(Canvas canvas, float offsetX, float offsetY, float radius,
+                                Paint paint) {
+        ShapeMaskCache maskCache = sMaskCache;
+        if (maskCache != null && paint.getStyle() == Paint.Style.FILL) {
+            maskCache.drawShape(this, canvas, offsetX, offsetY, radius, paint);
+        } else {
+            onDrawShape(canvas, offsetX, offsetY, radius, paint);
+        }
+    }
+
+    /**
+     * Draws the shape directly, without going through the mask cache.
+     */
+    protected abstract void onDrawShape(Canvas canvas, float offsetX, float offsetY, float radius,
+                                        Paint paint);
+
+    /**
+     * Returns the ratio which, together with the class, defines the geometry of the shape.
+     */
+    public float getRadiusRatio() {
+        return 0;
+    }
+
+    public final void addToPath(Path path, float offsetX, float offsetY, float radius) {
+        path.addPath(getPath(radius), offsetX, offsetY);
+    }
+
+    /**
+     * Builds the geometry of the shape with the given radius, whose bounds start at
+     * {@param offsetX} and {@param offsetY}. Only used to build the unit path, see
+     * {@link #getPath(float)}.
+     */
+    protected abstract void addShapeToPath(Path path, float offsetX, float offsetY, float radius);
+
+    /**
+     * Returns the path of the shape with the given radius and its bounds starting at 0, 0. The
+     * shape is only built once with a radius of 1 and scaled for every other size, and the
+     * paths of the last few sizes are kept so that repeated draws don't transform it again.
+     * The returned path is shared and must not be modified. Can be called from any thread.
+     */
+    public Path getPath(float radius) {
+        Path unitPath = getUnitPath();
+        synchronized (mCachedPaths) {
+            for (int i = 0; i < mCachedCount; i++) {
+                if (mCachedRadii[i] == radius) {
+                    Path path = mCachedPaths[i];
+                    moveToFront(i, radius, path);
+                    return path;
+                }
+            }
+
+            boolean trace = TransitionTrace.isEnabled();
+            if (trace) {
+                TransitionTrace.beginSection(TRACE_SCALE_PATH);
+            }
+            // Evicted paths may still be in use by a caller, so never write into them.
+            Path path = new Path();
+            mTmpMatrix.setScale(radius, radius);
+            unitPath.transform(mTmpMatrix, path);
+            if (mCachedCount < PATH_CACHE_SIZE) {
+                mCachedCount++;
+            }
+            moveToFront(mCachedCount - 1, radius, path);
+            if (trace) {
+                TransitionTrace.endSection();
+            }
+            return path;
+        }
+    }
+
+    /**
+     * Returns the shape with a radius of 1, building it on the first call.
+     */
+    private Path getUnitPath() {
+        Path unitPath = mUnitPath;
+        if (unitPath == null) {
+            synchronized (this) {
+                unitPath = mUnitPath;
+                if (unitPath == null) {
+                    boolean trace = TransitionTrace.isEnabled();
+                    if (trace) {
+                        TransitionTrace.beginSection(TRACE_BUILD_PATH);
+                    }
+                    unitPath = new Path();
+                    addShapeToPath(unitPath, 0, 0, 1);
+                    mUnitPath = unitPath;
+                    if (trace) {
+                        TransitionTrace.endSection();
+                    }
+                }
+            }
+        }
+        return unitPath;
+    }
 
-    public abstract void addToPath(Path path, float offsetX, float offsetY, float radius);
+    private void moveToFront(int index, float radius, Path path) {
+        System.arraycopy(mCachedRadii, 0, mCachedRadii, 1, index);
+        System.arraycopy(mCachedPaths, 0, mCachedPaths, 1, index);
+        mCachedRadii[0] = radius;
+        mCachedPaths[0] = path;
+    }
 
     public abstract <T extends View & ClipPathView> Animator createRevealAnimator(T target,
                                                                                   Rect startRect, Rect endRect, float endRadius, boolean isReversed);
 
+    /**
+     * Returns a reveal that applies the same reveal as {@link #createRevealAnimator} to
+     * {@param target} at the progress it is given, so that it can be driven directly by the
+     * caller every frame. It can be reused for any number of reveals of the same target.
+     */
+    public abstract <T extends View & ClipPathView> ShapeReveal createReveal(T target);
+
     @Nullable
     public TypedValue getAttrValue(int attr) {
         return mAttrs == null ? null : mAttrs.get(attr);
@@ -85,33 +250,70 @@ public abstract class IconShape {
             }.createRevealAnimator(target, isReversed);
         }
 
+        @Override
+        public final <T extends View & ClipPathView> ShapeReveal createReveal(T target) {
+            return new RectReveal(this, target);
+        }
+
         protected abstract float getStartRadius(Rect startRect);
     }
 
+    private static final class RectReveal extends ShapeReveal {
+
+        private final SimpleRectShape mShape;
+        private final View mTarget;
+        private final RoundedRectRevealOutlineProvider mOutlineProvider =
+                new RoundedRectRevealOutlineProvider(0, 0, null, null) {
+                    @Override
+                    public boolean shouldRemoveElevationDuringAnimation() {
+                        return true;
+                    }
+                };
+
+        RectReveal(SimpleRectShape shape, View target) {
+            mShape = shape;
+            mTarget = target;
+        }
+
+        @Override
+        protected void onStart() {
+            mOutlineProvider.set(mShape.getStartRadius(mStartRect), mEndRadius, mStartRect,
+                    mEndRect);
+            mOutlineProvider.prepareForReveal(mTarget);
+        }
+
+        @Override
+        protected void onProgress(float progress) {
+            mOutlineProvider.setProgress(progress);
+            mTarget.invalidateOutline();
+        }
+    }
+
     /**
      * Abstract shape which draws using {@link Path}
      */
     private static abstract class PathShape extends IconShape {
 
-        private final Path mTmpPath = new Path();
-
         @Override
-        public final void drawShape(Canvas canvas, float offsetX, float offsetY, float radius,
-                                    Paint paint) {
-            mTmpPath.reset();
-            addToPath(mTmpPath, offsetX, offsetY, radius);
-            canvas.drawPath(mTmpPath, paint);
+        protected final void onDrawShape(Canvas canvas, float offsetX, float offsetY,
+                                         float radius, Paint paint) {
+            int count = canvas.save();
+            canvas.translate(offsetX, offsetY);
+            canvas.drawPath(getPath(radius), paint);
+            canvas.restoreToCount(count);
         }
 
-        protected abstract AnimatorUpdateListener newUpdateListener(
-                Rect startRect, Rect endRect, float endRadius, Path outPath);
+        /**
+         * Adds the shape to {@param outPath} at {@param progress}, from 0 at {@param startRect}
+         * to 1 at {@param endRect}.
+         */
+        protected abstract void addRevealToPath(Rect startRect, Rect endRect, float endRadius,
+                float progress, Path outPath);
 
         @Override
         public final <T extends View & ClipPathView> Animator createRevealAnimator(T target,
                                                                                    Rect startRect, Rect endRect, float endRadius, boolean isReversed) {
             Path path = new Path();
-            AnimatorUpdateListener listener =
-                    newUpdateListener(startRect, endRect, endRadius, path);
 
             ValueAnimator va =
                     isReversed ? ValueAnimator.ofFloat(1f, 0f) : ValueAnimator.ofFloat(0f, 1f);
@@ -133,24 +335,65 @@ public abstract class IconShape {
             });
 
             va.addUpdateListener((anim) -> {
+                float fraction = anim.getAnimatedFraction();
                 path.reset();
-                listener.onAnimationUpdate(anim);
+                addRevealToPath(startRect, endRect, endRadius,
+                        isReversed ? 1 - fraction : fraction, path);
                 target.setClipPath(path);
             });
 
             return va;
         }
+
+        @Override
+        public final <T extends View & ClipPathView> ShapeReveal createReveal(T target) {
+            return new PathReveal<>(this, target);
+        }
+    }
+
+    private static final class PathReveal<T extends View & ClipPathView> extends ShapeReveal {
+
+        private final PathShape mShape;
+        private final T mTarget;
+        // Set again on every frame with new contents, the target must not keep a copy of it.
+        private final Path mPath = new Path();
+
+        PathReveal(PathShape shape, T target) {
+            mShape = shape;
+            mTarget = target;
+        }
+
+        @Override
+        protected void onStart() {
+            mTarget.setOutlineProvider(null);
+            mTarget.setTranslationZ(-mTarget.getElevation());
+        }
+
+        @Override
+        protected void onProgress(float progress) {
+            boolean trace = TransitionTrace.isEnabled();
+            if (trace) {
+                TransitionTrace.beginSection(TRACE_REVEAL_PATH);
+            }
+            mPath.reset();
+            mShape.addRevealToPath(mStartRect, mEndRect, mEndRadius, progress, mPath);
+            if (trace) {
+                TransitionTrace.endSection();
+            }
+            mTarget.setClipPath(mPath);
+        }
     }
 
     public static final class Circle extends SimpleRectShape {
 
         @Override
-        public void drawShape(Canvas canvas, float offsetX, float offsetY, float radius, Paint p) {
+        protected void onDrawShape(Canvas canvas, float offsetX, float offsetY, float radius,
+                                   Paint p) {
             canvas.drawCircle(radius + offsetX, radius + offsetY, radius, p);
         }
 
         @Override
-        public void addToPath(Path path, float offsetX, float offsetY, float radius) {
+        protected void addShapeToPath(Path path, float offsetX, float offsetY, float radius) {
             path.addCircle(radius + offsetX, radius + offsetY, radius, Path.Direction.CW);
         }
 
@@ -177,7 +420,13 @@ public abstract class IconShape {
         }
 
         @Override
-        public void drawShape(Canvas canvas, float offsetX, float offsetY, float radius, Paint p) {
+        public float getRadiusRatio() {
+            return mRadiusRatio;
+        }
+
+        @Override
+        protected void onDrawShape(Canvas canvas, float offsetX, float offsetY, float radius,
+                                   Paint p) {
             float cx = radius + offsetX;
             float cy = radius + offsetY;
             float cr = radius * mRadiusRatio;
@@ -185,7 +434,7 @@ public abstract class IconShape {
         }
 
         @Override
-        public void addToPath(Path path, float offsetX, float offsetY, float radius) {
+        protected void addShapeToPath(Path path, float offsetX, float offsetY, float radius) {
             float cx = radius + offsetX;
             float cy = radius + offsetY;
             float cr = radius * mRadiusRatio;
@@ -205,49 +454,49 @@ public abstract class IconShape {
          * Radio of short radius to large radius, based on the shape options defined in the config.
          */
         private final float mRadiusRatio;
-        private final float[] mTempRadii = new float[8];
+        // Only used by reveals, which run on the main thread. Building the shape itself doesn't
+        // share any state, so that it can be done from any thread.
+        private final float[] mRevealRadii = new float[8];
 
         public TearDrop(float radiusRatio) {
             mRadiusRatio = radiusRatio;
         }
 
         @Override
-        public void addToPath(Path p, float offsetX, float offsetY, float r1) {
+        public float getRadiusRatio() {
+            return mRadiusRatio;
+        }
+
+        @Override
+        protected void addShapeToPath(Path p, float offsetX, float offsetY, float r1) {
             float r2 = r1 * mRadiusRatio;
             float cx = r1 + offsetX;
             float cy = r1 + offsetY;
 
-            p.addRoundRect(cx - r1, cy - r1, cx + r1, cy + r1, getRadiiArray(r1, r2),
+            p.addRoundRect(cx - r1, cy - r1, cx + r1, cy + r1, getRadiiArray(new float[8], r1, r2),
                     Path.Direction.CW);
         }
 
-        private float[] getRadiiArray(float r1, float r2) {
-            mTempRadii[0] = mTempRadii [1] = mTempRadii[2] = mTempRadii[3] =
-                    mTempRadii[6] = mTempRadii[7] = r1;
-            mTempRadii[4] = mTempRadii[5] = r2;
-            return mTempRadii;
+        private static float[] getRadiiArray(float[] radii, float r1, float r2) {
+            radii[0] = radii[1] = radii[2] = radii[3] = radii[6] = radii[7] = r1;
+            radii[4] = radii[5] = r2;
+            return radii;
         }
 
         @Override
-        protected AnimatorUpdateListener newUpdateListener(Rect startRect, Rect endRect,
-                                                           float endRadius, Path outPath) {
-            float r1 = startRect.width() / 2f;
-            float r2 = r1 * mRadiusRatio;
-
-            float[] startValues = new float[] {
-                    startRect.left, startRect.top, startRect.right, startRect.bottom, r1, r2};
-            float[] endValues = new float[] {
-                    endRect.left, endRect.top, endRect.right, endRect.bottom, endRadius, endRadius};
-
-            FloatArrayEvaluator evaluator = new FloatArrayEvaluator(new float[6]);
-
-            return (anim) -> {
-                float progress = (Float) anim.getAnimatedValue();
-                float[] values = evaluator.evaluate(progress, startValues, endValues);
-                outPath.addRoundRect(
-                        values[0], values[1], values[2], values[3],
-                        getRadiiArray(values[4], values[5]), Path.Direction.CW);
-            };
+        protected void addRevealToPath(Rect startRect, Rect endRect, float endRadius,
+                                       float progress, Path outPath) {
+            float startR1 = startRect.width() / 2f;
+            float startR2 = startR1 * mRadiusRatio;
+
+            float r1 = (1 - progress) * startR1 + progress * endRadius;
+            float r2 = (1 - progress) * startR2 + progress * endRadius;
+            outPath.addRoundRect(
+                    (1 - progress) * startRect.left + progress * endRect.left,
+                    (1 - progress) * startRect.top + progress * endRect.top,
+                    (1 - progress) * startRect.right + progress * endRect.right,
+                    (1 - progress) * startRect.bottom + progress * endRect.bottom,
+                    getRadiiArray(mRevealRadii, r1, r2), Path.Direction.CW);
         }
     }
 
@@ -263,7 +512,12 @@ public abstract class IconShape {
         }
 
         @Override
-        public void addToPath(Path p, float offsetX, float offsetY, float r) {
+        public float getRadiusRatio() {
+            return mRadiusRatio;
+        }
+
+        @Override
+        protected void addShapeToPath(Path p, float offsetX, float offsetY, float r) {
             float cx = r + offsetX;
             float cy = r + offsetY;
             float control = r - r * mRadiusRatio;
@@ -291,8 +545,8 @@ public abstract class IconShape {
         }
 
         @Override
-        protected AnimatorUpdateListener newUpdateListener(Rect startRect, Rect endRect,
-                                                           float endR, Path outPath) {
+        protected void addRevealToPath(Rect startRect, Rect endRect, float endR,
+                                       float progress, Path outPath) {
 
             float startCX = startRect.exactCenterX();
             float startCY = startRect.exactCenterY();
@@ -309,31 +563,27 @@ public abstract class IconShape {
             float endHShift = endRect.width() / 2f - endR;
             float endVShift = endRect.height() / 2f - endR;
 
-            return (anim) -> {
-                float progress = (Float) anim.getAnimatedValue();
-
-                float cx = (1 - progress) * startCX + progress * endCX;
-                float cy = (1 - progress) * startCY + progress * endCY;
-                float r = (1 - progress) * startR + progress * endR;
-                float control = (1 - progress) * startControl + progress * endControl;
-                float hShift = (1 - progress) * startHShift + progress * endHShift;
-                float vShift = (1 - progress) * startVShift + progress * endVShift;
+            float cx = (1 - progress) * startCX + progress * endCX;
+            float cy = (1 - progress) * startCY + progress * endCY;
+            float r = (1 - progress) * startR + progress * endR;
+            float control = (1 - progress) * startControl + progress * endControl;
+            float hShift = (1 - progress) * startHShift + progress * endHShift;
+            float vShift = (1 - progress) * startVShift + progress * endVShift;
 
-                outPath.moveTo(cx, cy - vShift - r);
-                outPath.rLineTo(-hShift, 0);
+            outPath.moveTo(cx, cy - vShift - r);
+            outPath.rLineTo(-hShift, 0);
 
-                addLeftCurve(cx - hShift, cy - vShift, r, control, outPath);
-                outPath.rLineTo(0, vShift + vShift);
+            addLeftCurve(cx - hShift, cy - vShift, r, control, outPath);
+            outPath.rLineTo(0, vShift + vShift);
 
-                addRightCurve(cx - hShift, cy + vShift, r, control, outPath);
-                outPath.rLineTo(hShift + hShift, 0);
+            addRightCurve(cx - hShift, cy + vShift, r, control, outPath);
+            outPath.rLineTo(hShift + hShift, 0);
 
-                addLeftCurve(cx + hShift, cy + vShift, -r, -control, outPath);
-                outPath.rLineTo(0, -vShift - vShift);
+            addLeftCurve(cx + hShift, cy + vShift, -r, -control, outPath);
+            outPath.rLineTo(0, -vShift - vShift);
 
-                addRightCurve(cx + hShift, cy - vShift, -r, -control, outPath);
-                outPath.close();
-            };
+            addRightCurve(cx + hShift, cy - vShift, -r, -control, outPath);
+            outPath.close();
         }
     }
 }
@@ -19,44 +19,51 @@ public class MainActivity extends AppCompatActivity {
         FloatingIconView floatingIconView = findViewById(R.id.icon);
         floatingIconView.setIcon(drawable,null, 3);
 
+        DeviceProfile deviceProfile = DeviceProfile.get(getResources());
         RectF startRect = new RectF();
-        startRect.set(0,0,1080,1920);
+        startRect.set(0,0,deviceProfile.widthPx,deviceProfile.heightPx);
         RectF targetRect = new RectF();
         //targetRect.set(startRect);
         int[] point = new int[2];
         floatingIconView.getLocationOnScreen(point);
         targetRect.set(point[0],point[1],point[0]+floatingIconView.getWidth(),point[1]+floatingIconView.getHeight());
         Log.d("Ryan","Rect:"+startRect+" to "+ targetRect);
+        // End on a "round-enough" radius so that the shape reveal doesn't have to do too much
+        // rounding at the end of the animation.
+        float startRadius = 0f;
+        float endRadius = targetRect.width() / 2f;
+        // We want the window alpha to be 0 once this threshold is met, so that the
+        // FolderIconView can be seen morphing into the icon shape.
+        float SHAPE_PROGRESS_DURATION = 0.10f;
+        final float windowAlphaThreshold = 1f - SHAPE_PROGRESS_DURATION;
+        RectFSpringAnim.OnUpdateListener onUpdateListener = new RectFSpringAnim.OnUpdateListener() {
+
+            @Override
+            public void onUpdate(RectF currentRect, float progress) {
+
+                float cornerRadius = endRadius * progress + startRadius
+                        * (1f - progress);
+
+                floatingIconView.update(currentRect, 1f, progress,
+                        windowAlphaThreshold, cornerRadius,
+                        false);
+            }
+
+            @Override
+            public void onCancel() {
+            }
+        };
+        // Steps the foreground of the icon, and the rect too on the solver-based backends.
+        TransitionFrameScheduler frameScheduler = new TransitionFrameScheduler();
+        floatingIconView.setFrameScheduler(frameScheduler);
+        PointF pointF = new PointF();
+        pointF.set(0,-30);
         findViewById(R.id.spring).setOnClickListener(v -> {
-            RectFSpringAnim anim = new RectFSpringAnim(startRect, targetRect, getResources());
-
-            // End on a "round-enough" radius so that the shape reveal doesn't have to do too much
-            // rounding at the end of the animation.
-            float startRadius = 0f;
-            float endRadius = targetRect.width() / 2f;
-            // We want the window alpha to be 0 once this threshold is met, so that the
-            // FolderIconView can be seen morphing into the icon shape.
-            float SHAPE_PROGRESS_DURATION = 0.10f;
-            final float windowAlphaThreshold = 1f - SHAPE_PROGRESS_DURATION;
-            anim.addOnUpdateListener(new RectFSpringAnim.OnUpdateListener() {
-
-                @Override
-                public void onUpdate(RectF currentRect, float progress) {
-
-                    float cornerRadius = endRadius * progress + startRadius
-                            * (1f - progress);
-
-                    floatingIconView.update(currentRect, 1f, progress,
-                            windowAlphaThreshold, cornerRadius,
-                            false);
-                }
-
-                @Override
-                public void onCancel() {
-                }
-            });
-            PointF pointF = new PointF();
-            pointF.set(0,-30);
+            // Reuse the animations of previous clicks, so repeated gestures don't allocate.
+            RectFSpringAnim anim = RectFSpringAnim.obtain(startRect, targetRect, deviceProfile);
+            anim.setFrameScheduler(frameScheduler);
+            anim.addOnUpdateListener(onUpdateListener);
+            anim.recycleOnEnd();
             anim.start(pointF);
         });
     }
@@ -19,10 +19,14 @@ import android.animation.Animator;
 import android.content.res.Resources;
 import android.graphics.PointF;
 import android.graphics.RectF;
+import android.view.Choreographer;
+import android.view.animation.AnimationUtils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
+import androidx.annotation.Nullable;
+import androidx.core.util.Pools;
 import androidx.dynamicanimation.animation.DynamicAnimation.OnAnimationEndListener;
 import androidx.dynamicanimation.animation.FloatPropertyCompat;
 import androidx.dynamicanimation.animation.SpringAnimation;
@@ -35,6 +39,31 @@ import androidx.dynamicanimation.animation.SpringForce;
  */
 public class RectFSpringAnim {
 
+    /** Steps the rect with androidx {@link SpringAnimation}s, frame by frame. */
+    public static final int BACKEND_DYNAMIC_ANIMATION = 0;
+    /** Evaluates the rect at each frame in closed form, using a {@link RectFSpringSolver}. */
+    public static final int BACKEND_ANALYTIC = 1;
+    /**
+     * Steps the rect in fixed substeps of {@link #FIXED_STEP_MS} and interpolates between them,
+     * using a {@link RectFSpringBatch}, so that the motion is the same at any refresh rate.
+     */
+    public static final int BACKEND_FIXED_STEP = 2;
+    /**
+     * Computes the rect ahead of time on a background thread, using a {@link TrajectoryStream},
+     * so that the main thread only reads a frame from a buffer. Sampled every
+     * {@link #FIXED_STEP_MS}. Like baked trajectories, the target cannot change while running.
+     */
+    public static final int BACKEND_PRECOMPUTED = 3;
+
+    // Divides the frame interval of 60, 120 and 240Hz displays, other rates are interpolated.
+    public static final float FIXED_STEP_MS = 1000f / 240;
+
+    // Flags for each of the animated dimensions, used to coalesce updates into one per frame.
+    private static final int DIM_CENTER_X = 1 << 0;
+    private static final int DIM_Y = 1 << 1;
+    private static final int DIM_SCALE = 1 << 2;
+    private static final int DIM_ALL = DIM_CENTER_X | DIM_Y | DIM_SCALE;
+
     private static final FloatPropertyCompat<RectFSpringAnim> RECT_CENTER_X =
             new FloatPropertyCompat<RectFSpringAnim>("rectCenterXSpring") {
                 @Override
@@ -44,8 +73,10 @@ public class RectFSpringAnim {
 
                 @Override
                 public void setValue(RectFSpringAnim anim, float currentCenterX) {
+                    anim.onPropertyChanging();
+                    boolean changed = anim.mCurrentCenterX != currentCenterX;
                     anim.mCurrentCenterX = currentCenterX;
-                    anim.onUpdate();
+                    anim.onPropertyChanged(DIM_CENTER_X, changed);
                 }
             };
 
@@ -58,8 +89,10 @@ public class RectFSpringAnim {
 
                 @Override
                 public void setValue(RectFSpringAnim anim, float y) {
+                    anim.onPropertyChanging();
+                    boolean changed = anim.mCurrentY != y;
                     anim.mCurrentY = y;
-                    anim.onUpdate();
+                    anim.onPropertyChanged(DIM_Y, changed);
                 }
             };
 
@@ -72,22 +105,50 @@ public class RectFSpringAnim {
 
                 @Override
                 public void setValue(RectFSpringAnim object, float value) {
+                    object.onPropertyChanging();
+                    boolean changed = object.mCurrentScaleProgress != value;
                     object.mCurrentScaleProgress = value;
-                    object.onUpdate();
+                    object.onPropertyChanged(DIM_SCALE, changed);
                 }
             };
 
-    private final RectF mStartRect;
-    private final RectF mTargetRect;
+    // Trace sections and counters, see TransitionTrace. Progress is in thousandths.
+    private static final String TRACE_STEP = "RectFSpringAnim#step";
+    private static final String TRACE_UPDATE = "RectFSpringAnim#onUpdate";
+    private static final String TRACE_DISPATCH = "RectFSpringAnim#dispatch";
+    private static final String COUNTER_LEFT = "RectFSpringAnim.left";
+    private static final String COUNTER_TOP = "RectFSpringAnim.top";
+    private static final String COUNTER_RIGHT = "RectFSpringAnim.right";
+    private static final String COUNTER_BOTTOM = "RectFSpringAnim.bottom";
+    private static final String COUNTER_PROGRESS = "RectFSpringAnim.progress";
+
+    // Instances released through #recycle, only accessed from the main thread.
+    private static final Pools.SimplePool<RectFSpringAnim> sPool = new Pools.SimplePool<>(4);
+
+    private RectF mStartRect;
+    private RectF mTargetRect;
     private final RectF mCurrentRect = new RectF();
-    private final List<OnUpdateListener> mOnUpdateListeners = new ArrayList<>();
-    private final List<Animator.AnimatorListener> mAnimatorListeners = new ArrayList<>();
+    // Dispatched from snapshots, so that listeners can be added or removed during dispatch.
+    private final SnapshotList<OnUpdateListener> mOnUpdateListeners = new SnapshotList<>();
+    private final SnapshotList<OnUpdateValuesListener> mOnUpdateValuesListeners =
+            new SnapshotList<>();
+    private final SnapshotList<Animator.AnimatorListener> mAnimatorListeners =
+            new SnapshotList<>();
+
+    // Sizes interpolated by the scale progress. The start size is rebased when the target size
+    // changes mid-flight, see #retargetSize.
+    private float mStartWidth;
+    private float mStartHeight;
+    private float mTargetWidth;
+    private float mTargetHeight;
 
     private float mCurrentCenterX;
     private float mCurrentY;
     // If true, tracking the bottom of the rects, else tracking the top.
     private boolean mTrackingBottomY;
     private float mCurrentScaleProgress;
+    // Velocity of the scale spring on its last frame, to keep the size velocity when it restarts.
+    private float mScaleProgressVelocity;
     private FlingSpringAnim mRectXAnim;
     private FlingSpringAnim mRectYAnim;
     private SpringAnimation mRectScaleAnim;
@@ -95,61 +156,497 @@ public class RectFSpringAnim {
     private boolean mRectXAnimEnded;
     private boolean mRectYAnimEnded;
     private boolean mRectScaleAnimEnded;
+    // Set while canceling the scale spring to restart it, to ignore its end.
+    private boolean mRestartingScale;
+
+    // If true, property changes are only written and listeners are notified once per frame, after
+    // every running dimension has stepped. Otherwise, listeners are notified on every change.
+    private boolean mCoalesceUpdates = true;
+    // Dimensions whose animations have not ended yet.
+    private int mRunningDims;
+    // Dimensions that have changed during mPendingFrameTime but not been dispatched yet.
+    private int mSteppedDims;
+    private long mPendingFrameTime = -1;
+    private long mDispatchedFrameTime = -1;
 
+    private int mBackend = BACKEND_DYNAMIC_ANIMATION;
+    private RectFSpringSolver mSolver;
+    private RectFSpringBatch mStepper;
+    private TrajectoryStream mStream;
+    private Executor mPrecomputeExecutor;
+    private static Executor sDefaultPrecomputeExecutor;
+    // Non-null while playing back a trajectory returned by #bake.
+    private BakedTrajectory mPlayback;
+    private final float[] mPlaybackFrame = new float[BakedTrajectory.STRIDE];
+    // Drives every backend but the androidx animations, and baked playback, unless a scheduler
+    // was set through #setFrameScheduler.
+    private final Choreographer.FrameCallback mFrameCallback = this::onFrame;
+    @Nullable
+    private TransitionFrameScheduler mFrameScheduler;
+    // Whether the frame stepped by the scheduler was the last one, until it is committed.
+    private boolean mStepAtRest;
+    private final TransitionFrameScheduler.FrameClient mFrameClient =
+            new TransitionFrameScheduler.FrameClient() {
+                @Override
+                public boolean onStep(long frameTimeNanos) {
+                    if (!mAnimsStarted) {
+                        return false;
+                    }
+                    mStepAtRest = stepFrame(frameTimeNanos);
+                    return !mStepAtRest;
+                }
+
+                @Override
+                public void onCommit(long frameTimeNanos) {
+                    if (mAnimsStarted) {
+                        commitFrame(frameTimeNanos, mStepAtRest);
+                    }
+                }
+            };
+    private long mFrameStartTimeNanos;
+    private float mFrameTimeMs;
+
+    // Only tell caller that we ended if both x and y animations have ended.
+    private final OnAnimationEndListener mOnXEndListener =
+            (animation, canceled, centerX, velocityX) -> {
+                mRectXAnimEnded = true;
+                onDimensionEnded(DIM_CENTER_X);
+                maybeOnEnd();
+            };
+    private final OnAnimationEndListener mOnYEndListener =
+            (animation, canceled, centerY, velocityY) -> {
+                mRectYAnimEnded = true;
+                onDimensionEnded(DIM_Y);
+                maybeOnEnd();
+            };
+    private final OnAnimationEndListener mOnScaleEndListener =
+            (animation, canceled, value, velocity) -> {
+                if (mRestartingScale) {
+                    return;
+                }
+                mScaleProgressVelocity = 0;
+                mRectScaleAnimEnded = true;
+                onDimensionEnded(DIM_SCALE);
+                maybeOnEnd();
+            };
+
+    // Set while notifying listeners of the end, to defer a #recycle from one of them.
+    private boolean mDispatchingEnd;
+    // Whether to #recycle once the animation ends and listeners have been notified.
+    private boolean mRecycleAfterEnd;
+    // Whether this animation is in the pool, until returned by #obtain.
+    private boolean mRecycled;
+
+    private DeviceProfile mProfile;
     private float mMinVisChange;
     private float mYOvershoot;
 
+    @Nullable
+    private TransitionMetrics mMetrics;
+    // Vsync time of the frame being dispatched, or -1 if not dispatching a frame.
+    private long mDispatchFrameTimeNanos = -1;
+    // With metrics, when this animation started stepping the frame at mStepFrameTimeNanos, or
+    // -1 once that frame was dispatched. Counted in the cost of its first update.
+    private long mStepStartNanos;
+    private long mStepFrameTimeNanos = -1;
+    // With the androidx animations and metrics, records the vsync time of every frame, which
+    // the animations don't pass to their setters. Posted before they start, so that it runs
+    // before they step in each frame.
+    private final Choreographer.FrameCallback mVsyncCallback = this::onVsync;
+    private long mVsyncTimeNanos = -1;
+    private boolean mCanceled;
+
+    @Nullable
+    private GestureRecording mRecording;
+    // With the androidx animations, animation time of the first frame of the recorded run, or -1
+    // until then. The other backends already count time from their first frame.
+    private long mRecordingStartTimeMs = -1;
+
+    private final VelocityEstimator mVelocityEstimator = new VelocityEstimator();
+    private final PointF mTmpVelocity = new PointF();
+
     public RectFSpringAnim(RectF startRect, RectF targetRect, Resources resources) {
+        this(startRect, targetRect, DeviceProfile.get(resources));
+    }
+
+    public RectFSpringAnim(RectF startRect, RectF targetRect, DeviceProfile profile) {
+        setProfile(profile);
+        reset(startRect, targetRect);
+    }
+
+    /**
+     * Returns a recycled instance if available, or a new one otherwise. Call {@link #recycle()}
+     * once the animation has ended so that repeated transitions reuse the same instances. Must be
+     * called from the main thread.
+     */
+    public static RectFSpringAnim obtain(RectF startRect, RectF targetRect, Resources resources) {
+        return obtain(startRect, targetRect, DeviceProfile.get(resources));
+    }
+
+    /**
+     * Same as {@link #obtain(RectF, RectF, Resources)}, with the profile of the current
+     * configuration.
+     */
+    public static RectFSpringAnim obtain(RectF startRect, RectF targetRect,
+            DeviceProfile profile) {
+        RectFSpringAnim anim = sPool.acquire();
+        if (anim == null) {
+            return new RectFSpringAnim(startRect, targetRect, profile);
+        }
+        anim.mRecycled = false;
+        anim.setProfile(profile);
+        anim.reset(startRect, targetRect);
+        return anim;
+    }
+
+    private void setProfile(DeviceProfile profile) {
+        if (profile == mProfile) {
+            return;
+        }
+        mProfile = profile;
+        mMinVisChange = profile.flingMinVisChangePx;
+        mYOvershoot = profile.yOvershootPx;
+        // Built with the previous dimens, recreated on the next start.
+        mSolver = null;
+        mStepper = null;
+        mStream = null;
+    }
+
+    /**
+     * Prepares this animation to animate from {@param startRect} to {@param targetRect}, reusing
+     * the underlying animations. Listeners are kept. Must not be called while running.
+     */
+    public void reset(RectF startRect, RectF targetRect) {
+        if (mAnimsStarted) {
+            throw new IllegalStateException("Cannot reset a running animation");
+        }
         mStartRect = startRect;
         mTargetRect = targetRect;
+        mStartWidth = startRect.width();
+        mStartHeight = startRect.height();
+        mTargetWidth = targetRect.width();
+        mTargetHeight = targetRect.height();
         mCurrentCenterX = mStartRect.centerX();
 
         mTrackingBottomY = startRect.bottom < targetRect.bottom;
         mCurrentY = mTrackingBottomY ? mStartRect.bottom : mStartRect.top;
+        mCurrentScaleProgress = 0;
+    }
+
+    /**
+     * Recycles this animation as soon as it ends, after notifying the listeners.
+     */
+    public void recycleOnEnd() {
+        mRecycleAfterEnd = true;
+    }
 
-        mMinVisChange = resources.getDimensionPixelSize(R.dimen.swipe_up_fling_min_visible_change);
-        mYOvershoot = resources.getDimensionPixelSize(R.dimen.swipe_up_y_overshoot);
+    /**
+     * Releases this animation to be returned by a later {@link #obtain}. It must not be used
+     * afterwards. Can be called from {@link Animator.AnimatorListener#onAnimationEnd}. Does
+     * nothing if already recycled, e.g. by {@link #recycleOnEnd()}.
+     */
+    public void recycle() {
+        if (mRecycled) {
+            return;
+        }
+        if (mDispatchingEnd) {
+            mRecycleAfterEnd = true;
+            return;
+        }
+        if (mAnimsStarted) {
+            throw new IllegalStateException("Cannot recycle a running animation");
+        }
+        mRecycleAfterEnd = false;
+        mOnUpdateListeners.clear();
+        mOnUpdateValuesListeners.clear();
+        mAnimatorListeners.clear();
+        mStartRect = null;
+        mTargetRect = null;
+        mBackend = BACKEND_DYNAMIC_ANIMATION;
+        mCoalesceUpdates = true;
+        mMetrics = null;
+        mRecording = null;
+        mFrameScheduler = null;
+        mVelocityEstimator.clear();
+        mRecycled = true;
+        sPool.release(this);
     }
 
+    /**
+     * Moves the animation towards the current target rect, keeping the position, velocity and
+     * size of the rect continuous. All of the position and size of the target can change. Not
+     * supported while playing back a baked or precomputed trajectory, which always ends on the
+     * target it was computed with.
+     */
     public void onTargetPositionChanged() {
-        if (mRectXAnim != null && mRectXAnim.getTargetPosition() != mTargetRect.centerX()) {
+        if (mPlayback != null || (mBackend == BACKEND_PRECOMPUTED && mAnimsStarted)) {
+            return;
+        }
+        if (mRecording != null && mAnimsStarted) {
+            mRecording.onRetarget(getRecordingTimeMs(), mTargetRect.left, mTargetRect.top,
+                    mTargetRect.right, mTargetRect.bottom);
+        }
+        if (mBackend == BACKEND_ANALYTIC) {
+            if (mAnimsStarted) {
+                mSolver.onTargetPositionChanged(mFrameTimeMs, mTargetRect.left, mTargetRect.top,
+                        mTargetRect.right, mTargetRect.bottom);
+            }
+            // The solver rebases its own sizes the same way, keep ours in sync for onUpdate.
+            retargetSize();
+            return;
+        }
+        if (mBackend == BACKEND_FIXED_STEP) {
+            if (mAnimsStarted) {
+                mStepper.setTarget(0, mTargetRect.left, mTargetRect.top, mTargetRect.right,
+                        mTargetRect.bottom);
+            }
+            retargetSize();
+            return;
+        }
+
+        retargetSize();
+        if (!mAnimsStarted) {
+            // The next start reads the target rect.
+            return;
+        }
+
+        if (mRectXAnim.getTargetPosition() != mTargetRect.centerX()) {
             mRectXAnim.updatePosition(mCurrentCenterX, mTargetRect.centerX());
+            if (mRectXAnimEnded) {
+                // The spring restarts towards the new target.
+                mRectXAnimEnded = false;
+                mRunningDims |= DIM_CENTER_X;
+            }
         }
 
-        if (mRectYAnim != null) {
-            if (mTrackingBottomY && mRectYAnim.getTargetPosition() != mTargetRect.bottom) {
-                mRectYAnim.updatePosition(mCurrentY, mTargetRect.bottom);
-            } else if (!mTrackingBottomY && mRectYAnim.getTargetPosition() != mTargetRect.top) {
-                mRectYAnim.updatePosition(mCurrentY, mTargetRect.top);
+        float targetY = mTrackingBottomY ? mTargetRect.bottom : mTargetRect.top;
+        if (mRectYAnim.getTargetPosition() != targetY) {
+            mRectYAnim.updatePosition(mCurrentY, targetY);
+            if (mRectYAnimEnded) {
+                mRectYAnimEnded = false;
+                mRunningDims |= DIM_Y;
             }
         }
     }
 
+    /**
+     * Returns the time since the first frame of the running animation, as recorded for a change
+     * of the target.
+     */
+    private float getRecordingTimeMs() {
+        if (mBackend != BACKEND_DYNAMIC_ANIMATION) {
+            // The time of the last frame, at which the other backends apply the change.
+            return mFrameTimeMs;
+        }
+        return mRecordingStartTimeMs < 0 ? 0
+                : AnimationUtils.currentAnimationTimeMillis() - mRecordingStartTimeMs;
+    }
+
+    /**
+     * Applies a change of the target size to the scale progress without changing the current
+     * size, see {@link RectFSpringSolver#rebaseStartSize}.
+     */
+    private void retargetSize() {
+        float targetWidth = mTargetRect.width();
+        float targetHeight = mTargetRect.height();
+        if (targetWidth == mTargetWidth && targetHeight == mTargetHeight) {
+            return;
+        }
+        float progress = mCurrentScaleProgress;
+        float startWidth =
+                RectFSpringSolver.rebaseStartSize(mStartWidth, mTargetWidth, targetWidth, progress);
+        float startHeight = RectFSpringSolver.rebaseStartSize(mStartHeight, mTargetHeight,
+                targetHeight, progress);
+        if (Float.isNaN(startWidth)) {
+            startWidth = mapRange(progress, mStartWidth, mTargetWidth);
+            startHeight = mapRange(progress, mStartHeight, mTargetHeight);
+            restartScaleProgress(RectFSpringSolver.restartProgressVelocity(
+                    mScaleProgressVelocity, mStartHeight, mTargetHeight, startHeight,
+                    targetHeight));
+        }
+        mStartWidth = startWidth;
+        mStartHeight = startHeight;
+        mTargetWidth = targetWidth;
+        mTargetHeight = targetHeight;
+    }
+
+    /**
+     * Restarts the scale progress from 0 with {@param velocity}, see
+     * {@link RectFSpringSolver#restartProgressVelocity}.
+     */
+    private void restartScaleProgress(float velocity) {
+        mCurrentScaleProgress = 0;
+        if (!mAnimsStarted || mBackend != BACKEND_DYNAMIC_ANIMATION) {
+            return;
+        }
+        mRestartingScale = true;
+        mRectScaleAnim.cancel();
+        mRestartingScale = false;
+        mScaleProgressVelocity = velocity;
+        mRectScaleAnim.setStartValue(0).setStartVelocity(velocity).start();
+        if (mRectScaleAnimEnded) {
+            mRectScaleAnimEnded = false;
+            mRunningDims |= DIM_SCALE;
+        }
+    }
+
+    /**
+     * Adds a position sample of the gesture leading to this animation, e.g. from every touch
+     * event, to estimate the velocity used by {@link #start()}.
+     *
+     * @param eventTimeMs The time of the sample, as returned by MotionEvent#getEventTime().
+     */
+    public void addVelocitySample(long eventTimeMs, float x, float y) {
+        mVelocityEstimator.addSample(eventTimeMs, x, y);
+    }
+
     public void addOnUpdateListener(OnUpdateListener onUpdateListener) {
         mOnUpdateListeners.add(onUpdateListener);
     }
 
+    public void removeOnUpdateListener(OnUpdateListener onUpdateListener) {
+        mOnUpdateListeners.remove(onUpdateListener);
+    }
+
+    /**
+     * Adds a listener notified of every frame with the bounds of the rect as values, rather than
+     * through the shared {@link RectF} of {@link OnUpdateListener}. Prefer it for consumers that
+     * apply the bounds right away, such as window transforms.
+     */
+    public void addOnUpdateValuesListener(OnUpdateValuesListener listener) {
+        mOnUpdateValuesListeners.add(listener);
+    }
+
+    public void removeOnUpdateValuesListener(OnUpdateValuesListener listener) {
+        mOnUpdateValuesListeners.remove(listener);
+    }
+
     public void addAnimatorListener(Animator.AnimatorListener animatorListener) {
         mAnimatorListeners.add(animatorListener);
     }
 
+    public void removeAnimatorListener(Animator.AnimatorListener animatorListener) {
+        mAnimatorListeners.remove(animatorListener);
+    }
+
+    /**
+     * Sets the metrics notified of the start, frames and end of this animation, or null to stop
+     * recording them. Nothing is measured while no metrics are set.
+     */
+    public void setMetrics(@Nullable TransitionMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * Sets the recording that captures the inputs of the next runs started with
+     * {@link #start(PointF)}: rects, velocity, dimens and target changes. Each start overwrites
+     * it, so it should be saved once the animation ends. Pass null to stop recording.
+     */
+    public void setGestureRecording(@Nullable GestureRecording recording) {
+        mRecording = recording;
+    }
+
+    /**
+     * Sets how the rect is animated, one of {@link #BACKEND_DYNAMIC_ANIMATION} (default),
+     * {@link #BACKEND_ANALYTIC}, {@link #BACKEND_FIXED_STEP} or {@link #BACKEND_PRECOMPUTED}.
+     * Must be called before {@link #start(PointF)}. Baked trajectories are always computed with
+     * the analytic solver.
+     */
+    public void setBackend(int backend) {
+        if (mAnimsStarted) {
+            throw new IllegalStateException("Cannot change the backend of a running animation");
+        }
+        mBackend = backend;
+    }
+
+    /**
+     * Sets the scheduler stepping this animation along with the other animations of the same
+     * transition, or null to use a frame callback of its own (default). Must be called before
+     * {@link #start(PointF)}. Applies to every backend but {@link #BACKEND_DYNAMIC_ANIMATION},
+     * whose springs are always stepped by the androidx animation handler.
+     */
+    public void setFrameScheduler(@Nullable TransitionFrameScheduler scheduler) {
+        if (mAnimsStarted) {
+            throw new IllegalStateException("Cannot change the scheduler of a running animation");
+        }
+        mFrameScheduler = scheduler;
+    }
+
+    /**
+     * Sets the executor computing the trajectory of {@link #BACKEND_PRECOMPUTED}, or null to use
+     * a shared background thread (default).
+     */
+    public void setPrecomputeExecutor(@Nullable Executor executor) {
+        mPrecomputeExecutor = executor;
+    }
+
+    /**
+     * Sets whether updates from the x, y and scale springs should be coalesced, such that
+     * listeners are notified once per frame with a consistent rect rather than once per spring.
+     * Enabled by default.
+     */
+    public void setCoalesceUpdates(boolean coalesceUpdates) {
+        mCoalesceUpdates = coalesceUpdates;
+        if (!coalesceUpdates) {
+            flushPendingUpdate();
+        }
+    }
+
+    /**
+     * Starts the animation with the velocity estimated from the samples added through
+     * {@link #addVelocitySample}, which are then cleared.
+     */
+    public void start() {
+        mVelocityEstimator.computeVelocity(AnimationUtils.currentAnimationTimeMillis());
+        mTmpVelocity.set(mVelocityEstimator.getVelocityX(), mVelocityEstimator.getVelocityY());
+        mVelocityEstimator.clear();
+        start(mTmpVelocity);
+    }
+
     public void start(PointF velocityPxPerMs) {
-        // Only tell caller that we ended if both x and y animations have ended.
-        OnAnimationEndListener onXEndListener = ((animation, canceled, centerX, velocityX) -> {
-            mRectXAnimEnded = true;
-            maybeOnEnd();
-        });
-        OnAnimationEndListener onYEndListener = ((animation, canceled, centerY, velocityY) -> {
-            mRectYAnimEnded = true;
-            maybeOnEnd();
-        });
+        if (mRecording != null) {
+            mRecording.onStart(mStartRect.left, mStartRect.top, mStartRect.right,
+                    mStartRect.bottom, mTargetRect.left, mTargetRect.top, mTargetRect.right,
+                    mTargetRect.bottom, velocityPxPerMs.x, velocityPxPerMs.y, mMinVisChange,
+                    mYOvershoot, mBackend);
+            // Set on the first frame, see #onPropertyChanging.
+            mRecordingStartTimeMs = -1;
+        }
+        if (mBackend == BACKEND_ANALYTIC) {
+            startSolver(velocityPxPerMs);
+            startFrameCallback();
+            return;
+        }
+        if (mBackend == BACKEND_FIXED_STEP) {
+            startStepper(velocityPxPerMs);
+            startFrameCallback();
+            return;
+        }
+        if (mBackend == BACKEND_PRECOMPUTED) {
+            startStream(velocityPxPerMs);
+            startFrameCallback();
+            return;
+        }
+
+        if (mRectXAnim == null) {
+            mRectXAnim = new FlingSpringAnim(this, RECT_CENTER_X, mOnXEndListener);
+            mRectYAnim = new FlingSpringAnim(this, RECT_Y, mOnYEndListener);
+            mRectScaleAnim = new SpringAnimation(this, RECT_SCALE_PROGRESS)
+                    .setSpring(new SpringForce(1f)
+                    .setDampingRatio(SpringForce.DAMPING_RATIO_LOW_BOUNCY)
+                    .setStiffness(SpringForce.STIFFNESS_LOW))
+                    .setMaxValue(1f)
+                    .addUpdateListener((animation, value, velocity) ->
+                            mScaleProgressVelocity = velocity)
+                    .addEndListener(mOnScaleEndListener);
+        }
 
         float startX = mCurrentCenterX;
         float endX = mTargetRect.centerX();
         float minXValue = Math.min(startX, endX);
         float maxXValue = Math.max(startX, endX);
-        mRectXAnim = new FlingSpringAnim(this, RECT_CENTER_X, startX, endX,
-                velocityPxPerMs.x * 1000, mMinVisChange, minXValue, maxXValue, 1f, onXEndListener);
+        mRectXAnim.reset(startX, endX, velocityPxPerMs.x * 1000, mMinVisChange, minXValue,
+                maxXValue, 1f);
 
         float startVelocityY = velocityPxPerMs.y * 1000;
         // Scale the Y velocity based on the initial velocity to tune the curves.
@@ -158,32 +655,268 @@ public class RectFSpringAnim {
         float endY = mTrackingBottomY ? mTargetRect.bottom : mTargetRect.top;
         float minYValue = Math.min(startY, endY - mYOvershoot);
         float maxYValue = Math.max(startY, endY);
-        mRectYAnim = new FlingSpringAnim(this, RECT_Y, startY, endY, startVelocityY,
-                mMinVisChange, minYValue, maxYValue, springVelocityFactor, onYEndListener);
-
-        float minVisibleChange = 1f / mStartRect.height();
-        mRectScaleAnim = new SpringAnimation(this, RECT_SCALE_PROGRESS)
-                .setSpring(new SpringForce(1f)
-                .setDampingRatio(SpringForce.DAMPING_RATIO_LOW_BOUNCY)
-                .setStiffness(SpringForce.STIFFNESS_LOW))
-                .setStartVelocity(velocityPxPerMs.y * minVisibleChange)
-                .setMaxValue(1f)
-                .setMinimumVisibleChange(minVisibleChange)
-                .addEndListener((animation, canceled, value, velocity) -> {
-                    mRectScaleAnimEnded = true;
-                    maybeOnEnd();
-                });
+        mRectYAnim.reset(startY, endY, startVelocityY, mMinVisChange, minYValue, maxYValue,
+                springVelocityFactor);
 
+        float minVisibleChange = 1f / mStartHeight;
+        mScaleProgressVelocity = velocityPxPerMs.y * minVisibleChange;
+        mRectScaleAnim
+                .setStartVelocity(mScaleProgressVelocity)
+                .setMinimumVisibleChange(minVisibleChange);
+
+        mRectXAnimEnded = mRectYAnimEnded = mRectScaleAnimEnded = false;
+        mRunningDims = DIM_ALL;
+        mSteppedDims = 0;
+        mPendingFrameTime = mDispatchedFrameTime = -1;
+        onStart();
+        mVsyncTimeNanos = -1;
+        if (mMetrics != null) {
+            Choreographer choreographer = Choreographer.getInstance();
+            choreographer.removeFrameCallback(mVsyncCallback);
+            choreographer.postFrameCallback(mVsyncCallback);
+        }
         mRectXAnim.start();
         mRectYAnim.start();
         mRectScaleAnim.start();
         mAnimsStarted = true;
-        for (Animator.AnimatorListener animatorListener : mAnimatorListeners) {
-            animatorListener.onAnimationStart(null);
+        Object[] animatorListeners = mAnimatorListeners.getSnapshot();
+        for (int i = 0; i < animatorListeners.length; i++) {
+            ((Animator.AnimatorListener) animatorListeners[i]).onAnimationStart(null);
         }
     }
 
+    /**
+     * Precomputes the whole trajectory from the start rect to the target rect for the given
+     * velocity, sampled at {@param refreshRate} frames per second. The result can be played back
+     * with {@link #play(BakedTrajectory)} without running any physics per frame.
+     */
+    public BakedTrajectory bake(PointF velocityPxPerMs, float refreshRate) {
+        if (mAnimsStarted) {
+            throw new IllegalStateException("Cannot bake while the animation is running");
+        }
+        startSolver(velocityPxPerMs);
+        return BakedTrajectory.bake(mSolver, 1000f / refreshRate);
+    }
+
+    /**
+     * Starts playing back a trajectory returned by {@link #bake(PointF, float)}.
+     */
+    public void play(BakedTrajectory trajectory) {
+        if (mAnimsStarted) {
+            throw new IllegalStateException("Animation is already running");
+        }
+        mPlayback = trajectory;
+        startFrameCallback();
+    }
+
+    private void startSolver(PointF velocityPxPerMs) {
+        if (mSolver == null) {
+            mSolver = new RectFSpringSolver(mMinVisChange, mYOvershoot);
+        }
+        mSolver.setRects(mStartRect.left, mStartRect.top, mStartRect.right, mStartRect.bottom,
+                mTargetRect.left, mTargetRect.top, mTargetRect.right, mTargetRect.bottom);
+        mSolver.start(velocityPxPerMs.x, velocityPxPerMs.y);
+    }
+
+    private void startStepper(PointF velocityPxPerMs) {
+        if (mStepper == null) {
+            mStepper = new RectFSpringBatch(1, mMinVisChange, mYOvershoot);
+            mStepper.setFixedTimestep(FIXED_STEP_MS);
+        }
+        mStepper.clear();
+        mStepper.add(mStartRect.left, mStartRect.top, mStartRect.right, mStartRect.bottom,
+                mTargetRect.left, mTargetRect.top, mTargetRect.right, mTargetRect.bottom,
+                velocityPxPerMs.x, velocityPxPerMs.y);
+    }
+
+    private void startStream(PointF velocityPxPerMs) {
+        if (mStream == null || !mStream.isIdle()) {
+            // The producer of a canceled stream may still be running, leave it to finish.
+            mStream = new TrajectoryStream(mMinVisChange, mYOvershoot);
+        }
+        Executor executor = mPrecomputeExecutor;
+        if (executor == null) {
+            if (sDefaultPrecomputeExecutor == null) {
+                sDefaultPrecomputeExecutor = Executors.newSingleThreadExecutor(
+                        runnable -> new Thread(runnable, "RectFSpringAnim-precompute"));
+            }
+            executor = sDefaultPrecomputeExecutor;
+        }
+        mStream.start(executor, FIXED_STEP_MS, mStartRect.left, mStartRect.top,
+                mStartRect.right, mStartRect.bottom, mTargetRect.left, mTargetRect.top,
+                mTargetRect.right, mTargetRect.bottom, velocityPxPerMs.x, velocityPxPerMs.y);
+    }
+
+    private void onStart() {
+        mCanceled = false;
+        if (mMetrics != null) {
+            mMetrics.onTransitionStart(System.nanoTime());
+        }
+    }
+
+    private void startFrameCallback() {
+        mRectXAnimEnded = mRectYAnimEnded = mRectScaleAnimEnded = false;
+        mFrameStartTimeNanos = -1;
+        mFrameTimeMs = 0;
+        onStart();
+        mAnimsStarted = true;
+        if (mFrameScheduler != null) {
+            mFrameScheduler.add(mFrameClient);
+        } else {
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+        Object[] animatorListeners = mAnimatorListeners.getSnapshot();
+        for (int i = 0; i < animatorListeners.length; i++) {
+            ((Animator.AnimatorListener) animatorListeners[i]).onAnimationStart(null);
+        }
+    }
+
+    private void onVsync(long frameTimeNanos) {
+        mVsyncTimeNanos = frameTimeNanos;
+        if (mAnimsStarted && mMetrics != null) {
+            // Runs right before the androidx animations step, see mVsyncCallback.
+            onStepStart(frameTimeNanos);
+            Choreographer.getInstance().postFrameCallback(mVsyncCallback);
+        }
+    }
+
+    private void onStepStart(long frameTimeNanos) {
+        mStepStartNanos = System.nanoTime();
+        mStepFrameTimeNanos = frameTimeNanos;
+    }
+
+    /**
+     * Returns the vsync time of the frame at {@param frameTimeMs} of the animation clock, which
+     * is that vsync time in milliseconds. Falls back to the animation clock if the vsync callback
+     * has not run for this frame, e.g. when other androidx animations were already running at
+     * the start and so step before it.
+     */
+    private long getVsyncTimeNanos(long frameTimeMs) {
+        if (mVsyncTimeNanos >= 0 && mVsyncTimeNanos / 1_000_000 == frameTimeMs) {
+            return mVsyncTimeNanos;
+        }
+        // The animation clock and System#nanoTime are both based on the monotonic clock.
+        return frameTimeMs * 1_000_000;
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        if (!mAnimsStarted) {
+            return;
+        }
+        boolean atRest = stepFrame(frameTimeNanos);
+        commitFrame(frameTimeNanos, atRest);
+        if (!atRest && mAnimsStarted) {
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * Advances the animation to {@param frameTimeNanos} without notifying the listeners.
+     *
+     * @return Whether the animation is at rest.
+     */
+    private boolean stepFrame(long frameTimeNanos) {
+        if (mMetrics != null) {
+            onStepStart(frameTimeNanos);
+        }
+        boolean trace = TransitionTrace.isEnabled();
+        if (trace) {
+            TransitionTrace.beginSection(TRACE_STEP);
+        }
+        if (mFrameStartTimeNanos < 0) {
+            mFrameStartTimeNanos = frameTimeNanos;
+        }
+        float lastFrameTimeMs = mFrameTimeMs;
+        mFrameTimeMs = (frameTimeNanos - mFrameStartTimeNanos) / 1_000_000f;
+        boolean atRest;
+        if (mPlayback != null) {
+            atRest = mPlayback.getFrame(mFrameTimeMs, mPlaybackFrame);
+            applyFrame(mPlaybackFrame);
+        } else if (mBackend == BACKEND_FIXED_STEP) {
+            atRest = mStepper.step(mFrameTimeMs - lastFrameTimeMs);
+            applyFrame(mStepper.getRects());
+        } else if (mBackend == BACKEND_PRECOMPUTED) {
+            atRest = mStream.getFrame(mFrameTimeMs, mPlaybackFrame);
+            applyFrame(mPlaybackFrame);
+        } else {
+            atRest = mSolver.compute(mFrameTimeMs);
+            if (atRest) {
+                mSolver.computeEnd();
+            }
+            applySolverState();
+        }
+        if (trace) {
+            TransitionTrace.endSection();
+        }
+        return atRest;
+    }
+
+    /**
+     * Notifies the listeners of the frame stepped at {@param frameTimeNanos}, and ends the
+     * animation if it is at rest.
+     */
+    private void commitFrame(long frameTimeNanos, boolean atRest) {
+        mDispatchFrameTimeNanos = frameTimeNanos;
+        dispatchUpdate();
+        mDispatchFrameTimeNanos = -1;
+        if (atRest) {
+            onFrameCallbackEnd();
+        }
+    }
+
+    private void onFrameCallbackEnd() {
+        if (mFrameScheduler != null) {
+            mFrameScheduler.remove(mFrameClient);
+        } else {
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+        mPlayback = null;
+        mRectXAnimEnded = mRectYAnimEnded = mRectScaleAnimEnded = true;
+        maybeOnEnd();
+    }
+
+    private void applySolverState() {
+        mSolver.getFrame(mPlaybackFrame, 0);
+        applyFrame(mPlaybackFrame);
+    }
+
+    /**
+     * Sets the current rect to a frame of the solver, the baked playback, the stepper or the
+     * stream: left, top, right, bottom, progress. Listeners are notified by the caller.
+     */
+    private void applyFrame(float[] frame) {
+        mCurrentRect.set(frame[0], frame[1], frame[2], frame[3]);
+        mCurrentScaleProgress = frame[4];
+        mCurrentCenterX = mCurrentRect.centerX();
+        mCurrentY = mTrackingBottomY ? mCurrentRect.bottom : mCurrentRect.top;
+    }
+
     public void end() {
+        if (mPlayback != null || mBackend != BACKEND_DYNAMIC_ANIMATION) {
+            if (mAnimsStarted) {
+                if (mPlayback != null) {
+                    mPlayback.getFrame(mPlayback.getDurationMs(), mPlaybackFrame);
+                    applyFrame(mPlaybackFrame);
+                } else if (mBackend == BACKEND_ANALYTIC) {
+                    mSolver.computeEnd();
+                    applySolverState();
+                } else {
+                    if (mBackend == BACKEND_PRECOMPUTED) {
+                        mStream.cancel();
+                    }
+                    // Like the solver, the stepper and the stream end exactly on the target.
+                    mPlaybackFrame[0] = mTargetRect.left;
+                    mPlaybackFrame[1] = mTargetRect.top;
+                    mPlaybackFrame[2] = mTargetRect.right;
+                    mPlaybackFrame[3] = mTargetRect.bottom;
+                    mPlaybackFrame[4] = 1;
+                    applyFrame(mPlaybackFrame);
+                }
+                dispatchUpdate();
+                onFrameCallbackEnd();
+            }
+            return;
+        }
         if (mAnimsStarted) {
             mRectXAnim.end();
             mRectYAnim.end();
@@ -197,12 +930,77 @@ public class RectFSpringAnim {
         return min + (value * (max - min));
     }
 
+    /**
+     * Called before one of the animated dimensions is written. Notes the time of the first frame
+     * for the recording, if any. When coalescing and the previous
+     * frame is still pending because some dimension did not step during it, the previous frame
+     * is dispatched first, so that it doesn't include a value of the new frame.
+     */
+    private void onPropertyChanging() {
+        if (mRecording != null && mRecordingStartTimeMs < 0 && mAnimsStarted) {
+            // The androidx animations write their start value on their first frame.
+            mRecordingStartTimeMs = AnimationUtils.currentAnimationTimeMillis();
+        }
+        if (mCoalesceUpdates && mAnimsStarted && mSteppedDims != 0
+                && AnimationUtils.currentAnimationTimeMillis() != mPendingFrameTime) {
+            flushPendingUpdate();
+        }
+    }
+
+    /**
+     * Called whenever one of the animated dimensions is written. When coalescing, the update is
+     * deferred until every running dimension has stepped for the current frame, so that listeners
+     * only ever see a fully updated rect.
+     */
+    private void onPropertyChanged(int dim, boolean changed) {
+        if (!mCoalesceUpdates || !mAnimsStarted) {
+            if (mAnimsStarted) {
+                mDispatchFrameTimeNanos =
+                        getVsyncTimeNanos(AnimationUtils.currentAnimationTimeMillis());
+            }
+            onUpdate();
+            mDispatchFrameTimeNanos = -1;
+            return;
+        }
+        // All animations of a frame are stepped while the animation clock is locked to the
+        // frame time, so it identifies the frame that a change belongs to.
+        long frameTime = AnimationUtils.currentAnimationTimeMillis();
+        if (frameTime == mDispatchedFrameTime && !changed) {
+            // A spring starting late in a frame that was already dispatched, nothing new to show.
+            return;
+        }
+        mPendingFrameTime = frameTime;
+        mSteppedDims |= dim;
+        if ((mSteppedDims & mRunningDims) == mRunningDims) {
+            flushPendingUpdate();
+        }
+    }
+
+    private void onDimensionEnded(int dim) {
+        mRunningDims &= ~dim;
+        if (mSteppedDims != 0 && (mSteppedDims & mRunningDims) == mRunningDims) {
+            flushPendingUpdate();
+        }
+    }
+
+    private void flushPendingUpdate() {
+        if (mSteppedDims != 0) {
+            mSteppedDims = 0;
+            mDispatchedFrameTime = mPendingFrameTime;
+            mDispatchFrameTimeNanos = getVsyncTimeNanos(mPendingFrameTime);
+            onUpdate();
+            mDispatchFrameTimeNanos = -1;
+        }
+    }
+
     private void onUpdate() {
-        if (!mOnUpdateListeners.isEmpty()) {
-            float currentWidth = mapRange(mCurrentScaleProgress, mStartRect.width(),
-                    mTargetRect.width());
-            float currentHeight = mapRange(mCurrentScaleProgress, mStartRect.height(),
-                    mTargetRect.height());
+        if (!mOnUpdateListeners.isEmpty() || !mOnUpdateValuesListeners.isEmpty()) {
+            boolean trace = TransitionTrace.isEnabled();
+            if (trace) {
+                TransitionTrace.beginSection(TRACE_UPDATE);
+            }
+            float currentWidth = mapRange(mCurrentScaleProgress, mStartWidth, mTargetWidth);
+            float currentHeight = mapRange(mCurrentScaleProgress, mStartHeight, mTargetHeight);
             if (mTrackingBottomY) {
                 mCurrentRect.set(mCurrentCenterX - currentWidth / 2, mCurrentY - currentHeight,
                         mCurrentCenterX + currentWidth / 2, mCurrentY);
@@ -210,25 +1008,81 @@ public class RectFSpringAnim {
                 mCurrentRect.set(mCurrentCenterX - currentWidth / 2, mCurrentY,
                         mCurrentCenterX + currentWidth / 2, mCurrentY + currentHeight);
             }
-            for (OnUpdateListener onUpdateListener : mOnUpdateListeners) {
-                onUpdateListener.onUpdate(mCurrentRect, mCurrentScaleProgress);
+            dispatchUpdate();
+            if (trace) {
+                TransitionTrace.endSection();
+            }
+        }
+    }
+
+    private void dispatchUpdate() {
+        TransitionMetrics metrics = mMetrics;
+        long updateStartNanos = 0;
+        if (metrics != null) {
+            if (mDispatchFrameTimeNanos >= 0 && mStepFrameTimeNanos == mDispatchFrameTimeNanos) {
+                updateStartNanos = mStepStartNanos;
+                mStepFrameTimeNanos = -1;
+            } else {
+                updateStartNanos = System.nanoTime();
             }
         }
+        RectF rect = mCurrentRect;
+        float progress = mCurrentScaleProgress;
+        boolean trace = TransitionTrace.isEnabled();
+        if (trace) {
+            TransitionTrace.setCounter(COUNTER_LEFT, (long) rect.left);
+            TransitionTrace.setCounter(COUNTER_TOP, (long) rect.top);
+            TransitionTrace.setCounter(COUNTER_RIGHT, (long) rect.right);
+            TransitionTrace.setCounter(COUNTER_BOTTOM, (long) rect.bottom);
+            TransitionTrace.setCounter(COUNTER_PROGRESS, (long) (progress * 1000));
+            TransitionTrace.beginSection(TRACE_DISPATCH);
+        }
+        Object[] valuesListeners = mOnUpdateValuesListeners.getSnapshot();
+        for (int i = 0; i < valuesListeners.length; i++) {
+            ((OnUpdateValuesListener) valuesListeners[i])
+                    .onUpdate(rect.left, rect.top, rect.right, rect.bottom, progress);
+        }
+        Object[] updateListeners = mOnUpdateListeners.getSnapshot();
+        for (int i = 0; i < updateListeners.length; i++) {
+            ((OnUpdateListener) updateListeners[i]).onUpdate(rect, progress);
+        }
+        if (trace) {
+            TransitionTrace.endSection();
+        }
+        if (metrics != null) {
+            metrics.onFrameDispatched(mDispatchFrameTimeNanos, updateStartNanos,
+                    System.nanoTime());
+        }
     }
 
     private void maybeOnEnd() {
         if (mAnimsStarted && mRectXAnimEnded && mRectYAnimEnded && mRectScaleAnimEnded) {
             mAnimsStarted = false;
-            for (Animator.AnimatorListener animatorListener : mAnimatorListeners) {
-                animatorListener.onAnimationEnd(null);
+            if (mMetrics != null) {
+                mMetrics.onTransitionEnd(System.nanoTime(), mCanceled);
+            }
+            mDispatchingEnd = true;
+            Object[] animatorListeners = mAnimatorListeners.getSnapshot();
+            for (int i = 0; i < animatorListeners.length; i++) {
+                ((Animator.AnimatorListener) animatorListeners[i]).onAnimationEnd(null);
+            }
+            mDispatchingEnd = false;
+            if (mRecycleAfterEnd) {
+                recycle();
             }
         }
     }
 
     public void cancel() {
         if (mAnimsStarted) {
-            for (OnUpdateListener onUpdateListener : mOnUpdateListeners) {
-                onUpdateListener.onCancel();
+            mCanceled = true;
+            Object[] valuesListeners = mOnUpdateValuesListeners.getSnapshot();
+            for (int i = 0; i < valuesListeners.length; i++) {
+                ((OnUpdateValuesListener) valuesListeners[i]).onCancel();
+            }
+            Object[] updateListeners = mOnUpdateListeners.getSnapshot();
+            for (int i = 0; i < updateListeners.length; i++) {
+                ((OnUpdateListener) updateListeners[i]).onCancel();
             }
         }
         end();
@@ -238,4 +1092,12 @@ public class RectFSpringAnim {
         void onUpdate(RectF currentRect, float progress);
         default void onCancel() { }
     }
+
+    /**
+     * Same as {@link OnUpdateListener}, with the bounds of the current rect as values.
+     */
+    public interface OnUpdateValuesListener {
+        void onUpdate(float left, float top, float right, float bottom, float progress);
+        default void onCancel() { }
+    }
 }
@@ -0,0 +1,637 @@
+package com.transsion.springanimation;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Animates many rects at once with the same physics as {@link RectFSpringAnim}, for effects such
+ * as folder close where dozens of icons fly home together.
+ *
+ * The state of every rect is stored in parallel primitive arrays and all of them are stepped in
+ * one loop per dimension and per frame, from a single frame callback. The exponentials of the
+ * fling and spring steps only depend on the frame time, so they are computed once per frame for
+ * the whole batch. Listeners are notified once per frame with the packed rects of the batch.
+ *
+ * By default every frame is one step of the frame time. With {@link #setFixedTimestep}, the
+ * batch instead advances in fixed substeps and shows the state interpolated between the last two
+ * substeps, so that the motion is the same at any refresh rate and under uneven frame times.
+ */
+public class RectFSpringBatch {
+
+    // Number of values per rect in #getRects: left, top, right, bottom, progress.
+    public static final int STRIDE = RectFSpringSolver.FRAME_STRIDE;
+
+    private static final byte PHASE_FLING = 0;
+    private static final byte PHASE_SPRING = 1;
+    private static final byte PHASE_DONE = 2;
+
+    // Same as FlingAnimation, the friction scalar is multiplied by this to get the drag rate.
+    private static final float FLING_DRAG_RATE = FlingSpringSolver.FLING_FRICTION * -4.2f;
+    // Same as SpringForce.STIFFNESS_LOW and SpringForce.DAMPING_RATIO_LOW_BOUNCY.
+    private static final float SCALE_SPRING_STIFFNESS = 200f;
+    private static final float SCALE_SPRING_DAMPING = 0.75f;
+    // The springs of FlingSpringAnim use the default minimum visible change of 1 pixel.
+    private static final float POSITION_VALUE_THRESHOLD = SpringSolver.VALUE_THRESHOLD_MULTIPLIER;
+    private static final float POSITION_VELOCITY_THRESHOLD =
+            POSITION_VALUE_THRESHOLD * SpringSolver.VELOCITY_THRESHOLD_MULTIPLIER;
+    // With a fixed timestep, frames that span more substeps than this (i.e. after dropped
+    // frames) are caught up with a single exact step instead of stepping every substep.
+    private static final int MAX_SUBSTEPS_PER_FRAME = 8;
+    // Tolerance on the frame time when counting substeps, so that a frame lasting exactly a
+    // whole number of substeps is not split unevenly by rounding errors.
+    private static final float SUBSTEP_EPSILON_MS = 0.001f;
+
+    private final float mMinVisChange;
+    private final float mYOvershoot;
+    private final float mFlingVelocityThreshold;
+
+    // Used to compute the step matrices, see #computeStepMatrix.
+    private final SpringSolver mPositionSpring =
+            new SpringSolver(FlingSpringSolver.SPRING_STIFFNESS, FlingSpringSolver.SPRING_DAMPING);
+    private final SpringSolver mScaleSpring =
+            new SpringSolver(SCALE_SPRING_STIFFNESS, SCALE_SPRING_DAMPING);
+    private final float[] mPositionStep = new float[4];
+    private final float[] mScaleStep = new float[4];
+
+    // Fixed timestep, or 0 to step by the frame time, see #setFixedTimestep.
+    private float mFixedStepMs;
+    private float mFixedFlingDecay;
+    private float mFixedFlingGain;
+    private final float[] mFixedPositionStep = new float[4];
+    private final float[] mFixedScaleStep = new float[4];
+    // Time not yet stepped, less than one fixed step.
+    private float mStepAccumulatorMs;
+
+    private final ArrayList<Listener> mListeners = new ArrayList<>();
+    private final Choreographer.FrameCallback mFrameCallback = this::doFrame;
+    private long mLastFrameTimeNanos;
+    private boolean mRunning;
+
+    private int mCount;
+
+    private float[] mX;
+    private float[] mVelocityX;
+    private float[] mTargetX;
+    private float[] mMinX;
+    private float[] mMaxX;
+    private byte[] mPhaseX;
+
+    private float[] mY;
+    private float[] mVelocityY;
+    private float[] mTargetY;
+    private float[] mMinY;
+    private float[] mMaxY;
+    private float[] mSpringVelocityFactorY;
+    private byte[] mPhaseY;
+
+    private float[] mScale;
+    private float[] mVelocityScale;
+    private float[] mScaleValueThreshold;
+    private byte[] mPhaseScale;
+
+    private float[] mStartWidth;
+    private float[] mStartHeight;
+    private float[] mTargetWidth;
+    private float[] mTargetHeight;
+    // If true, tracking the bottom of the rects, else tracking the top.
+    private boolean[] mTrackingBottomY;
+
+    private float[] mRects;
+    // With a fixed timestep, the rects one substep before the current state.
+    private float[] mPreviousRects;
+
+    /**
+     * @param capacity The initial number of rects the batch can hold without growing.
+     * @param minVisChange The minimum visible change of the position, in pixels.
+     * @param yOvershoot How far past the target the y fling may overshoot, in pixels.
+     */
+    public RectFSpringBatch(int capacity, float minVisChange, float yOvershoot) {
+        mMinVisChange = minVisChange;
+        mYOvershoot = yOvershoot;
+        mFlingVelocityThreshold = minVisChange * SpringSolver.VALUE_THRESHOLD_MULTIPLIER
+                * SpringSolver.VELOCITY_THRESHOLD_MULTIPLIER;
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * Makes the batch advance in fixed steps of {@param stepMs}, interpolating the rects shown
+     * between the last two steps, or by the frame time if 0 (default). Must not be called while
+     * running.
+     */
+    public void setFixedTimestep(float stepMs) {
+        if (mRunning) {
+            throw new IllegalStateException("Cannot change the timestep of a running batch");
+        }
+        mFixedStepMs = Math.max(0, stepMs);
+        if (mFixedStepMs > 0) {
+            mFixedFlingDecay = (float) Math.exp(FLING_DRAG_RATE * mFixedStepMs / 1000);
+            mFixedFlingGain = (mFixedFlingDecay - 1) / FLING_DRAG_RATE;
+            computeStepMatrix(mPositionSpring, mFixedStepMs, mFixedPositionStep);
+            computeStepMatrix(mScaleSpring, mFixedStepMs, mFixedScaleStep);
+        }
+    }
+
+    public void addListener(Listener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Returns the packed rects of the batch, {@link #STRIDE} values per rect. Only the first
+     * {@link #getCount()} rects are valid.
+     */
+    public float[] getRects() {
+        return mRects;
+    }
+
+    /**
+     * Removes all the rects from the batch. Must not be called while running.
+     */
+    public void clear() {
+        if (mRunning) {
+            throw new IllegalStateException("Cannot clear a running batch");
+        }
+        mCount = 0;
+    }
+
+    /**
+     * Adds a rect to animate from the start rect to the target rect, with the same velocity as
+     * passed to {@link RectFSpringAnim#start}. Must not be called while running.
+     *
+     * @return The index of the rect in the batch.
+     */
+    public int add(float startLeft, float startTop, float startRight, float startBottom,
+            float targetLeft, float targetTop, float targetRight, float targetBottom,
+            float velocityXPxPerMs, float velocityYPxPerMs) {
+        if (mRunning) {
+            throw new IllegalStateException("Cannot add to a running batch");
+        }
+        if (mCount == mX.length) {
+            allocate(mCount * 2);
+        }
+        int i = mCount++;
+        boolean trackingBottomY = startBottom < targetBottom;
+        mTrackingBottomY[i] = trackingBottomY;
+        mStartWidth[i] = startRight - startLeft;
+        mStartHeight[i] = startBottom - startTop;
+        mTargetWidth[i] = targetRight - targetLeft;
+        mTargetHeight[i] = targetBottom - targetTop;
+
+        float startX = (startLeft + startRight) / 2;
+        float endX = (targetLeft + targetRight) / 2;
+        mX[i] = startX;
+        mVelocityX[i] = velocityXPxPerMs * 1000;
+        mTargetX[i] = endX;
+        mMinX[i] = Math.min(startX, endX);
+        mMaxX[i] = Math.max(startX, endX);
+        mPhaseX[i] = getStartPhase(startX, mVelocityX[i], mMinX[i], mMaxX[i]);
+
+        float startVelocityY = velocityYPxPerMs * 1000;
+        float startY = trackingBottomY ? startBottom : startTop;
+        float endY = trackingBottomY ? targetBottom : targetTop;
+        mY[i] = startY;
+        mVelocityY[i] = startVelocityY;
+        mTargetY[i] = endY;
+        mMinY[i] = Math.min(startY, endY - mYOvershoot);
+        mMaxY[i] = Math.max(startY, endY);
+        // Scale the Y velocity based on the initial velocity to tune the curves.
+        mSpringVelocityFactorY[i] = 0.1f + 0.9f * Math.abs(startVelocityY) / 20000.0f;
+        mPhaseY[i] = getStartPhase(startY, startVelocityY, mMinY[i], mMaxY[i]);
+        if (mPhaseY[i] == PHASE_SPRING) {
+            mVelocityY[i] *= mSpringVelocityFactorY[i];
+        }
+
+        float minVisibleChange = 1f / mStartHeight[i];
+        mScale[i] = 0;
+        mVelocityScale[i] = velocityYPxPerMs * minVisibleChange;
+        mScaleValueThreshold[i] = minVisibleChange * SpringSolver.VALUE_THRESHOLD_MULTIPLIER;
+        mPhaseScale[i] = PHASE_SPRING;
+
+        writeRect(i, mRects);
+        writeRect(i, mPreviousRects);
+        return i;
+    }
+
+    /**
+     * Returns whether a fling starting at {@param x} would end right away, either because it is
+     * too slow or because it is already moving away from the bounds, in which case the spring
+     * takes over on the first frame as in {@link FlingSpringSolver}.
+     */
+    private byte getStartPhase(float x, float velocity, float min, float max) {
+        if ((velocity >= 0 && x >= max) || (velocity <= 0 && x <= min)
+                || Math.abs(velocity) < mFlingVelocityThreshold) {
+            return PHASE_SPRING;
+        }
+        return PHASE_FLING;
+    }
+
+    /**
+     * Equivalent of {@link RectFSpringAnim#onTargetPositionChanged} for the rect at
+     * {@param index}.
+     */
+    public void setTarget(int index, float targetLeft, float targetTop, float targetRight,
+            float targetBottom) {
+        float targetWidth = targetRight - targetLeft;
+        float targetHeight = targetBottom - targetTop;
+        if (targetWidth != mTargetWidth[index] || targetHeight != mTargetHeight[index]) {
+            retargetSize(index, targetWidth, targetHeight);
+        }
+
+        float targetX = (targetLeft + targetRight) / 2;
+        if (targetX != mTargetX[index]) {
+            mTargetX[index] = targetX;
+            mMinX[index] = Math.min(mX[index], targetX);
+            mMaxX[index] = Math.max(mX[index], targetX);
+            if (mPhaseX[index] == PHASE_DONE) {
+                mPhaseX[index] = PHASE_SPRING;
+            }
+        }
+        float targetY = mTrackingBottomY[index] ? targetBottom : targetTop;
+        if (targetY != mTargetY[index]) {
+            mTargetY[index] = targetY;
+            mMinY[index] = Math.min(mY[index], targetY);
+            mMaxY[index] = Math.max(mY[index], targetY);
+            if (mPhaseY[index] == PHASE_DONE) {
+                mPhaseY[index] = PHASE_SPRING;
+            }
+        }
+    }
+
+    private void retargetSize(int i, float targetWidth, float targetHeight) {
+        float progress = mScale[i];
+        float startWidth = RectFSpringSolver.rebaseStartSize(mStartWidth[i], mTargetWidth[i],
+                targetWidth, progress);
+        float startHeight = RectFSpringSolver.rebaseStartSize(mStartHeight[i], mTargetHeight[i],
+                targetHeight, progress);
+        if (Float.isNaN(startWidth)) {
+            // Restart the progress from the current size.
+            startWidth = mStartWidth[i] + progress * (mTargetWidth[i] - mStartWidth[i]);
+            startHeight = mStartHeight[i] + progress * (mTargetHeight[i] - mStartHeight[i]);
+            mVelocityScale[i] = RectFSpringSolver.restartProgressVelocity(mVelocityScale[i],
+                    mStartHeight[i], mTargetHeight[i], startHeight, targetHeight);
+            mScale[i] = 0;
+            mPhaseScale[i] = PHASE_SPRING;
+        }
+        mStartWidth[i] = startWidth;
+        mStartHeight[i] = startHeight;
+        mTargetWidth[i] = targetWidth;
+        mTargetHeight[i] = targetHeight;
+    }
+
+    /**
+     * Starts stepping the batch on every frame until all the rects have come to rest.
+     */
+    public void start() {
+        if (mRunning) {
+            return;
+        }
+        mRunning = true;
+        mLastFrameTimeNanos = -1;
+        mStepAccumulatorMs = 0;
+        Choreographer.getInstance().postFrameCallback(mFrameCallback);
+    }
+
+    /**
+     * Moves every rect to its target and ends the batch.
+     */
+    public void end() {
+        if (!mRunning) {
+            return;
+        }
+        Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        for (int i = 0; i < mCount; i++) {
+            mX[i] = mTargetX[i];
+            mY[i] = mTargetY[i];
+            mScale[i] = 1;
+            mPhaseX[i] = mPhaseY[i] = mPhaseScale[i] = PHASE_DONE;
+            writeRect(i, mRects);
+        }
+        onStepped(true);
+    }
+
+    private void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        // Like the androidx animations, the first frame only shows the start values.
+        float deltaMs = mLastFrameTimeNanos < 0 ? 0
+                : (frameTimeNanos - mLastFrameTimeNanos) / 1_000_000f;
+        mLastFrameTimeNanos = frameTimeNanos;
+        if (!step(deltaMs)) {
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * Advances every rect by {@param deltaMs} and notifies the listeners.
+     *
+     * @return Whether all the rects have come to rest.
+     */
+    public boolean step(float deltaMs) {
+        int active;
+        if (mFixedStepMs > 0) {
+            active = stepFixed(deltaMs);
+        } else if (deltaMs > 0) {
+            active = advance(deltaMs);
+            writeRects(mRects);
+        } else {
+            active = countActive();
+        }
+        boolean atRest = active == 0;
+        if (atRest) {
+            mStepAccumulatorMs = 0;
+        }
+        onStepped(atRest);
+        return atRest;
+    }
+
+    /**
+     * Advances every rect by as many fixed steps as fit in the time accumulated so far, then
+     * writes the rects interpolated between the last two steps by the time left over.
+     *
+     * @return The number of rects still moving.
+     */
+    private int stepFixed(float deltaMs) {
+        float stepMs = mFixedStepMs;
+        mStepAccumulatorMs += deltaMs;
+        int substeps = (int) ((mStepAccumulatorMs + SUBSTEP_EPSILON_MS) / stepMs);
+        mStepAccumulatorMs = Math.max(0, mStepAccumulatorMs - substeps * stepMs);
+
+        int active = -1;
+        if (substeps > MAX_SUBSTEPS_PER_FRAME) {
+            // Flings hand off to the springs on a substep, so step them one by one to hand off
+            // at the same time as without dropped frames. They are short, unlike the springs.
+            while (substeps > 1 && active != 0 && isFlinging()) {
+                active = substep();
+                substeps--;
+            }
+            // Then catch up in closed form, only keeping the last substep to interpolate from.
+            // This only clamps the scale once, which can slightly change how it settles.
+            if (substeps > 1 && active != 0) {
+                active = advance((substeps - 1) * stepMs);
+                substeps = 1;
+            }
+        }
+        for (int s = 0; s < substeps && active != 0; s++) {
+            if (s == substeps - 1) {
+                writeRects(mPreviousRects);
+            }
+            active = substep();
+        }
+        if (active < 0) {
+            active = countActive();
+        }
+
+        writeRects(mRects);
+        if (active > 0) {
+            float fraction = Math.min(mStepAccumulatorMs / stepMs, 1);
+            float[] rects = mRects;
+            float[] previous = mPreviousRects;
+            for (int j = mCount * STRIDE - 1; j >= 0; j--) {
+                rects[j] = previous[j] + fraction * (rects[j] - previous[j]);
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Advances every rect by {@param deltaMs} in a single step.
+     *
+     * @return The number of rects still moving.
+     */
+    private int advance(float deltaMs) {
+        float flingDecay = (float) Math.exp(FLING_DRAG_RATE * deltaMs / 1000);
+        float flingGain = (flingDecay - 1) / FLING_DRAG_RATE;
+        computeStepMatrix(mPositionSpring, deltaMs, mPositionStep);
+        computeStepMatrix(mScaleSpring, deltaMs, mScaleStep);
+
+        return stepAxis(mX, mVelocityX, mTargetX, mMinX, mMaxX, null, mPhaseX,
+                flingDecay, flingGain, mPositionStep)
+                + stepAxis(mY, mVelocityY, mTargetY, mMinY, mMaxY, mSpringVelocityFactorY,
+                mPhaseY, flingDecay, flingGain, mPositionStep)
+                + stepScale(mScaleStep);
+    }
+
+    private int substep() {
+        return stepAxis(mX, mVelocityX, mTargetX, mMinX, mMaxX, null, mPhaseX,
+                mFixedFlingDecay, mFixedFlingGain, mFixedPositionStep)
+                + stepAxis(mY, mVelocityY, mTargetY, mMinY, mMaxY, mSpringVelocityFactorY,
+                mPhaseY, mFixedFlingDecay, mFixedFlingGain, mFixedPositionStep)
+                + stepScale(mFixedScaleStep);
+    }
+
+    private boolean isFlinging() {
+        for (int i = 0; i < mCount; i++) {
+            if (mPhaseX[i] == PHASE_FLING || mPhaseY[i] == PHASE_FLING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int countActive() {
+        int active = 0;
+        for (int i = 0; i < mCount; i++) {
+            if (mPhaseX[i] != PHASE_DONE || mPhaseY[i] != PHASE_DONE
+                    || mPhaseScale[i] != PHASE_DONE) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    private void onStepped(boolean atRest) {
+        if (atRest) {
+            mRunning = false;
+        }
+        for (int i = 0; i < mListeners.size(); i++) {
+            mListeners.get(i).onUpdate(mRects, mCount);
+        }
+        if (atRest) {
+            for (int i = 0; i < mListeners.size(); i++) {
+                mListeners.get(i).onEnd();
+            }
+        }
+    }
+
+    /**
+     * Steps the x or y positions of all the rects: a fling until it passes the target or slows
+     * down, then a spring pulling towards the target, as in {@link FlingSpringAnim}.
+     *
+     * @return The number of rects still moving along this axis.
+     */
+    private int stepAxis(float[] pos, float[] vel, float[] target, float[] min, float[] max,
+            float[] springVelocityFactor, byte[] phase, float flingDecay, float flingGain,
+            float[] m) {
+        int active = 0;
+        for (int i = 0; i < mCount; i++) {
+            byte p = phase[i];
+            if (p == PHASE_FLING) {
+                float v = vel[i];
+                float x = pos[i] + v * flingGain;
+                v *= flingDecay;
+                boolean ended = true;
+                if (x < min[i]) {
+                    x = min[i];
+                } else if (x > max[i]) {
+                    x = max[i];
+                } else {
+                    ended = x == min[i] || x == max[i] || Math.abs(v) < mFlingVelocityThreshold;
+                }
+                pos[i] = x;
+                if (ended) {
+                    phase[i] = PHASE_SPRING;
+                    v *= springVelocityFactor == null ? 1f : springVelocityFactor[i];
+                }
+                vel[i] = v;
+                active++;
+            } else if (p == PHASE_SPRING) {
+                float x = pos[i] - target[i];
+                float v = vel[i];
+                float newX = m[0] * x + m[1] * v;
+                float newV = m[2] * x + m[3] * v;
+                if (Math.abs(newV) < POSITION_VELOCITY_THRESHOLD
+                        && Math.abs(newX) < POSITION_VALUE_THRESHOLD) {
+                    pos[i] = target[i];
+                    vel[i] = 0;
+                    phase[i] = PHASE_DONE;
+                } else {
+                    pos[i] = target[i] + newX;
+                    vel[i] = newV;
+                    active++;
+                }
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Steps the scale progress of all the rects, a spring towards 1 clamped at 1. Once it reaches
+     * 1, it is at rest there, as with {@link SpringSolver#setMaxValue}.
+     *
+     * @return The number of rects whose scale is still changing.
+     */
+    private int stepScale(float[] m) {
+        int active = 0;
+        for (int i = 0; i < mCount; i++) {
+            if (mPhaseScale[i] != PHASE_SPRING) {
+                continue;
+            }
+            float x = mScale[i] - 1;
+            float v = mVelocityScale[i];
+            float newX = m[0] * x + m[1] * v;
+            float newV = m[2] * x + m[3] * v;
+            float valueThreshold = mScaleValueThreshold[i];
+            if (newX >= 0 || (Math.abs(newV)
+                    < valueThreshold * SpringSolver.VELOCITY_THRESHOLD_MULTIPLIER
+                    && Math.abs(newX) < valueThreshold)) {
+                mScale[i] = 1;
+                mVelocityScale[i] = 0;
+                mPhaseScale[i] = PHASE_DONE;
+            } else {
+                mScale[i] = 1 + newX;
+                mVelocityScale[i] = newV;
+                active++;
+            }
+        }
+        return active;
+    }
+
+    private void writeRects(float[] out) {
+        for (int i = 0; i < mCount; i++) {
+            writeRect(i, out);
+        }
+    }
+
+    private void writeRect(int i, float[] out) {
+        float progress = mScale[i];
+        float width = mStartWidth[i] + progress * (mTargetWidth[i] - mStartWidth[i]);
+        float height = mStartHeight[i] + progress * (mTargetHeight[i] - mStartHeight[i]);
+        float centerX = mX[i];
+        float y = mY[i];
+        int offset = i * STRIDE;
+        out[offset] = centerX - width / 2;
+        out[offset + 2] = centerX + width / 2;
+        if (mTrackingBottomY[i]) {
+            out[offset + 1] = y - height;
+            out[offset + 3] = y;
+        } else {
+            out[offset + 1] = y;
+            out[offset + 3] = y + height;
+        }
+        out[offset + 4] = progress;
+    }
+
+    /**
+     * A spring step is linear in the displacement and velocity, so it can be written as a 2x2
+     * matrix that only depends on the frame time: {x', v'} = {m0 * x + m1 * v, m2 * x + m3 * v}.
+     * Its columns are the responses to a unit displacement and a unit velocity.
+     */
+    private static void computeStepMatrix(SpringSolver spring, float deltaMs, float[] out) {
+        spring.start(0, 1, 0, 0);
+        out[0] = spring.getValue(deltaMs);
+        out[2] = spring.getVelocity(deltaMs);
+        spring.start(0, 0, 1, 0);
+        out[1] = spring.getValue(deltaMs);
+        out[3] = spring.getVelocity(deltaMs);
+    }
+
+    private void allocate(int capacity) {
+        mX = grow(mX, capacity);
+        mVelocityX = grow(mVelocityX, capacity);
+        mTargetX = grow(mTargetX, capacity);
+        mMinX = grow(mMinX, capacity);
+        mMaxX = grow(mMaxX, capacity);
+        mPhaseX = mPhaseX == null ? new byte[capacity] : Arrays.copyOf(mPhaseX, capacity);
+
+        mY = grow(mY, capacity);
+        mVelocityY = grow(mVelocityY, capacity);
+        mTargetY = grow(mTargetY, capacity);
+        mMinY = grow(mMinY, capacity);
+        mMaxY = grow(mMaxY, capacity);
+        mSpringVelocityFactorY = grow(mSpringVelocityFactorY, capacity);
+        mPhaseY = mPhaseY == null ? new byte[capacity] : Arrays.copyOf(mPhaseY, capacity);
+
+        mScale = grow(mScale, capacity);
+        mVelocityScale = grow(mVelocityScale, capacity);
+        mScaleValueThreshold = grow(mScaleValueThreshold, capacity);
+        mPhaseScale = mPhaseScale == null
+                ? new byte[capacity] : Arrays.copyOf(mPhaseScale, capacity);
+
+        mStartWidth = grow(mStartWidth, capacity);
+        mStartHeight = grow(mStartHeight, capacity);
+        mTargetWidth = grow(mTargetWidth, capacity);
+        mTargetHeight = grow(mTargetHeight, capacity);
+        mTrackingBottomY = mTrackingBottomY == null
+                ? new boolean[capacity] : Arrays.copyOf(mTrackingBottomY, capacity);
+
+        mRects = grow(mRects, capacity * STRIDE);
+        mPreviousRects = grow(mPreviousRects, capacity * STRIDE);
+    }
+
+    private static float[] grow(float[] array, int length) {
+        return array == null ? new float[length] : Arrays.copyOf(array, length);
+    }
+
+    /**
+     * Listener for the whole batch, notified once per frame.
+     */
+    public interface Listener {
+        /**
+         * @param rects The packed rects of the batch, {@link #STRIDE} values per rect.
+         * @param count The number of rects in the batch.
+         */
+        void onUpdate(float[] rects, int count);
+
+        default void onEnd() { }
+    }
+}
@@ -0,0 +1,233 @@
+package com.transsion.springanimation;
+
+/**
+ * Closed-form equivalent of {@link RectFSpringAnim}, which evaluates the rect at any time from
+ * two {@link FlingSpringSolver}s for the center x and y and a {@link SpringSolver} for the scale
+ * progress. It does not depend on any Android classes, rects are passed as left, top, right and
+ * bottom values.
+ */
+public class RectFSpringSolver {
+
+    // Number of values written per frame by #getFrame: left, top, right, bottom, progress.
+    public static final int FRAME_STRIDE = 5;
+
+    // Below this much remaining scale progress, a change of the target size restarts the progress
+    // from the current size instead of rebasing the start size, see #rebaseStartSize.
+    private static final float MIN_REBASE_REMAINING_PROGRESS = 0.05f;
+
+    // Same as SpringForce.STIFFNESS_LOW and SpringForce.DAMPING_RATIO_LOW_BOUNCY.
+    private static final float SCALE_SPRING_STIFFNESS = 200f;
+    private static final float SCALE_SPRING_DAMPING = 0.75f;
+
+    private final FlingSpringSolver mCenterXSolver = new FlingSpringSolver();
+    private final FlingSpringSolver mYSolver = new FlingSpringSolver();
+    private final SpringSolver mScaleSolver =
+            new SpringSolver(SCALE_SPRING_STIFFNESS, SCALE_SPRING_DAMPING).setMaxValue(1f);
+
+    private float mStartWidth;
+    private float mStartHeight;
+    private float mTargetWidth;
+    private float mTargetHeight;
+    // If true, tracking the bottom of the rects, else tracking the top.
+    private boolean mTrackingBottomY;
+    private float mStartCenterX;
+    private float mStartY;
+    private float mTargetCenterX;
+    private float mTargetY;
+
+    private final float mMinVisChange;
+    private final float mYOvershoot;
+
+    private float mCurrentCenterX;
+    private float mCurrentY;
+    private float mCurrentScaleProgress;
+
+    /**
+     * @param minVisChange The minimum visible change of the position, in pixels.
+     * @param yOvershoot How far past the target the y fling may overshoot, in pixels.
+     */
+    public RectFSpringSolver(float minVisChange, float yOvershoot) {
+        mMinVisChange = minVisChange;
+        mYOvershoot = yOvershoot;
+    }
+
+    /**
+     * Sets the rects to animate between, must be called before {@link #start(float, float)}.
+     */
+    public void setRects(float startLeft, float startTop, float startRight, float startBottom,
+            float targetLeft, float targetTop, float targetRight, float targetBottom) {
+        mStartWidth = startRight - startLeft;
+        mStartHeight = startBottom - startTop;
+        mTargetWidth = targetRight - targetLeft;
+        mTargetHeight = targetBottom - targetTop;
+        mTrackingBottomY = startBottom < targetBottom;
+        mStartCenterX = (startLeft + startRight) / 2;
+        mStartY = mTrackingBottomY ? startBottom : startTop;
+        mTargetCenterX = (targetLeft + targetRight) / 2;
+        mTargetY = mTrackingBottomY ? targetBottom : targetTop;
+
+        mCurrentCenterX = mStartCenterX;
+        mCurrentY = mStartY;
+        mCurrentScaleProgress = 0;
+    }
+
+    /**
+     * Starts the animation at time 0, with the same velocity as passed to
+     * {@link RectFSpringAnim#start}.
+     */
+    public void start(float velocityXPxPerMs, float velocityYPxPerMs) {
+        float startX = mStartCenterX;
+        float endX = mTargetCenterX;
+        mCenterXSolver.start(startX, endX, velocityXPxPerMs * 1000, mMinVisChange,
+                Math.min(startX, endX), Math.max(startX, endX), 1f);
+
+        float startVelocityY = velocityYPxPerMs * 1000;
+        // Scale the Y velocity based on the initial velocity to tune the curves.
+        float springVelocityFactor = 0.1f + 0.9f * Math.abs(startVelocityY) / 20000.0f;
+        float startY = mStartY;
+        float endY = mTargetY;
+        mYSolver.start(startY, endY, startVelocityY, mMinVisChange,
+                Math.min(startY, endY - mYOvershoot), Math.max(startY, endY),
+                springVelocityFactor);
+
+        float minVisibleChange = 1f / mStartHeight;
+        mScaleSolver.setMinimumVisibleChange(minVisibleChange);
+        mScaleSolver.start(0, 0, velocityYPxPerMs * minVisibleChange, 1f);
+    }
+
+    /**
+     * Equivalent of {@link RectFSpringAnim#onTargetPositionChanged}, applied at {@param timeMs}.
+     * Position, velocity and size all stay continuous.
+     */
+    public void onTargetPositionChanged(float timeMs, float targetLeft, float targetTop,
+            float targetRight, float targetBottom) {
+        float targetWidth = targetRight - targetLeft;
+        float targetHeight = targetBottom - targetTop;
+        if (targetWidth != mTargetWidth || targetHeight != mTargetHeight) {
+            float progress = mScaleSolver.getValue(timeMs);
+            float startWidth = rebaseStartSize(mStartWidth, mTargetWidth, targetWidth, progress);
+            float startHeight =
+                    rebaseStartSize(mStartHeight, mTargetHeight, targetHeight, progress);
+            if (Float.isNaN(startWidth)) {
+                startWidth = mStartWidth + progress * (mTargetWidth - mStartWidth);
+                startHeight = mStartHeight + progress * (mTargetHeight - mStartHeight);
+                float velocity = restartProgressVelocity(mScaleSolver.getVelocity(timeMs),
+                        mStartHeight, mTargetHeight, startHeight, targetHeight);
+                mScaleSolver.start(timeMs, 0, velocity, 1f);
+            }
+            mStartWidth = startWidth;
+            mStartHeight = startHeight;
+            mTargetWidth = targetWidth;
+            mTargetHeight = targetHeight;
+        }
+
+        mTargetCenterX = (targetLeft + targetRight) / 2;
+        mTargetY = mTrackingBottomY ? targetBottom : targetTop;
+        if (mCenterXSolver.getTargetPosition() != mTargetCenterX) {
+            mCenterXSolver.updatePosition(timeMs, mCenterXSolver.getPosition(timeMs),
+                    mTargetCenterX);
+        }
+        if (mYSolver.getTargetPosition() != mTargetY) {
+            mYSolver.updatePosition(timeMs, mYSolver.getPosition(timeMs), mTargetY);
+        }
+    }
+
+    /**
+     * Returns the start size which keeps the size interpolated at {@param progress} unchanged
+     * when the target size changes from {@param targetSize} to {@param newTargetSize}, so that
+     * the remaining progress animates from the current size to the new one. Returns NaN when
+     * too little progress remains to do so smoothly, in which case the progress should restart
+     * from 0 with the current size as the start size.
+     */
+    static float rebaseStartSize(float startSize, float targetSize, float newTargetSize,
+            float progress) {
+        if (1 - progress < MIN_REBASE_REMAINING_PROGRESS) {
+            return Float.NaN;
+        }
+        float currentSize = startSize + progress * (targetSize - startSize);
+        return (currentSize - progress * newTargetSize) / (1 - progress);
+    }
+
+    /**
+     * Returns the velocity to restart the progress with when {@link #rebaseStartSize} returned
+     * NaN, so that the size keeps the velocity it had with {@param progressVelocity} from
+     * {@param startSize} to {@param targetSize} now that it animates from {@param currentSize} to
+     * {@param newTargetSize}. The height is passed, as the progress spring is tuned for it.
+     */
+    static float restartProgressVelocity(float progressVelocity, float startSize,
+            float targetSize, float currentSize, float newTargetSize) {
+        float remainingSize = newTargetSize - currentSize;
+        if (Math.abs(remainingSize) < 1) {
+            // Less than a pixel left, the size velocity would blow up the progress velocity.
+            return 0;
+        }
+        return progressVelocity * (targetSize - startSize) / remainingSize;
+    }
+
+    /**
+     * Evaluates the animation at {@param timeMs}, the result can then be read through the
+     * getters or {@link #getFrame}.
+     *
+     * @return Whether all of the dimensions have come to rest.
+     */
+    public boolean compute(float timeMs) {
+        mCurrentCenterX = mCenterXSolver.getPosition(timeMs);
+        mCurrentY = mYSolver.getPosition(timeMs);
+        mCurrentScaleProgress = mScaleSolver.getValue(timeMs);
+        return mCenterXSolver.isAtEquilibrium(timeMs) && mYSolver.isAtEquilibrium(timeMs)
+                && mScaleSolver.isAtEquilibrium(timeMs);
+    }
+
+    /**
+     * Moves all the dimensions to their final positions.
+     */
+    public void computeEnd() {
+        mCurrentCenterX = mCenterXSolver.getTargetPosition();
+        mCurrentY = mYSolver.getTargetPosition();
+        mCurrentScaleProgress = mScaleSolver.getFinalPosition();
+    }
+
+    /**
+     * Returns a time at which every dimension is guaranteed to have come to rest.
+     */
+    public float getSettleTimeMs() {
+        return Math.max(mScaleSolver.getSettleTimeMs(),
+                Math.max(mCenterXSolver.getSettleTimeMs(), mYSolver.getSettleTimeMs()));
+    }
+
+    public float getCurrentCenterX() {
+        return mCurrentCenterX;
+    }
+
+    public float getCurrentY() {
+        return mCurrentY;
+    }
+
+    public float getCurrentScaleProgress() {
+        return mCurrentScaleProgress;
+    }
+
+    public boolean isTrackingBottomY() {
+        return mTrackingBottomY;
+    }
+
+    /**
+     * Writes the last computed rect and progress into {@param out}, starting at {@param offset},
+     * as {@link #FRAME_STRIDE} values: left, top, right, bottom, progress.
+     */
+    public void getFrame(float[] out, int offset) {
+        float progress = mCurrentScaleProgress;
+        float currentWidth = mStartWidth + progress * (mTargetWidth - mStartWidth);
+        float currentHeight = mStartHeight + progress * (mTargetHeight - mStartHeight);
+        out[offset] = mCurrentCenterX - currentWidth / 2;
+        out[offset + 2] = mCurrentCenterX + currentWidth / 2;
+        if (mTrackingBottomY) {
+            out[offset + 1] = mCurrentY - currentHeight;
+            out[offset + 3] = mCurrentY;
+        } else {
+            out[offset + 1] = mCurrentY;
+            out[offset + 3] = mCurrentY + currentHeight;
+        }
+        out[offset + 4] = progress;
+    }
+}
@@ -39,11 +39,7 @@ public abstract class RevealOutlineAnimation extends ViewOutlineProvider {
                 mIsClippedToOutline = revealView.getClipToOutline();
                 mOldOutlineProvider = revealView.getOutlineProvider();
 
-                revealView.setOutlineProvider(RevealOutlineAnimation.this);
-                revealView.setClipToOutline(true);
-                if (shouldRemoveElevationDuringAnimation()) {
-                    revealView.setTranslationZ(-elevation);
-                }
+                prepareForReveal(revealView, elevation);
             }
 
             public void onAnimationEnd(Animator animation) {
@@ -57,13 +53,30 @@ public abstract class RevealOutlineAnimation extends ViewOutlineProvider {
         });
 
         va.addUpdateListener(v -> {
-            float progress = (Float) v.getAnimatedValue();
-            setProgress(progress);
+            float fraction = v.getAnimatedFraction();
+            setProgress(isReversed ? 1 - fraction : fraction);
             revealView.invalidateOutline();
         });
         return va;
     }
 
+    /**
+     * Makes {@param revealView} clip to this outline, so that the reveal can then be driven
+     * directly through {@link #setProgress} and {@link View#invalidateOutline()}. The view is not
+     * restored afterwards, so this is meant for views that are discarded or reset once revealed.
+     */
+    public void prepareForReveal(View revealView) {
+        prepareForReveal(revealView, revealView.getElevation());
+    }
+
+    private void prepareForReveal(View revealView, float elevation) {
+        revealView.setOutlineProvider(this);
+        revealView.setClipToOutline(true);
+        if (shouldRemoveElevationDuringAnimation()) {
+            revealView.setTranslationZ(-elevation);
+        }
+    }
+
     @Override
     public void getOutline(View v, Outline outline) {
         outline.setRoundRect(mOutline, mOutlineRadius);
@@ -26,14 +26,22 @@ import android.graphics.Rect;
  * as a rounded rectangle.
  */
 public class RoundedRectRevealOutlineProvider extends RevealOutlineAnimation {
-    private final float mStartRadius;
-    private final float mEndRadius;
+    private float mStartRadius;
+    private float mEndRadius;
 
-    private final Rect mStartRect;
-    private final Rect mEndRect;
+    private Rect mStartRect;
+    private Rect mEndRect;
 
     public RoundedRectRevealOutlineProvider(float startRadius, float endRadius, Rect startRect,
             Rect endRect) {
+        set(startRadius, endRadius, startRect, endRect);
+    }
+
+    /**
+     * Changes the radii and rects to interpolate between, so that the provider can be reused for
+     * another reveal.
+     */
+    public void set(float startRadius, float endRadius, Rect startRect, Rect endRect) {
         mStartRadius = startRadius;
         mEndRadius = endRadius;
         mStartRect = startRect;
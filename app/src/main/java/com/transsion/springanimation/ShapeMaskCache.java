@@ -0,0 +1,154 @@
+package com.transsion.springanimation;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.util.LruCache;
+
+/**
+ * LRU cache of anti-aliased {@link IconShape} masks rasterized into {@link Bitmap.Config#ALPHA_8}
+ * bitmaps, keyed by shape type, radius ratio and pixel size. Once a mask is cached, drawing the
+ * shape is a single bitmap blit tinted by the paint, instead of rasterizing the path again.
+ *
+ * Masks are rasterized at their size in pixels on the canvas, including the scale of the canvas
+ * matrix, so that they are not scaled up when drawn. Note that the properties of a hardware
+ * accelerated view, such as its scale, are applied by its render node and are not part of the
+ * canvas matrix. Shapes whose mask would not fit in the cache are drawn directly.
+ *
+ * Install it with {@link IconShape#setMaskCache}. The cache is bounded by a memory budget in
+ * bytes and can be used from any thread, e.g. by icon loading threads while the main thread
+ * draws.
+ */
+public class ShapeMaskCache {
+
+    private final LruCache<MaskKey, Bitmap> mMasks;
+    // Reused to look up masks without allocating a key on every draw, guarded by itself.
+    private final MaskKey mLookupKey = new MaskKey();
+    // Never modified once created, so it can be shared by threads rasterizing masks.
+    private final Paint mMaskPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    // Reused to read the scale of the canvas, guarded by mLookupKey.
+    private final Matrix mTmpMatrix = new Matrix();
+    private final float[] mTmpValues = new float[9];
+
+    /**
+     * @param maxSizeBytes The maximum number of bytes used by the cached masks.
+     */
+    public ShapeMaskCache(int maxSizeBytes) {
+        mMasks = new LruCache<MaskKey, Bitmap>(maxSizeBytes) {
+            @Override
+            protected int sizeOf(MaskKey key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * Draws {@param shape} with the given bounds from its cached mask, rasterizing the mask first
+     * if needed. The mask is tinted with the color and color filter of {@param paint}.
+     */
+    void drawShape(IconShape shape, Canvas canvas, float offsetX, float offsetY, float radius,
+            Paint paint) {
+        int size = Math.max(1, Math.round(radius * 2 * getCanvasScale(canvas)));
+        if ((long) size * size > mMasks.maxSize()) {
+            // The mask would be evicted as soon as it is cached, and rasterized on every draw.
+            shape.onDrawShape(canvas, offsetX, offsetY, radius, paint);
+            return;
+        }
+        Bitmap mask = getMask(shape, size);
+        float scale = radius * 2 / size;
+        int count = canvas.save();
+        canvas.translate(offsetX, offsetY);
+        canvas.scale(scale, scale);
+        canvas.drawBitmap(mask, 0, 0, paint);
+        canvas.restoreToCount(count);
+    }
+
+    /**
+     * Returns the largest scale of the canvas matrix, to get the size in pixels of the shape.
+     */
+    @SuppressWarnings("deprecation")
+    private float getCanvasScale(Canvas canvas) {
+        synchronized (mLookupKey) {
+            canvas.getMatrix(mTmpMatrix);
+            float[] v = mTmpValues;
+            mTmpMatrix.getValues(v);
+            return (float) Math.max(Math.hypot(v[Matrix.MSCALE_X], v[Matrix.MSKEW_Y]),
+                    Math.hypot(v[Matrix.MSKEW_X], v[Matrix.MSCALE_Y]));
+        }
+    }
+
+    private Bitmap getMask(IconShape shape, int size) {
+        Bitmap mask;
+        synchronized (mLookupKey) {
+            mLookupKey.set(shape.getClass(), shape.getRadiusRatio(), size);
+            mask = mMasks.get(mLookupKey);
+        }
+        if (mask == null) {
+            // Rasterized without holding the lock, so that threads can rasterize different masks
+            // at the same time. Threads racing for the same mask cache identical bitmaps.
+            mask = Bitmap.createBitmap(size, size, Bitmap.Config.ALPHA_8);
+            shape.onDrawShape(new Canvas(mask), 0, 0, size / 2f, mMaskPaint);
+            MaskKey key = new MaskKey();
+            key.set(shape.getClass(), shape.getRadiusRatio(), size);
+            mMasks.put(key, mask);
+        }
+        return mask;
+    }
+
+    public void clear() {
+        mMasks.evictAll();
+    }
+
+    public int getHitCount() {
+        return mMasks.hitCount();
+    }
+
+    public int getMissCount() {
+        return mMasks.missCount();
+    }
+
+    public int getEvictionCount() {
+        return mMasks.evictionCount();
+    }
+
+    /**
+     * Returns the number of bytes currently used by the cached masks.
+     */
+    public int getSizeBytes() {
+        return mMasks.size();
+    }
+
+    public int getMaxSizeBytes() {
+        return mMasks.maxSize();
+    }
+
+    private static final class MaskKey {
+        private Class<?> mShapeClass;
+        private float mRadiusRatio;
+        private int mSize;
+
+        void set(Class<?> shapeClass, float radiusRatio, int size) {
+            mShapeClass = shapeClass;
+            mRadiusRatio = radiusRatio;
+            mSize = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MaskKey)) {
+                return false;
+            }
+            MaskKey other = (MaskKey) o;
+            return mShapeClass == other.mShapeClass && mRadiusRatio == other.mRadiusRatio
+                    && mSize == other.mSize;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mShapeClass.hashCode();
+            result = 31 * result + Float.floatToIntBits(mRadiusRatio);
+            return 31 * result + mSize;
+        }
+    }
+}
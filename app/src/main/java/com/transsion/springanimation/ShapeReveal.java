@@ -0,0 +1,55 @@
+package com.transsion.springanimation;
+
+import android.graphics.Rect;
+
+/**
+ * The reveal of an {@link IconShape}, applied to its target view at the progress it is given
+ * rather than through an animator. It is created once per view by {@link IconShape#createReveal}
+ * and {@link #reset} for every transition, so that repeated transitions don't allocate.
+ */
+public abstract class ShapeReveal {
+
+    protected final Rect mStartRect = new Rect();
+    // Read on every frame rather than copied, so that the reveal follows changes of the end rect.
+    protected Rect mEndRect;
+    protected float mEndRadius;
+    private boolean mIsReversed;
+    private boolean mStarted;
+
+    /**
+     * Prepares a new reveal from {@param startRect} to {@param endRect}, with a corner radius of
+     * {@param endRadius} at the end. The target is only changed by the next
+     * {@link #setProgress}.
+     */
+    public void reset(Rect startRect, Rect endRect, float endRadius, boolean isReversed) {
+        mStartRect.set(startRect);
+        mEndRect = endRect;
+        mEndRadius = endRadius;
+        mIsReversed = isReversed;
+        mStarted = false;
+    }
+
+    /**
+     * Applies the reveal at {@param fraction}, as the animated fraction of
+     * {@link IconShape#createRevealAnimator} would be. The target is prepared for the reveal on
+     * the first call after {@link #reset} and is not restored afterwards.
+     */
+    public final void setProgress(float fraction) {
+        if (!mStarted) {
+            mStarted = true;
+            onStart();
+        }
+        onProgress(mIsReversed ? 1 - fraction : fraction);
+    }
+
+    /**
+     * Prepares the target for the reveal.
+     */
+    protected abstract void onStart();
+
+    /**
+     * Applies the reveal to the target, at {@param progress} from 0 at the start rect to 1 at
+     * the end rect.
+     */
+    protected abstract void onProgress(float progress);
+}
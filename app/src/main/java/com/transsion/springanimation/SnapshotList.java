@@ -0,0 +1,130 @@
+package com.transsion.springanimation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * List of listeners dispatched from an array snapshot. A snapshot is never modified once
+ * returned, so listeners can be added or removed while it is being dispatched, taking effect
+ * from the next dispatch. A new snapshot is only copied after the list changed, which keeps
+ * dispatching free of allocations, unlike iterating the list itself.
+ *
+ * Lists that change on every transition, like the clients of a {@link TransitionFrameScheduler},
+ * can also avoid allocating those copies. Created with {@link #SnapshotList(int)}, they keep the
+ * snapshots that went stale until {@link #releaseSnapshots()} is called once none of them is in
+ * use any more. That empties them, so that removed items don't stay reachable, and later
+ * snapshots of the same size are filled into them instead of allocated.
+ */
+final class SnapshotList<T> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final ArrayList<T> mItems = new ArrayList<>();
+    // Null when stale, until the next #getSnapshot.
+    private Object[] mSnapshot = EMPTY;
+    // Snapshots that went stale since the last #releaseSnapshots. Any beyond the capacity are
+    // left to the garbage collector.
+    private final Object[][] mStaleSnapshots;
+    private int mStaleCount;
+    // Released arrays to fill the next snapshots into, replaced in turn once full.
+    private final Object[][] mSpareArrays;
+    private int mSpareCount;
+    private int mNextReplacedSpare;
+
+    public SnapshotList() {
+        this(0);
+    }
+
+    /**
+     * Creates a list that keeps up to {@param maxSpareSnapshots} stale snapshots, and as many
+     * released arrays, to be reused once {@link #releaseSnapshots()} is called.
+     */
+    public SnapshotList(int maxSpareSnapshots) {
+        mStaleSnapshots = new Object[maxSpareSnapshots][];
+        mSpareArrays = new Object[maxSpareSnapshots][];
+    }
+
+    public void add(T item) {
+        mItems.add(item);
+        onChanged();
+    }
+
+    public boolean remove(T item) {
+        if (mItems.remove(item)) {
+            onChanged();
+            return true;
+        }
+        return false;
+    }
+
+    public void clear() {
+        if (!mItems.isEmpty()) {
+            mItems.clear();
+            onChanged();
+        }
+    }
+
+    public boolean isEmpty() {
+        return mItems.isEmpty();
+    }
+
+    /**
+     * Returns the items of the list as of now, in the order they were added. The array must not
+     * be modified.
+     */
+    public Object[] getSnapshot() {
+        if (mSnapshot == null) {
+            int size = mItems.size();
+            Object[] snapshot = size == 0 ? EMPTY : takeSpareArray(size);
+            if (snapshot == null) {
+                snapshot = mItems.toArray();
+            } else {
+                for (int i = 0; i < size; i++) {
+                    snapshot[i] = mItems.get(i);
+                }
+            }
+            mSnapshot = snapshot;
+        }
+        return mSnapshot;
+    }
+
+    /**
+     * Empties the snapshots returned before the list last changed, so that later snapshots can
+     * reuse their arrays and the items no longer in the list are not kept reachable. Must only
+     * be called when none of those snapshots is still being dispatched or otherwise used.
+     */
+    public void releaseSnapshots() {
+        for (int i = 0; i < mStaleCount; i++) {
+            Object[] snapshot = mStaleSnapshots[i];
+            mStaleSnapshots[i] = null;
+            Arrays.fill(snapshot, null);
+            if (mSpareCount < mSpareArrays.length) {
+                mSpareArrays[mSpareCount++] = snapshot;
+            } else {
+                mSpareArrays[mNextReplacedSpare] = snapshot;
+                mNextReplacedSpare = (mNextReplacedSpare + 1) % mSpareArrays.length;
+            }
+        }
+        mStaleCount = 0;
+    }
+
+    private void onChanged() {
+        Object[] snapshot = mSnapshot;
+        mSnapshot = null;
+        if (snapshot != null && snapshot != EMPTY && mStaleCount < mStaleSnapshots.length) {
+            mStaleSnapshots[mStaleCount++] = snapshot;
+        }
+    }
+
+    private Object[] takeSpareArray(int size) {
+        for (int i = 0; i < mSpareCount; i++) {
+            Object[] array = mSpareArrays[i];
+            if (array.length == size) {
+                mSpareArrays[i] = mSpareArrays[--mSpareCount];
+                mSpareArrays[mSpareCount] = null;
+                return array;
+            }
+        }
+        return null;
+    }
+}
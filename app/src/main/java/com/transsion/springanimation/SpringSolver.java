@@ -0,0 +1,355 @@
+package com.transsion.springanimation;
+
+/**
+ * Closed-form solution of a damped spring with unit mass, matching the model used by
+ * androidx {@code SpringForce}. Unlike {@code SpringAnimation}, the position and velocity can be
+ * evaluated at any time in O(1), without stepping frames or running on a Looper.
+ *
+ * Times are in milliseconds relative to the start of the animation and velocities are in units
+ * per second, as in the androidx animations.
+ */
+public class SpringSolver {
+
+    // Same multipliers as DynamicAnimation and SpringForce use to derive their thresholds from the
+    // minimum visible change.
+    static final float VALUE_THRESHOLD_MULTIPLIER = 0.75f;
+    static final float VELOCITY_THRESHOLD_MULTIPLIER = 1000f / 16f;
+
+    private final double mNaturalFreq;
+    private final double mDampingRatio;
+
+    private double mValueThreshold;
+    private double mVelocityThreshold;
+    private float mMaxValue = Float.MAX_VALUE;
+
+    private double mStartTime;
+    private double mFinalPosition;
+    // Coefficients of the displacement from the final position, see #setCoefficients.
+    private double mC1;
+    private double mC2;
+    // Time at which the value first reaches mMaxValue, infinite if it never does. From then on,
+    // the spring restarts at rest from mMaxValue, with the coefficients below. If the max value
+    // is below the final position, the spring stays pinned to it instead.
+    private double mClampTime = Double.POSITIVE_INFINITY;
+    private double mClampC1;
+    private double mClampC2;
+
+    public SpringSolver(float stiffness, float dampingRatio) {
+        if (stiffness <= 0) {
+            throw new IllegalArgumentException("Spring stiffness constant must be positive.");
+        }
+        if (dampingRatio < 0) {
+            throw new IllegalArgumentException("Damping ratio must be non-negative");
+        }
+        mNaturalFreq = Math.sqrt(stiffness);
+        mDampingRatio = dampingRatio;
+        setMinimumVisibleChange(1f);
+    }
+
+    /**
+     * Sets the minimum visible change of the animated value, from which the thresholds used by
+     * {@link #isAtEquilibrium(float)} are derived.
+     */
+    public SpringSolver setMinimumVisibleChange(float minVisibleChange) {
+        mValueThreshold = Math.abs(minVisibleChange) * VALUE_THRESHOLD_MULTIPLIER;
+        mVelocityThreshold = mValueThreshold * VELOCITY_THRESHOLD_MULTIPLIER;
+        return this;
+    }
+
+    /**
+     * Sets the maximum value of the spring, as with {@code DynamicAnimation#setMaxValue}. Once the
+     * value reaches it, the spring restarts from there at rest rather than overshooting, which is
+     * where {@code DynamicAnimation} holds it too. Unlike {@code DynamicAnimation}, which keeps
+     * pushing against the max until its velocity has decayed, the spring is at equilibrium right
+     * away if the max value is the final position. Must be called before {@link #start}.
+     */
+    public SpringSolver setMaxValue(float maxValue) {
+        mMaxValue = maxValue;
+        return this;
+    }
+
+    /**
+     * Starts the spring at {@param timeMs} from the given value and velocity, pulling towards
+     * {@param finalPosition}.
+     */
+    public void start(float timeMs, float startValue, float startVelocity, float finalPosition) {
+        mStartTime = timeMs;
+        mFinalPosition = finalPosition;
+        setCoefficients(startValue - finalPosition, startVelocity);
+        updateClampTime();
+    }
+
+    /**
+     * Changes the final position at {@param timeMs}, keeping the current value and velocity so
+     * that the motion stays continuous.
+     */
+    public void setFinalPosition(float timeMs, float finalPosition) {
+        if (finalPosition == mFinalPosition) {
+            return;
+        }
+        double value = getValue(timeMs);
+        double velocity = getVelocity(timeMs);
+        mStartTime = timeMs;
+        mFinalPosition = finalPosition;
+        setCoefficients(value - finalPosition, velocity);
+        updateClampTime();
+    }
+
+    public float getFinalPosition() {
+        return (float) mFinalPosition;
+    }
+
+    public float getValue(float timeMs) {
+        return (float) Math.min(mFinalPosition + getDisplacement(timeMs), mMaxValue);
+    }
+
+    /**
+     * Returns the velocity in units per second.
+     */
+    public float getVelocity(float timeMs) {
+        if (timeMs >= mClampTime) {
+            return isPinned() ? 0
+                    : (float) computeVelocity(mClampC1, mClampC2, timeMs - mClampTime);
+        }
+        return (float) computeVelocity(mC1, mC2, Math.max(0, timeMs - mStartTime));
+    }
+
+    /**
+     * Returns whether the spring has come to rest at {@param timeMs}, using the same thresholds
+     * as {@code SpringForce#isAtEquilibrium}.
+     */
+    public boolean isAtEquilibrium(float timeMs) {
+        return Math.abs(getVelocity(timeMs)) < mVelocityThreshold
+                && Math.abs(getDisplacement(timeMs)) < mValueThreshold;
+    }
+
+    private double getDisplacement(float timeMs) {
+        if (timeMs >= mClampTime) {
+            return isPinned() ? mMaxValue - mFinalPosition
+                    : computeDisplacement(mClampC1, mClampC2, timeMs - mClampTime);
+        }
+        return computeDisplacement(mC1, mC2, Math.max(0, timeMs - mStartTime));
+    }
+
+    /**
+     * Returns whether the spring stays at the max value once it reaches it, because the final
+     * position is past it.
+     */
+    private boolean isPinned() {
+        return mMaxValue < mFinalPosition;
+    }
+
+    /**
+     * Returns a time at which the spring is guaranteed to be at equilibrium, computed from the
+     * decay envelope of the displacement and velocity.
+     */
+    public float getSettleTimeMs() {
+        if (mClampTime != Double.POSITIVE_INFINITY) {
+            if (isPinned()) {
+                return mMaxValue - mFinalPosition > -mValueThreshold
+                        ? (float) mClampTime : Float.POSITIVE_INFINITY;
+            }
+            return (float) (mClampTime + getSettleDurationMs(mClampC1, mClampC2));
+        }
+        return (float) (mStartTime + getSettleDurationMs(mC1, mC2));
+    }
+
+    /**
+     * Returns how long after its start a spring with the coefficients {@param c1} and
+     * {@param c2} is guaranteed to be at equilibrium.
+     */
+    private double getSettleDurationMs(double c1, double c2) {
+        double w0 = mNaturalFreq;
+        double zeta = mDampingRatio;
+        double valueAmplitude;
+        double velocityAmplitude;
+        double decayRate;
+        if (zeta > 1) {
+            double root = w0 * Math.sqrt(zeta * zeta - 1);
+            double gammaPlus = -zeta * w0 + root;
+            double gammaMinus = -zeta * w0 - root;
+            valueAmplitude = Math.abs(c1) + Math.abs(c2);
+            velocityAmplitude = Math.abs(c1 * gammaMinus) + Math.abs(c2 * gammaPlus);
+            decayRate = -gammaPlus;
+        } else if (zeta == 1) {
+            // t * e^(-w0 * t) <= 2 / (e * w0) * e^(-w0 * t / 2)
+            double bound = 2 / (Math.E * w0);
+            valueAmplitude = Math.abs(c1) + Math.abs(c2) * bound;
+            velocityAmplitude = Math.abs(c2) + w0 * valueAmplitude;
+            decayRate = w0 / 2;
+        } else {
+            valueAmplitude = Math.hypot(c1, c2);
+            velocityAmplitude = valueAmplitude * w0;
+            decayRate = zeta * w0;
+        }
+        if (decayRate <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double t = Math.max(
+                Math.log(valueAmplitude / mValueThreshold),
+                Math.log(velocityAmplitude / mVelocityThreshold)) / decayRate;
+        return Math.max(0, t) * 1000;
+    }
+
+    /**
+     * Solves for the coefficients of the displacement from the final position, given the
+     * displacement and velocity at the start time:
+     *  - over damped:     x(t) = c1 * e^(gammaMinus * t) + c2 * e^(gammaPlus * t)
+     *  - critical damped: x(t) = (c1 + c2 * t) * e^(-w0 * t)
+     *  - under damped:    x(t) = e^(-zeta * w0 * t) * (c1 * cos(wd * t) + c2 * sin(wd * t))
+     */
+    private void setCoefficients(double displacement, double velocity) {
+        mC2 = computeC2(displacement, velocity);
+        mC1 = mDampingRatio > 1 ? displacement - mC2 : displacement;
+    }
+
+    private double computeC2(double displacement, double velocity) {
+        double w0 = mNaturalFreq;
+        double zeta = mDampingRatio;
+        if (zeta > 1) {
+            double root = w0 * Math.sqrt(zeta * zeta - 1);
+            double gammaPlus = -zeta * w0 + root;
+            double gammaMinus = -zeta * w0 - root;
+            return (gammaMinus * displacement - velocity) / (gammaMinus - gammaPlus);
+        } else if (zeta == 1) {
+            return velocity + w0 * displacement;
+        } else {
+            double dampedFreq = w0 * Math.sqrt(1 - zeta * zeta);
+            return (zeta * w0 * displacement + velocity) / dampedFreq;
+        }
+    }
+
+    /**
+     * Finds when the value first reaches the max value, and the coefficients of the spring
+     * restarted at rest from there.
+     */
+    private void updateClampTime() {
+        mClampTime = Double.POSITIVE_INFINITY;
+        if (mMaxValue == Float.MAX_VALUE) {
+            return;
+        }
+        double limit = mMaxValue - mFinalPosition;
+        double crossingMs = findFirstCrossing(limit);
+        if (Double.isNaN(crossingMs)) {
+            return;
+        }
+        mClampTime = mStartTime + crossingMs;
+        if (!isPinned()) {
+            mClampC2 = computeC2(limit, 0);
+            mClampC1 = mDampingRatio > 1 ? limit - mClampC2 : limit;
+        }
+    }
+
+    /**
+     * Returns the first time after the start, in milliseconds, at which the displacement reaches
+     * {@param limit}, or NaN if it never does.
+     */
+    private double findFirstCrossing(double limit) {
+        if (computeDisplacement(mC1, mC2, 0) >= limit) {
+            return 0;
+        }
+        // The displacement can only reach the limit while rising, from the start or a minimum to
+        // the next maximum. Each maximum is lower than the previous one, so only the first
+        // rising interval needs to be searched.
+        double riseStartMs = 0;
+        double riseEndMs = getNextExtremumMs(0);
+        if (riseEndMs != Double.POSITIVE_INFINITY && computeDisplacement(mC1, mC2, riseEndMs)
+                < computeDisplacement(mC1, mC2, 0)) {
+            riseStartMs = riseEndMs;
+            riseEndMs = getNextExtremumMs(riseStartMs);
+        }
+        if (riseEndMs == Double.POSITIVE_INFINITY) {
+            // Without a maximum, the displacement tends towards 0 without reaching it.
+            if (limit >= 0 || computeDisplacement(mC1, mC2, riseStartMs) >= 0) {
+                return Double.NaN;
+            }
+            riseEndMs = riseStartMs + 1;
+            while (computeDisplacement(mC1, mC2, riseEndMs) < limit) {
+                riseEndMs = riseStartMs + (riseEndMs - riseStartMs) * 2;
+            }
+        } else if (computeDisplacement(mC1, mC2, riseEndMs) < limit) {
+            return Double.NaN;
+        }
+        // The displacement is increasing over the interval, so bisect it down to a microsecond.
+        while (riseEndMs - riseStartMs > 0.001) {
+            double midMs = (riseStartMs + riseEndMs) / 2;
+            if (computeDisplacement(mC1, mC2, midMs) < limit) {
+                riseStartMs = midMs;
+            } else {
+                riseEndMs = midMs;
+            }
+        }
+        return riseEndMs;
+    }
+
+    /**
+     * Returns the first time after {@param afterMs}, relative to the start, at which the velocity
+     * is 0, or infinity if there is none.
+     */
+    private double getNextExtremumMs(double afterMs) {
+        double after = afterMs / 1000;
+        double w0 = mNaturalFreq;
+        double zeta = mDampingRatio;
+        double t;
+        if (zeta > 1) {
+            double root = w0 * Math.sqrt(zeta * zeta - 1);
+            double gammaPlus = -zeta * w0 + root;
+            double gammaMinus = -zeta * w0 - root;
+            double ratio = -mC2 * gammaPlus / (mC1 * gammaMinus);
+            t = ratio > 0 ? Math.log(ratio) / (gammaMinus - gammaPlus) : Double.NaN;
+        } else if (zeta == 1) {
+            t = (mC2 - w0 * mC1) / (w0 * mC2);
+        } else {
+            // The velocity is proportional to p * cos(wd * t) - q * sin(wd * t).
+            double dampedFreq = w0 * Math.sqrt(1 - zeta * zeta);
+            double p = mC2 * dampedFreq - zeta * w0 * mC1;
+            double q = mC1 * dampedFreq + zeta * w0 * mC2;
+            if (p == 0 && q == 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double halfPeriod = Math.PI / dampedFreq;
+            double first = Math.atan2(p, q) / dampedFreq;
+            t = first + (Math.floor((after - first) / halfPeriod) + 1) * halfPeriod;
+        }
+        return t > after ? t * 1000 : Double.POSITIVE_INFINITY;
+    }
+
+    private double computeDisplacement(double c1, double c2, double deltaMs) {
+        double t = deltaMs / 1000;
+        double w0 = mNaturalFreq;
+        double zeta = mDampingRatio;
+        if (zeta > 1) {
+            double root = w0 * Math.sqrt(zeta * zeta - 1);
+            return c1 * Math.exp((-zeta * w0 - root) * t)
+                    + c2 * Math.exp((-zeta * w0 + root) * t);
+        } else if (zeta == 1) {
+            return (c1 + c2 * t) * Math.exp(-w0 * t);
+        } else {
+            double dampedFreq = w0 * Math.sqrt(1 - zeta * zeta);
+            return Math.exp(-zeta * w0 * t)
+                    * (c1 * Math.cos(dampedFreq * t) + c2 * Math.sin(dampedFreq * t));
+        }
+    }
+
+    private double computeVelocity(double c1, double c2, double deltaMs) {
+        double t = deltaMs / 1000;
+        double w0 = mNaturalFreq;
+        double zeta = mDampingRatio;
+        if (zeta > 1) {
+            double root = w0 * Math.sqrt(zeta * zeta - 1);
+            double gammaPlus = -zeta * w0 + root;
+            double gammaMinus = -zeta * w0 - root;
+            return c1 * gammaMinus * Math.exp(gammaMinus * t)
+                    + c2 * gammaPlus * Math.exp(gammaPlus * t);
+        } else if (zeta == 1) {
+            return (c2 - w0 * (c1 + c2 * t)) * Math.exp(-w0 * t);
+        } else {
+            double dampedFreq = w0 * Math.sqrt(1 - zeta * zeta);
+            double cos = Math.cos(dampedFreq * t);
+            double sin = Math.sin(dampedFreq * t);
+            return Math.exp(-zeta * w0 * t)
+                    * ((c2 * dampedFreq - zeta * w0 * c1) * cos
+                    - (c1 * dampedFreq + zeta * w0 * c2) * sin);
+        }
+    }
+}
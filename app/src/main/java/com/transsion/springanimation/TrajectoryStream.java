@@ -0,0 +1,159 @@
+package com.transsion.springanimation;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Computes the trajectory of a {@link RectFSpringSolver} ahead of time on an {@link Executor},
+ * into a {@link FrameRingBuffer} read by the main thread. Like {@link BakedTrajectory}, frames
+ * are sampled at a fixed interval and interpolated, but they are streamed while the animation
+ * runs rather than all computed before it starts.
+ *
+ * The producer runs until the buffer is full and is scheduled again by the consumer once half of
+ * it has been read, so that it never blocks a thread of the executor.
+ */
+public class TrajectoryStream {
+
+    public static final int STRIDE = FrameRingBuffer.STRIDE;
+
+    private static final int CAPACITY = 64;
+    // Upper bound on the length of a trajectory, in case the spring never comes to rest.
+    private static final float MAX_DURATION_MS = 10_000;
+
+    private final FrameRingBuffer mBuffer = new FrameRingBuffer(CAPACITY);
+    private final AtomicBoolean mProducerScheduled = new AtomicBoolean();
+    private final Runnable mProducer = this::produce;
+    private volatile boolean mProducerDone;
+    private volatile boolean mCanceled;
+
+    private Executor mExecutor;
+    private float mFrameIntervalMs;
+
+    // Only used by the producer once started. Successive runs of the producer are ordered by
+    // mProducerScheduled, the first one by Executor#execute.
+    private final RectFSpringSolver mSolver;
+    private final float[] mProducerFrame = new float[STRIDE];
+    private int mProducedCount;
+
+    // Consumer side: the last two frames read, and the index of the latest one.
+    private final float[] mFromFrame = new float[STRIDE];
+    private final float[] mToFrame = new float[STRIDE];
+    private int mToIndex;
+
+    public TrajectoryStream(float minVisChange, float yOvershoot) {
+        mSolver = new RectFSpringSolver(minVisChange, yOvershoot);
+    }
+
+    /**
+     * Returns whether no producer is running or scheduled, so that the stream can be started.
+     */
+    public boolean isIdle() {
+        return !mProducerScheduled.get();
+    }
+
+    /**
+     * Starts computing the trajectory on {@param executor}, sampled every
+     * {@param frameIntervalMs}, with the same arguments as {@link RectFSpringSolver}. Must only
+     * be called when {@link #isIdle()}.
+     */
+    public void start(Executor executor, float frameIntervalMs, float startLeft, float startTop,
+            float startRight, float startBottom, float targetLeft, float targetTop,
+            float targetRight, float targetBottom, float velocityXPxPerMs,
+            float velocityYPxPerMs) {
+        if (!isIdle()) {
+            throw new IllegalStateException("Stream is still producing");
+        }
+        if (frameIntervalMs <= 0) {
+            throw new IllegalArgumentException("Frame interval must be positive");
+        }
+        mExecutor = executor;
+        mFrameIntervalMs = frameIntervalMs;
+        mSolver.setRects(startLeft, startTop, startRight, startBottom,
+                targetLeft, targetTop, targetRight, targetBottom);
+        mSolver.start(velocityXPxPerMs, velocityYPxPerMs);
+        mBuffer.clear();
+        mCanceled = false;
+
+        // The first frame is computed right away, so that there is always a frame to show.
+        mProducerDone = computeFrame(0, mToFrame);
+        mProducedCount = 1;
+        mToIndex = 0;
+        scheduleProducer();
+    }
+
+    /**
+     * Stops computing frames. The stream is idle once the producer has noticed.
+     */
+    public void cancel() {
+        mCanceled = true;
+    }
+
+    /**
+     * Consumer side: writes the frame at {@param timeMs} into {@param out}, interpolated between
+     * the two closest computed frames. If the frame has not been computed yet, the latest one is
+     * written instead.
+     *
+     * @return Whether {@param timeMs} is at or past the end of the trajectory.
+     */
+    public boolean getFrame(float timeMs, float[] out) {
+        float position = Math.max(0, timeMs / mFrameIntervalMs);
+        int index = (int) Math.ceil(position);
+        while (mToIndex < index && !mBuffer.isEmpty()) {
+            System.arraycopy(mToFrame, 0, mFromFrame, 0, STRIDE);
+            mBuffer.poll(mToFrame, 0);
+            mToIndex++;
+        }
+        if (mBuffer.getRemainingCapacity() >= CAPACITY / 2) {
+            scheduleProducer();
+        }
+
+        // The producer is done once the last frame was offered, so if it is done and the buffer
+        // is empty, the last frame read is the final one.
+        boolean atEnd = mProducerDone && mBuffer.isEmpty();
+        if (mToIndex < index || index == 0) {
+            System.arraycopy(mToFrame, 0, out, 0, STRIDE);
+            return atEnd;
+        }
+        float fraction = position - (mToIndex - 1);
+        for (int i = 0; i < STRIDE; i++) {
+            out[i] = mFromFrame[i] + fraction * (mToFrame[i] - mFromFrame[i]);
+        }
+        return atEnd && fraction >= 1;
+    }
+
+    /**
+     * Computes the frame at {@param timeMs} into {@param out}.
+     *
+     * @return Whether it is the last frame of the trajectory.
+     */
+    private boolean computeFrame(float timeMs, float[] out) {
+        boolean atRest = mSolver.compute(timeMs) || timeMs >= MAX_DURATION_MS;
+        if (atRest) {
+            mSolver.computeEnd();
+        }
+        mSolver.getFrame(out, 0);
+        return atRest;
+    }
+
+    private void scheduleProducer() {
+        if (!mProducerDone && !mCanceled && mProducerScheduled.compareAndSet(false, true)) {
+            mExecutor.execute(mProducer);
+        }
+    }
+
+    private void produce() {
+        while (!mCanceled && mBuffer.getRemainingCapacity() > 0) {
+            boolean atRest = computeFrame(mProducedCount * mFrameIntervalMs, mProducerFrame);
+            mBuffer.offer(mProducerFrame, 0);
+            mProducedCount++;
+            if (atRest) {
+                mProducerDone = true;
+                break;
+            }
+        }
+        // Nothing may be touched once this is cleared, as the stream can then be started again
+        // from the main thread. Frames read meanwhile are caught up by the next #getFrame,
+        // which schedules the producer on every frame while half of the buffer is free.
+        mProducerScheduled.set(false);
+    }
+}
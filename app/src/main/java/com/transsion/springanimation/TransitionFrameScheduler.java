@@ -0,0 +1,125 @@
+package com.transsion.springanimation;
+
+import android.view.Choreographer;
+
+/**
+ * Drives all the animations of a transition from a single frame callback. On every frame, each
+ * running {@link FrameClient} is first stepped, in the order they were added, then all of them
+ * commit their new state, e.g. to views, in the same order. A commit therefore always sees every
+ * animation of the transition at the same frame.
+ *
+ * Must be used from the main thread.
+ */
+public class TransitionFrameScheduler {
+
+    // Clients come and go on every transition, so their snapshots are released after each frame,
+    // see SnapshotList#releaseSnapshots. Enough for a few clients starting and stopping at once.
+    private final SnapshotList<FrameClient> mClients = new SnapshotList<>(4);
+    private final Choreographer.FrameCallback mFrameCallback = this::doFrame;
+    private boolean mFrameCallbackPosted;
+    // Whether each client of the current snapshot is still running after stepping.
+    private boolean[] mRunning = new boolean[4];
+    // Whether each client of the current snapshot was added during the frame, e.g. restarted from
+    // a commit, in which case it is kept even if it stopped running when stepped.
+    private boolean[] mAddedDuringFrame = new boolean[4];
+    // Clients of the frame being run, or null outside of a frame.
+    private Object[] mFrameClients;
+
+    /**
+     * Adds {@param client} to be stepped from the next frame until it is removed or stops
+     * running. Has no effect if it was already added, except during a frame, where it keeps the
+     * client even if it stopped running on that frame.
+     */
+    public void add(FrameClient client) {
+        Object[] frameClients = mFrameClients;
+        if (frameClients != null) {
+            for (int i = 0; i < frameClients.length; i++) {
+                if (frameClients[i] == client) {
+                    mAddedDuringFrame[i] = true;
+                }
+            }
+        }
+        Object[] clients = mClients.getSnapshot();
+        for (int i = 0; i < clients.length; i++) {
+            if (clients[i] == client) {
+                return;
+            }
+        }
+        mClients.add(client);
+        if (!mFrameCallbackPosted) {
+            mFrameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * Removes {@param client}. If called during a frame, it is still committed for that frame if
+     * it was already stepped.
+     */
+    public void remove(FrameClient client) {
+        mClients.remove(client);
+    }
+
+    public boolean isRunning() {
+        return !mClients.isEmpty();
+    }
+
+    /**
+     * Steps and then commits every client at {@param frameTimeNanos}. Called by the frame
+     * callback, and can be called directly to drive the clients manually.
+     */
+    public void doFrame(long frameTimeNanos) {
+        // Set if this frame is run from a client of another one, which still uses its snapshot.
+        Object[] outerFrameClients = mFrameClients;
+        mFrameCallbackPosted = false;
+        Object[] clients = mClients.getSnapshot();
+        int count = clients.length;
+        if (mRunning.length < count) {
+            mRunning = new boolean[Math.max(count, mRunning.length * 2)];
+            mAddedDuringFrame = new boolean[mRunning.length];
+        }
+        boolean[] running = mRunning;
+        boolean[] addedDuringFrame = mAddedDuringFrame;
+        for (int i = 0; i < count; i++) {
+            addedDuringFrame[i] = false;
+        }
+        mFrameClients = clients;
+        for (int i = 0; i < count; i++) {
+            running[i] = ((FrameClient) clients[i]).onStep(frameTimeNanos);
+        }
+        for (int i = 0; i < count; i++) {
+            ((FrameClient) clients[i]).onCommit(frameTimeNanos);
+        }
+        mFrameClients = outerFrameClients;
+        for (int i = 0; i < count; i++) {
+            if (!running[i] && !addedDuringFrame[i]) {
+                mClients.remove((FrameClient) clients[i]);
+            }
+        }
+        if (outerFrameClients == null) {
+            mClients.releaseSnapshots();
+        }
+        if (!mClients.isEmpty() && !mFrameCallbackPosted) {
+            mFrameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * An animation driven by a {@link TransitionFrameScheduler}.
+     */
+    public interface FrameClient {
+        /**
+         * Advances the animation to {@param frameTimeNanos}, without applying it yet.
+         *
+         * @return Whether the animation is still running after this frame.
+         */
+        boolean onStep(long frameTimeNanos);
+
+        /**
+         * Applies the state of the animation at {@param frameTimeNanos}, once every client has
+         * stepped.
+         */
+        void onCommit(long frameTimeNanos);
+    }
+}
@@ -0,0 +1,30 @@
+package com.transsion.springanimation;
+
+/**
+ * Receives timing information about the frames of a transition, see
+ * {@link RectFSpringAnim#setMetrics} and {@link FloatingIconView#setMetrics}. Called on the main
+ * thread with {@link System#nanoTime()} timestamps, so implementations must be cheap and should
+ * not allocate.
+ */
+public interface TransitionMetrics {
+
+    void onTransitionStart(long startTimeNanos);
+
+    /**
+     * Called after the listeners have been notified of a new frame.
+     *
+     * @param frameTimeNanos The vsync time of the frame being dispatched, or -1 if the update
+     *                       did not happen during a frame, e.g. when ending the transition.
+     * @param updateStartNanos When the animation started stepping this frame, or started
+     *                         computing the rect if the update did not happen during a frame.
+     * @param dispatchEndNanos When all the listeners had been notified.
+     */
+    void onFrameDispatched(long frameTimeNanos, long updateStartNanos, long dispatchEndNanos);
+
+    /**
+     * Called after the floating icon of the transition has been drawn.
+     */
+    void onIconDrawn(long drawStartNanos, long drawEndNanos);
+
+    void onTransitionEnd(long endTimeNanos, boolean canceled);
+}
@@ -0,0 +1,268 @@
+package com.transsion.springanimation;
+
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransitionMetrics} that accumulates every transition it is attached to into fixed
+ * histograms, allocated up front so that recording never allocates. The histograms can be read
+ * bucket by bucket to be forwarded to telemetry, or printed with {@link #dump}.
+ *
+ * Not thread safe, like the animations it records it must be used from the main thread.
+ */
+public class TransitionMetricsRecorder implements TransitionMetrics {
+
+    private static final long US = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long[] UPDATE_COST_BOUNDS_NANOS = {
+            10 * US, 20 * US, 50 * US, 100 * US, 200 * US, 500 * US, 1 * MS, 2 * MS, 4 * MS,
+            8 * MS, 16 * MS};
+    private static final long[] VSYNC_TO_DISPATCH_BOUNDS_NANOS = {
+            500 * US, 1 * MS, 2 * MS, 4 * MS, 8 * MS, 12 * MS, 16 * MS, 24 * MS, 32 * MS, 64 * MS};
+    private static final long[] SETTLE_TIME_BOUNDS_NANOS = {
+            100 * MS, 200 * MS, 300 * MS, 400 * MS, 500 * MS, 600 * MS, 800 * MS, 1000 * MS,
+            1500 * MS, 2000 * MS, 3000 * MS};
+    private static final long[] MISSED_FRAMES_BOUNDS = {0, 1, 2, 3, 5, 8, 13, 21};
+
+    // A frame counts as missed once the gap between two frames exceeds this many intervals.
+    private static final float MISSED_FRAME_THRESHOLD = 1.5f;
+
+    private final long mFrameIntervalNanos;
+
+    private final Histogram mUpdateCost = new Histogram(UPDATE_COST_BOUNDS_NANOS);
+    private final Histogram mDrawCost = new Histogram(UPDATE_COST_BOUNDS_NANOS);
+    private final Histogram mVsyncToDispatch = new Histogram(VSYNC_TO_DISPATCH_BOUNDS_NANOS);
+    private final Histogram mSettleTime = new Histogram(SETTLE_TIME_BOUNDS_NANOS);
+    // Number of frames missed per transition.
+    private final Histogram mMissedFrames = new Histogram(MISSED_FRAMES_BOUNDS);
+
+    private int mTransitionCount;
+    private int mCanceledCount;
+    private long mFrameCount;
+    private long mMissedFrameCount;
+
+    private long mStartTimeNanos = -1;
+    private long mLastFrameTimeNanos = -1;
+    private int mTransitionMissedFrames;
+
+    /**
+     * @param refreshRate The refresh rate of the display, used to detect missed frames.
+     */
+    public TransitionMetricsRecorder(float refreshRate) {
+        mFrameIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refreshRate);
+    }
+
+    @Override
+    public void onTransitionStart(long startTimeNanos) {
+        mStartTimeNanos = startTimeNanos;
+        mLastFrameTimeNanos = -1;
+        mTransitionMissedFrames = 0;
+    }
+
+    @Override
+    public void onFrameDispatched(long frameTimeNanos, long updateStartNanos,
+            long dispatchEndNanos) {
+        mFrameCount++;
+        mUpdateCost.record(dispatchEndNanos - updateStartNanos);
+        if (frameTimeNanos < 0) {
+            return;
+        }
+        mVsyncToDispatch.record(dispatchEndNanos - frameTimeNanos);
+        if (mLastFrameTimeNanos >= 0) {
+            long gap = frameTimeNanos - mLastFrameTimeNanos;
+            if (gap > mFrameIntervalNanos * MISSED_FRAME_THRESHOLD) {
+                int missed = (int) ((gap + mFrameIntervalNanos / 2) / mFrameIntervalNanos) - 1;
+                mTransitionMissedFrames += missed;
+                mMissedFrameCount += missed;
+            }
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+    }
+
+    @Override
+    public void onIconDrawn(long drawStartNanos, long drawEndNanos) {
+        mDrawCost.record(drawEndNanos - drawStartNanos);
+    }
+
+    @Override
+    public void onTransitionEnd(long endTimeNanos, boolean canceled) {
+        if (mStartTimeNanos < 0) {
+            return;
+        }
+        mTransitionCount++;
+        if (canceled) {
+            mCanceledCount++;
+        } else {
+            mSettleTime.record(endTimeNanos - mStartTimeNanos);
+        }
+        mMissedFrames.record(mTransitionMissedFrames);
+        mStartTimeNanos = -1;
+    }
+
+    /** Time to step a frame and notify every update listener of it, in nanoseconds. */
+    public Histogram getUpdateCost() {
+        return mUpdateCost;
+    }
+
+    /** Time to draw the floating icon, in nanoseconds. */
+    public Histogram getDrawCost() {
+        return mDrawCost;
+    }
+
+    /** Time from the vsync of a frame to the end of its dispatch, in nanoseconds. */
+    public Histogram getVsyncToDispatch() {
+        return mVsyncToDispatch;
+    }
+
+    /** Time from start to end of the transitions that were not canceled, in nanoseconds. */
+    public Histogram getSettleTime() {
+        return mSettleTime;
+    }
+
+    /** Number of frames missed during each transition. */
+    public Histogram getMissedFrames() {
+        return mMissedFrames;
+    }
+
+    public int getTransitionCount() {
+        return mTransitionCount;
+    }
+
+    public int getCanceledCount() {
+        return mCanceledCount;
+    }
+
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    public long getMissedFrameCount() {
+        return mMissedFrameCount;
+    }
+
+    public void reset() {
+        mUpdateCost.reset();
+        mDrawCost.reset();
+        mVsyncToDispatch.reset();
+        mSettleTime.reset();
+        mMissedFrames.reset();
+        mTransitionCount = mCanceledCount = 0;
+        mFrameCount = mMissedFrameCount = 0;
+    }
+
+    public void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "TransitionMetrics:");
+        writer.println(prefix + "  transitions=" + mTransitionCount + " canceled=" + mCanceledCount
+                + " frames=" + mFrameCount + " missedFrames=" + mMissedFrameCount);
+        mUpdateCost.dump(prefix + "  updateCostNs", writer);
+        mDrawCost.dump(prefix + "  drawCostNs", writer);
+        mVsyncToDispatch.dump(prefix + "  vsyncToDispatchNs", writer);
+        mSettleTime.dump(prefix + "  settleTimeNs", writer);
+        mMissedFrames.dump(prefix + "  missedFramesPerTransition", writer);
+    }
+
+    /**
+     * Histogram with fixed buckets: bucket i counts the values <= bound i and greater than the
+     * previous bound, and a last bucket counts the values above every bound.
+     */
+    public static final class Histogram {
+
+        private final long[] mUpperBounds;
+        private final long[] mCounts;
+        private long mCount;
+        private long mSum;
+        private long mMax;
+
+        public Histogram(long[] upperBounds) {
+            mUpperBounds = upperBounds.clone();
+            mCounts = new long[upperBounds.length + 1];
+        }
+
+        public void record(long value) {
+            int i = 0;
+            while (i < mUpperBounds.length && value > mUpperBounds[i]) {
+                i++;
+            }
+            mCounts[i]++;
+            mCount++;
+            mSum += value;
+            if (value > mMax) {
+                mMax = value;
+            }
+        }
+
+        public void reset() {
+            for (int i = 0; i < mCounts.length; i++) {
+                mCounts[i] = 0;
+            }
+            mCount = mSum = mMax = 0;
+        }
+
+        public int getBucketCount() {
+            return mCounts.length;
+        }
+
+        /**
+         * Returns the upper bound of bucket {@param index}, or {@link Long#MAX_VALUE} for the
+         * last bucket.
+         */
+        public long getBucketUpperBound(int index) {
+            return index < mUpperBounds.length ? mUpperBounds[index] : Long.MAX_VALUE;
+        }
+
+        public long getBucketValue(int index) {
+            return mCounts[index];
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getSum() {
+            return mSum;
+        }
+
+        public long getMax() {
+            return mMax;
+        }
+
+        /**
+         * Returns the upper bound of the bucket containing the given percentile of the values,
+         * or 0 if nothing was recorded.
+         */
+        public long getPercentileUpperBound(float percentile) {
+            if (mCount == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(mCount * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < mCounts.length; i++) {
+                seen += mCounts[i];
+                if (seen >= rank) {
+                    return i < mUpperBounds.length ? mUpperBounds[i] : mMax;
+                }
+            }
+            return mMax;
+        }
+
+        void dump(String prefix, PrintWriter writer) {
+            StringBuilder sb = new StringBuilder(prefix)
+                    .append(": count=").append(mCount)
+                    .append(" avg=").append(mCount == 0 ? 0 : mSum / mCount)
+                    .append(" max=").append(mMax)
+                    .append(" p50=").append(getPercentileUpperBound(50))
+                    .append(" p90=").append(getPercentileUpperBound(90))
+                    .append(" p99=").append(getPercentileUpperBound(99))
+                    .append(" buckets=[");
+            for (int i = 0; i < mCounts.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(i < mUpperBounds.length ? "<=" + mUpperBounds[i] : "more")
+                        .append(':').append(mCounts[i]);
+            }
+            writer.println(sb.append(']'));
+        }
+    }
+}
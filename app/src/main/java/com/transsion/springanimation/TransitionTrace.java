@@ -0,0 +1,66 @@
+package com.transsion.springanimation;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Opt-in trace sections and counters for the transition pipeline, shown in systrace and Perfetto
+ * captures under the app's own track. Disabled by default, in which case each hook costs a
+ * single field read.
+ *
+ * Callers check {@link #isEnabled()} once and pass the result to the matching end of a section,
+ * so that sections stay balanced if tracing is toggled in between:
+ * <pre>
+ *     boolean trace = TransitionTrace.isEnabled();
+ *     if (trace) TransitionTrace.beginSection("...");
+ *     ...
+ *     if (trace) TransitionTrace.endSection();
+ * </pre>
+ */
+public final class TransitionTrace {
+
+    private static volatile boolean sEnabled;
+
+    private TransitionTrace() { }
+
+    /**
+     * Sets whether the transitions emit trace sections and counters. Even when enabled, nothing
+     * is emitted unless a trace is being captured, from Android Q on where this can be checked.
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * Returns whether sections and counters should be emitted right now.
+     */
+    public static boolean isEnabled() {
+        return sEnabled
+                && (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q || Trace.isEnabled());
+    }
+
+    /**
+     * Begins a section named {@param name}, which must be a constant so that tracing doesn't
+     * allocate. Only call when {@link #isEnabled()}.
+     */
+    public static void beginSection(String name) {
+        Trace.beginSection(name);
+    }
+
+    /**
+     * Ends the section most recently begun on this thread.
+     */
+    public static void endSection() {
+        Trace.endSection();
+    }
+
+    /**
+     * Sets the counter track {@param name} to {@param value}. Only available from Android Q,
+     * ignored on earlier versions. Only call when {@link #isEnabled()}.
+     */
+    public static void setCounter(String name, long value) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.setCounter(name, value);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.transsion.springanimation;
+
+/**
+ * Closed-form solution of a 2D damped spring, equivalent to one {@link SpringSolver} per axis
+ * with the same stiffness and damping ratio. Both axes share the same time-dependent terms, so
+ * they are computed once per {@link #compute(float)} for the whole vector.
+ *
+ * Times are in milliseconds and velocities are in units per second, as in {@link SpringSolver}.
+ */
+public class Vector2SpringSolver {
+
+    private final double mNaturalFreq;
+    private final double mDampingRatio;
+    // Roots of the characteristic equation when over damped, and frequency when under damped.
+    private final double mGammaPlus;
+    private final double mGammaMinus;
+    private final double mDampedFreq;
+
+    private double mValueThreshold;
+    private double mVelocityThreshold;
+
+    private double mStartTime;
+    private float mFinalX;
+    private float mFinalY;
+    // Coefficients of the displacement from the final position of each axis, see
+    // SpringSolver#setCoefficients.
+    private double mC1X;
+    private double mC2X;
+    private double mC1Y;
+    private double mC2Y;
+
+    // Results of the last #compute.
+    private float mX;
+    private float mY;
+    private float mVelocityX;
+    private float mVelocityY;
+
+    // Time-dependent terms of the last #evaluate, shared by both axes: the displacement is
+    // c1 * mValueTerm1 + c2 * mValueTerm2, and the velocity likewise with the velocity terms.
+    private double mValueTerm1;
+    private double mValueTerm2;
+    private double mVelocityTerm1;
+    private double mVelocityTerm2;
+
+    public Vector2SpringSolver(float stiffness, float dampingRatio) {
+        if (stiffness <= 0) {
+            throw new IllegalArgumentException("Spring stiffness constant must be positive.");
+        }
+        if (dampingRatio < 0) {
+            throw new IllegalArgumentException("Damping ratio must be non-negative");
+        }
+        double w0 = Math.sqrt(stiffness);
+        double zeta = dampingRatio;
+        mNaturalFreq = w0;
+        mDampingRatio = zeta;
+        double root = zeta > 1 ? w0 * Math.sqrt(zeta * zeta - 1) : 0;
+        mGammaPlus = -zeta * w0 + root;
+        mGammaMinus = -zeta * w0 - root;
+        mDampedFreq = zeta < 1 ? w0 * Math.sqrt(1 - zeta * zeta) : 0;
+        setMinimumVisibleChange(1f);
+    }
+
+    /**
+     * Sets the minimum visible change of both axes, see
+     * {@link SpringSolver#setMinimumVisibleChange}.
+     */
+    public Vector2SpringSolver setMinimumVisibleChange(float minVisibleChange) {
+        mValueThreshold = Math.abs(minVisibleChange) * SpringSolver.VALUE_THRESHOLD_MULTIPLIER;
+        mVelocityThreshold = mValueThreshold * SpringSolver.VELOCITY_THRESHOLD_MULTIPLIER;
+        return this;
+    }
+
+    /**
+     * Starts the spring at {@param timeMs} from the given position and velocity, pulling towards
+     * {@param finalX}, {@param finalY}.
+     */
+    public void start(float timeMs, float x, float y, float velocityX, float velocityY,
+            float finalX, float finalY) {
+        mStartTime = timeMs;
+        mFinalX = finalX;
+        mFinalY = finalY;
+        setCoefficients(x - finalX, velocityX, y - finalY, velocityY);
+        mX = x;
+        mY = y;
+        mVelocityX = velocityX;
+        mVelocityY = velocityY;
+    }
+
+    /**
+     * Changes the final position at {@param timeMs}, keeping the current position and velocity
+     * so that the motion stays continuous. Does nothing if the final position is unchanged.
+     */
+    public void setFinalPosition(float timeMs, float finalX, float finalY) {
+        if (finalX == mFinalX && finalY == mFinalY) {
+            return;
+        }
+        evaluate(timeMs);
+        double displacementX = mC1X * mValueTerm1 + mC2X * mValueTerm2;
+        double displacementY = mC1Y * mValueTerm1 + mC2Y * mValueTerm2;
+        double velocityX = mC1X * mVelocityTerm1 + mC2X * mVelocityTerm2;
+        double velocityY = mC1Y * mVelocityTerm1 + mC2Y * mVelocityTerm2;
+        double x = mFinalX + displacementX;
+        double y = mFinalY + displacementY;
+        mStartTime = timeMs;
+        mFinalX = finalX;
+        mFinalY = finalY;
+        setCoefficients(x - finalX, velocityX, y - finalY, velocityY);
+    }
+
+    public float getFinalX() {
+        return mFinalX;
+    }
+
+    public float getFinalY() {
+        return mFinalY;
+    }
+
+    /**
+     * Computes the position and velocity at {@param timeMs}, returned by the getters. Once at
+     * equilibrium, the position is the final position and the velocity is 0.
+     *
+     * @return Whether the spring is at equilibrium on both axes, with the same thresholds as
+     *         {@link SpringSolver#isAtEquilibrium}.
+     */
+    public boolean compute(float timeMs) {
+        evaluate(timeMs);
+        double displacementX = mC1X * mValueTerm1 + mC2X * mValueTerm2;
+        double displacementY = mC1Y * mValueTerm1 + mC2Y * mValueTerm2;
+        double velocityX = mC1X * mVelocityTerm1 + mC2X * mVelocityTerm2;
+        double velocityY = mC1Y * mVelocityTerm1 + mC2Y * mVelocityTerm2;
+        if (Math.abs(velocityX) < mVelocityThreshold && Math.abs(displacementX) < mValueThreshold
+                && Math.abs(velocityY) < mVelocityThreshold
+                && Math.abs(displacementY) < mValueThreshold) {
+            mX = mFinalX;
+            mY = mFinalY;
+            mVelocityX = mVelocityY = 0;
+            return true;
+        }
+        mX = (float) (mFinalX + displacementX);
+        mY = (float) (mFinalY + displacementY);
+        mVelocityX = (float) velocityX;
+        mVelocityY = (float) velocityY;
+        return false;
+    }
+
+    public float getX() {
+        return mX;
+    }
+
+    public float getY() {
+        return mY;
+    }
+
+    /**
+     * Returns the velocity of the x axis in units per second.
+     */
+    public float getVelocityX() {
+        return mVelocityX;
+    }
+
+    /**
+     * Returns the velocity of the y axis in units per second.
+     */
+    public float getVelocityY() {
+        return mVelocityY;
+    }
+
+    private void setCoefficients(double displacementX, double velocityX, double displacementY,
+            double velocityY) {
+        double w0 = mNaturalFreq;
+        double zeta = mDampingRatio;
+        if (zeta > 1) {
+            double gammaDiff = mGammaMinus - mGammaPlus;
+            mC2X = (mGammaMinus * displacementX - velocityX) / gammaDiff;
+            mC1X = displacementX - mC2X;
+            mC2Y = (mGammaMinus * displacementY - velocityY) / gammaDiff;
+            mC1Y = displacementY - mC2Y;
+        } else if (zeta == 1) {
+            mC1X = displacementX;
+            mC2X = velocityX + w0 * displacementX;
+            mC1Y = displacementY;
+            mC2Y = velocityY + w0 * displacementY;
+        } else {
+            mC1X = displacementX;
+            mC2X = (zeta * w0 * displacementX + velocityX) / mDampedFreq;
+            mC1Y = displacementY;
+            mC2Y = (zeta * w0 * displacementY + velocityY) / mDampedFreq;
+        }
+    }
+
+    /**
+     * Computes the time-dependent terms shared by both axes at {@param timeMs}.
+     */
+    private void evaluate(float timeMs) {
+        double t = Math.max(0, timeMs - mStartTime) / 1000;
+        double w0 = mNaturalFreq;
+        double zeta = mDampingRatio;
+        if (zeta > 1) {
+            double minus = Math.exp(mGammaMinus * t);
+            double plus = Math.exp(mGammaPlus * t);
+            mValueTerm1 = minus;
+            mValueTerm2 = plus;
+            mVelocityTerm1 = mGammaMinus * minus;
+            mVelocityTerm2 = mGammaPlus * plus;
+        } else if (zeta == 1) {
+            double decay = Math.exp(-w0 * t);
+            mValueTerm1 = decay;
+            mValueTerm2 = t * decay;
+            mVelocityTerm1 = -w0 * decay;
+            mVelocityTerm2 = (1 - w0 * t) * decay;
+        } else {
+            double decay = Math.exp(-zeta * w0 * t);
+            double cos = decay * Math.cos(mDampedFreq * t);
+            double sin = decay * Math.sin(mDampedFreq * t);
+            mValueTerm1 = cos;
+            mValueTerm2 = sin;
+            mVelocityTerm1 = -zeta * w0 * cos - mDampedFreq * sin;
+            mVelocityTerm2 = mDampedFreq * cos - zeta * w0 * sin;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.transsion.springanimation;
+
+/**
+ * Estimates the velocity of a gesture from a stream of position samples, with a least squares
+ * line fit over the most recent samples, similar to {@code VelocityTracker}. Samples are kept in
+ * a fixed ring buffer so that feeding it from every touch event does not allocate.
+ *
+ * Times are in milliseconds, in the same time base as {@code MotionEvent#getEventTime()}, and
+ * velocities are in pixels per millisecond as expected by {@link RectFSpringAnim#start}.
+ */
+public class VelocityEstimator {
+
+    private static final int MAX_SAMPLES = 20;
+    // Only samples this recent, relative to the last one, are used for the estimate.
+    private static final long HORIZON_MS = 100;
+    // Like VelocityTracker, assume the pointer stopped if it hasn't moved for this long.
+    private static final long ASSUME_STOPPED_MS = 40;
+
+    private final long[] mTimes = new long[MAX_SAMPLES];
+    private final float[] mX = new float[MAX_SAMPLES];
+    private final float[] mY = new float[MAX_SAMPLES];
+    // Index of the most recent sample.
+    private int mIndex = -1;
+    private int mCount;
+
+    private float mVelocityX;
+    private float mVelocityY;
+
+    public void addSample(long timeMs, float x, float y) {
+        mIndex = (mIndex + 1) % MAX_SAMPLES;
+        mTimes[mIndex] = timeMs;
+        mX[mIndex] = x;
+        mY[mIndex] = y;
+        mCount = Math.min(mCount + 1, MAX_SAMPLES);
+    }
+
+    public void clear() {
+        mIndex = -1;
+        mCount = 0;
+        mVelocityX = mVelocityY = 0;
+    }
+
+    /**
+     * Computes the velocity as of {@param nowMs}, which can then be read through
+     * {@link #getVelocityX()} and {@link #getVelocityY()}. The velocity is 0 if there are fewer
+     * than two recent samples.
+     */
+    public void computeVelocity(long nowMs) {
+        mVelocityX = mVelocityY = 0;
+        if (mCount < 2 || nowMs - mTimes[mIndex] > ASSUME_STOPPED_MS) {
+            return;
+        }
+        long lastTime = mTimes[mIndex];
+        int count = 0;
+        float sumT = 0;
+        float sumX = 0;
+        float sumY = 0;
+        for (int i = 0; i < mCount; i++) {
+            int index = (mIndex - i + MAX_SAMPLES) % MAX_SAMPLES;
+            float t = mTimes[index] - lastTime;
+            if (t < -HORIZON_MS) {
+                break;
+            }
+            sumT += t;
+            sumX += mX[index];
+            sumY += mY[index];
+            count++;
+        }
+        if (count < 2) {
+            return;
+        }
+        float meanT = sumT / count;
+        float meanX = sumX / count;
+        float meanY = sumY / count;
+        float varT = 0;
+        float covX = 0;
+        float covY = 0;
+        for (int i = 0; i < count; i++) {
+            int index = (mIndex - i + MAX_SAMPLES) % MAX_SAMPLES;
+            float dt = mTimes[index] - lastTime - meanT;
+            varT += dt * dt;
+            covX += dt * (mX[index] - meanX);
+            covY += dt * (mY[index] - meanY);
+        }
+        if (varT > 0) {
+            mVelocityX = covX / varT;
+            mVelocityY = covY / varT;
+        }
+    }
+
+    public float getVelocityX() {
+        return mVelocityX;
+    }
+
+    public float getVelocityY() {
+        return mVelocityY;
+    }
+}
@@ -0,0 +1,66 @@
+package com.transsion.springanimation;
+
+import org.junit.Assume;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that code run on every frame doesn't allocate once warmed up, measured with the
+ * allocation counter of the current thread. Shared by the allocation tests of the app and of the
+ * benchmark module, whose test sources include this file.
+ */
+final class AllocationCounter {
+
+    // Enough runs for the frame path to be compiled, and for anything lazily created to exist.
+    private static final int WARMUP_RUNS = 200;
+    // The smallest count of a few measurements is kept, in case something else ran on the thread.
+    private static final int MEASUREMENTS = 3;
+
+    private static com.sun.management.ThreadMXBean sThreads;
+    // Bytes allocated by reading the counter itself, which is not free on every JVM.
+    private static long sCounterBytes;
+
+    private AllocationCounter() { }
+
+    /**
+     * Skips the calling tests if the JVM can't count the allocations of a thread. Must be called
+     * before {@link #assertNoAllocation}, e.g. from a {@code @BeforeClass} method.
+     */
+    static void assumeSupported() {
+        if (sThreads != null) {
+            return;
+        }
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("Thread allocation counter not available",
+                threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        Assume.assumeTrue("Thread allocation counter not supported",
+                sunThreads.isThreadAllocatedMemorySupported());
+        sunThreads.setThreadAllocatedMemoryEnabled(true);
+        sThreads = sunThreads;
+        sCounterBytes = measure(() -> { });
+    }
+
+    /**
+     * Runs {@param run} until warmed up, then fails if a run allocates anything.
+     */
+    static void assertNoAllocation(Runnable run) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run.run();
+        }
+        long allocated = Long.MAX_VALUE;
+        for (int i = 0; i < MEASUREMENTS; i++) {
+            allocated = Math.min(allocated, measure(run) - sCounterBytes);
+        }
+        assertEquals("Bytes allocated on the frame path", 0, Math.max(0, allocated));
+    }
+
+    private static long measure(Runnable run) {
+        long threadId = Thread.currentThread().getId();
+        long before = sThreads.getThreadAllocatedBytes(threadId);
+        run.run();
+        return sThreads.getThreadAllocatedBytes(threadId) - before;
+    }
+}
@@ -0,0 +1,62 @@
+package com.transsion.springanimation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link BakedTrajectory}.
+ */
+public class BakedTrajectoryTest {
+
+    private static final float FRAME_INTERVAL_MS = 1000f / 60;
+    private static final int STRIDE = BakedTrajectory.STRIDE;
+
+    @Test
+    public void bake_matchesSolverAndEndsOnTarget() {
+        BakedTrajectory trajectory = BakedTrajectory.bake(newSolver(), FRAME_INTERVAL_MS);
+        float[] frames = trajectory.getFrames();
+        int frameCount = trajectory.getFrameCount();
+        assertEquals(frameCount * STRIDE, frames.length);
+
+        RectFSpringSolver solver = newSolver();
+        float[] expected = new float[STRIDE];
+        for (int i = 0; i < frameCount - 1; i++) {
+            solver.compute(i * FRAME_INTERVAL_MS);
+            solver.getFrame(expected, 0);
+            for (int j = 0; j < STRIDE; j++) {
+                assertEquals(expected[j], frames[i * STRIDE + j], 0);
+            }
+        }
+
+        int last = (frameCount - 1) * STRIDE;
+        assertEquals(100, frames[last], 0.01f);
+        assertEquals(200, frames[last + 1], 0.01f);
+        assertEquals(300, frames[last + 2], 0.01f);
+        assertEquals(400, frames[last + 3], 0.01f);
+        assertEquals(1, frames[last + 4], 0.01f);
+    }
+
+    @Test
+    public void getFrame_interpolatesBetweenFrames() {
+        BakedTrajectory trajectory = BakedTrajectory.bake(newSolver(), FRAME_INTERVAL_MS);
+        float[] frames = trajectory.getFrames();
+        float[] out = new float[STRIDE];
+        assertFalse(trajectory.getFrame(2.5f * FRAME_INTERVAL_MS, out));
+        for (int j = 0; j < STRIDE; j++) {
+            assertEquals((frames[2 * STRIDE + j] + frames[3 * STRIDE + j]) / 2, out[j], 0.01f);
+        }
+
+        assertTrue(trajectory.getFrame(trajectory.getDurationMs() + 100, out));
+        assertEquals(1, out[4], 0);
+    }
+
+    private static RectFSpringSolver newSolver() {
+        RectFSpringSolver solver = new RectFSpringSolver(18, 30);
+        solver.setRects(0, 0, 1080, 1920, 100, 200, 300, 400);
+        solver.start(0.5f, -3);
+        return solver;
+    }
+}
@@ -0,0 +1,82 @@
+package com.transsion.springanimation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link FlingSpringSolver} and {@link RectFSpringSolver}.
+ */
+public class FlingSpringSolverTest {
+
+    private static final float EPSILON = 0.01f;
+    private static final float MIN_VIS_CHANGE = 18;
+
+    @Test
+    public void fling_handsOffAtTarget() {
+        FlingSpringSolver solver = new FlingSpringSolver();
+        solver.start(0, 500, 5000, MIN_VIS_CHANGE, 0, 500, 1f);
+        float handoff = solver.getHandoffTimeMs();
+        assertTrue(handoff > 0);
+        assertEquals(500, solver.getPosition(handoff), EPSILON);
+        assertEquals(500, solver.getPosition(solver.getSettleTimeMs()), 1f);
+        assertTrue(solver.isAtEquilibrium(solver.getSettleTimeMs()));
+    }
+
+    @Test
+    public void fling_slowsDownBeforeTarget() {
+        FlingSpringSolver solver = new FlingSpringSolver();
+        solver.start(0, 5000, 1000, MIN_VIS_CHANGE, 0, 5000, 1f);
+        float handoff = solver.getHandoffTimeMs();
+        assertTrue(solver.getPosition(handoff) < 5000);
+        assertEquals(MIN_VIS_CHANGE * 0.75f * 62.5f, solver.getVelocity(handoff - 0.001f), 1f);
+        assertEquals(5000, solver.getPosition(solver.getSettleTimeMs()), 1f);
+    }
+
+    @Test
+    public void updatePosition_isContinuous() {
+        FlingSpringSolver solver = new FlingSpringSolver();
+        solver.start(0, 1000, 3000, MIN_VIS_CHANGE, 0, 1000, 1f);
+        for (float t : new float[] {16, 400}) {
+            float position = solver.getPosition(t);
+            float velocity = solver.getVelocity(t);
+            solver.updatePosition(t, position, 800 - t);
+            assertEquals(position, solver.getPosition(t), 0.1f);
+            assertEquals(velocity, solver.getVelocity(t), 1f);
+        }
+        assertEquals(400, solver.getPosition(solver.getSettleTimeMs()), 1f);
+    }
+
+    @Test
+    public void rectSolver_isDeterministicAndSettlesOnTarget() {
+        float[] first = runRectSolver();
+        float[] second = runRectSolver();
+        for (int i = 0; i < first.length; i++) {
+            assertEquals(Float.floatToIntBits(first[i]), Float.floatToIntBits(second[i]));
+        }
+
+        RectFSpringSolver solver = new RectFSpringSolver(MIN_VIS_CHANGE, 30);
+        solver.setRects(0, 0, 1080, 1920, 100, 200, 300, 400);
+        solver.start(0, -3);
+        assertTrue(solver.compute(solver.getSettleTimeMs()));
+        float[] frame = new float[RectFSpringSolver.FRAME_STRIDE];
+        solver.getFrame(frame, 0);
+        assertEquals(100, frame[0], 1f);
+        assertEquals(200, frame[1], 1f);
+        assertEquals(300, frame[2], 1f);
+        assertEquals(400, frame[3], 1f);
+    }
+
+    private static float[] runRectSolver() {
+        RectFSpringSolver solver = new RectFSpringSolver(MIN_VIS_CHANGE, 30);
+        solver.setRects(0, 0, 1080, 1920, 100, 200, 300, 400);
+        solver.start(0.5f, -3);
+        float[] frames = new float[60 * RectFSpringSolver.FRAME_STRIDE];
+        for (int i = 0; i < 60; i++) {
+            solver.compute(i * 16.67f);
+            solver.getFrame(frames, i * RectFSpringSolver.FRAME_STRIDE);
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,164 @@
+package com.transsion.springanimation;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.Executor;
+
+import static com.transsion.springanimation.AllocationCounter.assertNoAllocation;
+
+/**
+ * Local unit tests checking that the code run on every frame of the transition doesn't allocate
+ * once warmed up, see {@link AllocationCounter}. Every test runs whole transitions, from start to
+ * rest, so that the retargets and handoffs are covered too.
+ */
+public class FrameAllocationTest {
+
+    private static final float FRAME_INTERVAL_MS = 1000f / 60;
+    private static final int STRIDE = RectFSpringSolver.FRAME_STRIDE;
+    private static final int MAX_FRAMES = 600;
+
+    @BeforeClass
+    public static void setUpClass() {
+        AllocationCounter.assumeSupported();
+    }
+
+    @Test
+    public void rectFSpringSolver_doesNotAllocatePerFrame() {
+        RectFSpringSolver solver = new RectFSpringSolver(18, 30);
+        float[] frame = new float[STRIDE];
+        assertNoAllocation(() -> {
+            solver.setRects(0, 0, 1080, 1920, 300, 600, 500, 800);
+            solver.start(0.5f, -3);
+            for (int i = 0; i < MAX_FRAMES; i++) {
+                float timeMs = i * FRAME_INTERVAL_MS;
+                if (i == 10) {
+                    solver.onTargetPositionChanged(timeMs, 320, 640, 520, 840);
+                }
+                boolean atRest = solver.compute(timeMs);
+                solver.getFrame(frame, 0);
+                if (atRest) {
+                    return;
+                }
+            }
+            throw new AssertionError("Solver did not settle");
+        });
+    }
+
+    @Test
+    public void rectFSpringBatch_doesNotAllocatePerFrame() {
+        RectFSpringBatch fixedStep = new RectFSpringBatch(8, 18, 30);
+        fixedStep.setFixedTimestep(RectFSpringAnim.FIXED_STEP_MS);
+        RectFSpringBatch frameStep = new RectFSpringBatch(8, 18, 30);
+        for (RectFSpringBatch batch : new RectFSpringBatch[] {fixedStep, frameStep}) {
+            assertNoAllocation(() -> {
+                batch.clear();
+                for (int i = 0; i < 8; i++) {
+                    batch.add(0, 0, 1080, 1920, 100 + i, 200, 300 + i, 400, 0.5f, -3 + i * 0.1f);
+                }
+                for (int i = 0; i < MAX_FRAMES; i++) {
+                    if (batch.step(FRAME_INTERVAL_MS)) {
+                        return;
+                    }
+                }
+                throw new AssertionError("Batch did not settle");
+            });
+        }
+    }
+
+    @Test
+    public void bakedTrajectory_doesNotAllocatePerFrame() {
+        RectFSpringSolver solver = new RectFSpringSolver(18, 30);
+        solver.setRects(0, 0, 1080, 1920, 300, 600, 500, 800);
+        solver.start(0.5f, -3);
+        BakedTrajectory trajectory = BakedTrajectory.bake(solver, RectFSpringAnim.FIXED_STEP_MS);
+        float[] frame = new float[STRIDE];
+        assertNoAllocation(() -> {
+            for (int i = 0; i < MAX_FRAMES; i++) {
+                if (trajectory.getFrame(i * FRAME_INTERVAL_MS, frame)) {
+                    return;
+                }
+            }
+            throw new AssertionError("Trajectory did not end");
+        });
+    }
+
+    @Test
+    public void trajectoryStream_doesNotAllocatePerFrame() {
+        TrajectoryStream stream = new TrajectoryStream(18, 30);
+        // Produce on the calling thread, so that the producer is measured as well.
+        Executor executor = Runnable::run;
+        float[] frame = new float[STRIDE];
+        assertNoAllocation(() -> {
+            stream.start(executor, RectFSpringAnim.FIXED_STEP_MS, 0, 0, 1080, 1920,
+                    300, 600, 500, 800, 0.5f, -3);
+            for (int i = 0; i < MAX_FRAMES; i++) {
+                if (stream.getFrame(i * FRAME_INTERVAL_MS, frame)) {
+                    return;
+                }
+            }
+            throw new AssertionError("Stream did not end");
+        });
+    }
+
+    @Test
+    public void vector2SpringSolver_doesNotAllocatePerFrame() {
+        Vector2SpringSolver solver = new Vector2SpringSolver(200, 0.75f);
+        assertNoAllocation(() -> {
+            solver.start(0, 0, 0, 300, -500, 60, 75);
+            for (int i = 0; i < MAX_FRAMES; i++) {
+                float timeMs = i * FRAME_INTERVAL_MS;
+                solver.setFinalPosition(timeMs, i < 10 ? 60 : -30, i < 10 ? 75 : 20);
+                if (solver.compute(timeMs)) {
+                    return;
+                }
+            }
+            throw new AssertionError("Spring did not settle");
+        });
+    }
+
+    @Test
+    public void snapshotList_doesNotAllocatePerDispatch() {
+        SnapshotList<Runnable> listeners = new SnapshotList<>();
+        int[] calls = new int[1];
+        for (int i = 0; i < 4; i++) {
+            listeners.add(() -> calls[0]++);
+        }
+        assertNoAllocation(() -> {
+            for (int frame = 0; frame < MAX_FRAMES; frame++) {
+                Object[] snapshot = listeners.getSnapshot();
+                for (Object listener : snapshot) {
+                    ((Runnable) listener).run();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void metricsRecorder_doesNotAllocatePerFrame() {
+        TransitionMetricsRecorder recorder = new TransitionMetricsRecorder(60);
+        long frameIntervalNanos = 16_666_666;
+        assertNoAllocation(() -> {
+            recorder.onTransitionStart(0);
+            long frameTime = 0;
+            for (int i = 0; i < MAX_FRAMES; i++) {
+                frameTime += i % 50 == 0 ? 3 * frameIntervalNanos : frameIntervalNanos;
+                recorder.onFrameDispatched(frameTime, frameTime + 2_000_000,
+                        frameTime + 3_000_000);
+            }
+            recorder.onTransitionEnd(frameTime, false);
+        });
+    }
+
+    @Test
+    public void velocityEstimator_doesNotAllocatePerEvent() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        assertNoAllocation(() -> {
+            estimator.clear();
+            for (int i = 0; i < MAX_FRAMES; i++) {
+                estimator.addSample(i * 8, i * 3, i * -5);
+                estimator.computeVelocity(i * 8);
+            }
+        });
+    }
+}
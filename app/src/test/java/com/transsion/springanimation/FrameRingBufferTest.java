@@ -0,0 +1,75 @@
+package com.transsion.springanimation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link FrameRingBuffer}.
+ */
+public class FrameRingBufferTest {
+
+    private static final int STRIDE = FrameRingBuffer.STRIDE;
+
+    @Test
+    public void offerPoll_wrapsAroundInOrder() {
+        FrameRingBuffer buffer = new FrameRingBuffer(4);
+        float[] frame = new float[STRIDE];
+        int offered = 0;
+        int polled = 0;
+        for (int round = 0; round < 10; round++) {
+            while (buffer.getRemainingCapacity() > 0) {
+                frame[0] = offered++;
+                assertTrue(buffer.offer(frame, 0));
+            }
+            assertFalse(buffer.offer(frame, 0));
+            // Only drain part of the buffer, so that the slots move around.
+            for (int i = 0; i < 3; i++) {
+                assertTrue(buffer.poll(frame, 0));
+                assertEquals(polled++, frame[0], 0);
+            }
+        }
+        while (buffer.poll(frame, 0)) {
+            assertEquals(polled++, frame[0], 0);
+        }
+        assertTrue(buffer.isEmpty());
+        assertEquals(offered, polled);
+    }
+
+    @Test
+    public void offerPoll_acrossThreads() throws InterruptedException {
+        FrameRingBuffer buffer = new FrameRingBuffer(8);
+        int count = 100_000;
+        Thread producer = new Thread(() -> {
+            float[] frame = new float[STRIDE];
+            for (int i = 0; i < count; i++) {
+                for (int j = 0; j < STRIDE; j++) {
+                    frame[j] = i;
+                }
+                while (!buffer.offer(frame, 0)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        float[] frame = new float[STRIDE];
+        for (int i = 0; i < count; i++) {
+            while (!buffer.poll(frame, 0)) {
+                Thread.yield();
+            }
+            for (int j = 0; j < STRIDE; j++) {
+                assertEquals(i, frame[j], 0);
+            }
+        }
+        producer.join();
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsCapacityNotPowerOfTwo() {
+        new FrameRingBuffer(6);
+    }
+}
@@ -0,0 +1,57 @@
+package com.transsion.springanimation;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Local unit tests for {@link GestureRecording}.
+ */
+public class GestureRecordingTest {
+
+    @Test
+    public void writeTo_readFrom_roundTrips() throws IOException {
+        GestureRecording recording = new GestureRecording();
+        recording.onStart(0, 0, 1080, 1920, 100, 200, 300, 400, 0.5f, -3, 18, 30,
+                RectFSpringAnim.BACKEND_FIXED_STEP);
+        for (int i = 0; i < 10; i++) {
+            recording.onRetarget(i * 16, 100 + i, 200, 300 + i, 400);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        recording.writeTo(out);
+        recording.writeTo(out);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int n = 0; n < 2; n++) {
+            GestureRecording copy = new GestureRecording();
+            copy.readFrom(in);
+            assertArrayEquals(recording.getStartRect(), copy.getStartRect(), 0);
+            assertArrayEquals(recording.getTargetRect(), copy.getTargetRect(), 0);
+            assertEquals(0.5f, copy.getVelocityXPxPerMs(), 0);
+            assertEquals(-3, copy.getVelocityYPxPerMs(), 0);
+            assertEquals(18, copy.getMinVisChange(), 0);
+            assertEquals(30, copy.getYOvershoot(), 0);
+            assertEquals(RectFSpringAnim.BACKEND_FIXED_STEP, copy.getBackend());
+            assertEquals(10, copy.getRetargetCount());
+            for (int i = 0; i < 10 * GestureRecording.RETARGET_STRIDE; i++) {
+                assertEquals(recording.getRetargets()[i], copy.getRetargets()[i], 0);
+            }
+        }
+        assertEquals(0, in.available());
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_rejectsOtherData() throws IOException {
+        new GestureRecording().readFrom(
+                new DataInputStream(new ByteArrayInputStream(new byte[64])));
+    }
+}
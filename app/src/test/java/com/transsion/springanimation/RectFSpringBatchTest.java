@@ -0,0 +1,243 @@
+package com.transsion.springanimation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link RectFSpringBatch}.
+ */
+public class RectFSpringBatchTest {
+
+    private static final float FRAME_INTERVAL_MS = 1000f / 60;
+    private static final int STRIDE = RectFSpringBatch.STRIDE;
+    private static final int MAX_FRAMES = 600;
+
+    @Test
+    public void step_settlesEveryRectOnItsTarget() {
+        RectFSpringBatch batch = new RectFSpringBatch(2, 18, 30);
+        for (int i = 0; i < 40; i++) {
+            batch.add(0, 0, 1080, 1920, 100 + i, 200, 300 + i, 400, 0.5f, -3 + i * 0.1f);
+        }
+        assertEquals(40, batch.getCount());
+
+        int[] updates = new int[2];
+        batch.addListener(new RectFSpringBatch.Listener() {
+            @Override
+            public void onUpdate(float[] rects, int count) {
+                updates[0]++;
+            }
+
+            @Override
+            public void onEnd() {
+                updates[1]++;
+            }
+        });
+        int frames = runToEnd(batch);
+        assertEquals(frames, updates[0]);
+        assertEquals(1, updates[1]);
+
+        float[] rects = batch.getRects();
+        for (int i = 0; i < 40; i++) {
+            assertEquals(100 + i, rects[i * STRIDE], 0.01f);
+            assertEquals(200, rects[i * STRIDE + 1], 0.01f);
+            assertEquals(300 + i, rects[i * STRIDE + 2], 0.01f);
+            assertEquals(400, rects[i * STRIDE + 3], 0.01f);
+            assertEquals(1, rects[i * STRIDE + 4], 0);
+        }
+    }
+
+    @Test
+    public void step_staysCloseToSolver() {
+        RectFSpringBatch batch = new RectFSpringBatch(1, 18, 30);
+        batch.add(0, 0, 1080, 1920, 100, 200, 300, 400, 0.5f, -3);
+        RectFSpringSolver solver = new RectFSpringSolver(18, 30);
+        solver.setRects(0, 0, 1080, 1920, 100, 200, 300, 400);
+        solver.start(0.5f, -3);
+
+        float[] expected = new float[STRIDE];
+        for (int frame = 1; frame < 30; frame++) {
+            batch.step(FRAME_INTERVAL_MS);
+            solver.compute(frame * FRAME_INTERVAL_MS);
+            solver.getFrame(expected, 0);
+            for (int j = 0; j < 4; j++) {
+                assertEquals(expected[j], batch.getRects()[j], 0.5f);
+            }
+            assertEquals(expected[4], batch.getRects()[4], 0.01f);
+        }
+    }
+
+    @Test
+    public void setTarget_keepsMotionContinuous() {
+        RectFSpringBatch batch = new RectFSpringBatch(1, 18, 30);
+        batch.add(0, 0, 1080, 1920, 100, 200, 300, 400, 0, 0);
+        for (int frame = 0; frame < 10; frame++) {
+            batch.step(FRAME_INTERVAL_MS);
+        }
+        float left = batch.getRects()[0];
+        batch.setTarget(0, 500, 600, 700, 800);
+        batch.step(FRAME_INTERVAL_MS);
+        assertTrue(Math.abs(batch.getRects()[0] - left) < 100);
+
+        runToEnd(batch);
+        assertEquals(500, batch.getRects()[0], 0.01f);
+        assertEquals(800, batch.getRects()[3], 0.01f);
+    }
+
+    @Test
+    public void setTarget_sizeChange_keepsSizeContinuous() {
+        RectFSpringBatch batch = new RectFSpringBatch(1, 18, 30);
+        batch.add(0, 0, 1080, 1920, 100, 200, 300, 400, 0, 0);
+        RectFSpringSolver solver = new RectFSpringSolver(18, 30);
+        solver.setRects(0, 0, 1080, 1920, 100, 200, 300, 400);
+        solver.start(0, 0);
+
+        float[] expected = new float[STRIDE];
+        for (int frame = 1; frame < 60; frame++) {
+            float timeMs = frame * FRAME_INTERVAL_MS;
+            if (frame == 10 || frame == 40) {
+                // Resize the target mid-flight, then once the progress has nearly completed.
+                float size = frame == 10 ? 400 : 100;
+                batch.setTarget(0, 100, 200, 100 + size, 200 + size);
+                solver.onTargetPositionChanged(timeMs - FRAME_INTERVAL_MS, 100, 200, 100 + size,
+                        200 + size);
+            }
+            float width = batch.getRects()[2] - batch.getRects()[0];
+            batch.step(FRAME_INTERVAL_MS);
+            solver.compute(timeMs);
+            solver.getFrame(expected, 0);
+            assertTrue(Math.abs(batch.getRects()[2] - batch.getRects()[0] - width) < 150);
+            // The batch snaps to the target as soon as it is at rest, hence the wider tolerance.
+            assertEquals(expected[2] - expected[0], batch.getRects()[2] - batch.getRects()[0],
+                    1f);
+            assertEquals(expected[3] - expected[1], batch.getRects()[3] - batch.getRects()[1],
+                    1f);
+        }
+
+        runToEnd(batch);
+        assertEquals(100, batch.getRects()[2] - batch.getRects()[0], 0.01f);
+        assertEquals(100, batch.getRects()[3] - batch.getRects()[1], 0.01f);
+    }
+
+    @Test
+    public void rebaseStartSize_keepsCurrentSize() {
+        float start = RectFSpringSolver.rebaseStartSize(1000, 200, 400, 0.5f);
+        assertEquals(600, RectFSpringAnim.mapRange(0.5f, start, 400), 0.01f);
+        assertTrue(Float.isNaN(RectFSpringSolver.rebaseStartSize(1000, 200, 400, 0.99f)));
+    }
+
+    @Test
+    public void setTarget_sizeChangeNearEnd_keepsSizeVelocity() {
+        RectFSpringBatch batch = new RectFSpringBatch(1, 18, 30);
+        batch.add(0, 0, 1080, 1920, 100, 200, 300, 400, 0.5f, -3);
+        float stepMs = 4;
+        float height = 0;
+        float lastHeight = 0;
+        while (batch.getRects()[4] < 0.96f) {
+            lastHeight = height;
+            batch.step(stepMs);
+            height = batch.getRects()[3] - batch.getRects()[1];
+        }
+        float velocityBefore = (height - lastHeight) / stepMs;
+        // Too little progress remains to rebase, so the progress restarts from 0.
+        batch.setTarget(0, 100, 200, 200, 300);
+        batch.step(stepMs);
+        float velocityAfter = (batch.getRects()[3] - batch.getRects()[1] - height) / stepMs;
+        assertTrue(velocityBefore < -1);
+        assertEquals(velocityBefore, velocityAfter, Math.abs(velocityBefore) * 0.2f);
+    }
+
+    @Test
+    public void onTargetPositionChanged_sizeChangeNearEnd_keepsSizeVelocity() {
+        RectFSpringSolver solver = new RectFSpringSolver(18, 30);
+        solver.setRects(0, 0, 1080, 1920, 100, 200, 300, 400);
+        solver.start(0.5f, -3);
+        float[] frame = new float[STRIDE];
+        float timeMs = 240;
+        solver.compute(timeMs - 4);
+        solver.getFrame(frame, 0);
+        float lastHeight = frame[3] - frame[1];
+        solver.compute(timeMs);
+        solver.getFrame(frame, 0);
+        float height = frame[3] - frame[1];
+        assertTrue(frame[4] > 0.95f);
+
+        solver.onTargetPositionChanged(timeMs, 100, 200, 200, 300);
+        solver.compute(timeMs + 4);
+        solver.getFrame(frame, 0);
+        float velocityBefore = (height - lastHeight) / 4;
+        float velocityAfter = (frame[3] - frame[1] - height) / 4;
+        assertTrue(velocityBefore < -1);
+        assertEquals(velocityBefore, velocityAfter, Math.abs(velocityBefore) * 0.2f);
+    }
+
+    @Test
+    public void restartProgressVelocity_keepsSizeVelocity() {
+        // 0.01 progress/ms over 1000px to 200px is -8px/ms, from 220px to 100px it is 1/15 /ms.
+        assertEquals(1 / 15f,
+                RectFSpringSolver.restartProgressVelocity(0.01f, 1000, 200, 220, 100), 1e-6f);
+        assertEquals(0, RectFSpringSolver.restartProgressVelocity(0.01f, 1000, 200, 220, 220.5f),
+                0);
+    }
+
+    @Test
+    public void fixedTimestep_sameMotionAtAnyRefreshRate() {
+        RectFSpringBatch batch60 = newFixedStepBatch();
+        RectFSpringBatch batch90 = newFixedStepBatch();
+        RectFSpringBatch batch120 = newFixedStepBatch();
+        // Compare every 100ms, a whole number of frames at each rate.
+        for (int i = 0; i < 10; i++) {
+            for (int frame = 0; frame < 6; frame++) {
+                batch60.step(1000f / 60);
+            }
+            for (int frame = 0; frame < 9; frame++) {
+                batch90.step(1000f / 90);
+            }
+            for (int frame = 0; frame < 12; frame++) {
+                batch120.step(1000f / 120);
+            }
+            for (int j = 0; j < STRIDE; j++) {
+                assertEquals(batch60.getRects()[j], batch120.getRects()[j], 0.01f);
+                assertEquals(batch60.getRects()[j], batch90.getRects()[j], 0.01f);
+            }
+        }
+    }
+
+    @Test
+    public void fixedTimestep_catchesUpAfterDroppedFrames() {
+        RectFSpringBatch smooth = newFixedStepBatch();
+        RectFSpringBatch janky = newFixedStepBatch();
+        for (int frame = 0; frame < 60; frame++) {
+            smooth.step(1000f / 60);
+            // Drop 5 frames out of 6.
+            if (frame % 6 == 5) {
+                janky.step(6 * 1000f / 60);
+                for (int j = 0; j < STRIDE; j++) {
+                    // The scale is only clamped at the end of a catch up step, not at every
+                    // substep, so it may settle slightly differently.
+                    assertEquals(smooth.getRects()[j], janky.getRects()[j], 2f);
+                }
+            }
+        }
+        runToEnd(janky);
+        assertEquals(300, janky.getRects()[0], 0.01f);
+        assertEquals(800, janky.getRects()[3], 0.01f);
+    }
+
+    private static RectFSpringBatch newFixedStepBatch() {
+        RectFSpringBatch batch = new RectFSpringBatch(1, 18, 30);
+        batch.setFixedTimestep(RectFSpringAnim.FIXED_STEP_MS);
+        batch.add(0, 0, 1080, 1920, 300, 600, 500, 800, 0.5f, -3);
+        return batch;
+    }
+
+    private static int runToEnd(RectFSpringBatch batch) {
+        for (int frame = 1; frame <= MAX_FRAMES; frame++) {
+            if (batch.step(FRAME_INTERVAL_MS)) {
+                return frame;
+            }
+        }
+        throw new AssertionError("Batch did not settle");
+    }
+}
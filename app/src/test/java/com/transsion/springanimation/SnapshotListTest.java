@@ -0,0 +1,96 @@
+package com.transsion.springanimation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Local unit tests for {@link SnapshotList}.
+ */
+public class SnapshotListTest {
+
+    @Test
+    public void getSnapshot_reusedUntilModified() {
+        SnapshotList<String> list = new SnapshotList<>();
+        assertEquals(0, list.getSnapshot().length);
+        list.add("a");
+        list.add("b");
+        Object[] snapshot = list.getSnapshot();
+        assertArrayEquals(new Object[] {"a", "b"}, snapshot);
+        assertSame(snapshot, list.getSnapshot());
+
+        list.remove("c");
+        assertSame(snapshot, list.getSnapshot());
+        list.remove("a");
+        assertNotSame(snapshot, list.getSnapshot());
+        assertArrayEquals(new Object[] {"b"}, list.getSnapshot());
+    }
+
+    @Test
+    public void releaseSnapshots_emptiesStaleSnapshotsAndReusesThem() {
+        SnapshotList<String> list = new SnapshotList<>(4);
+        list.add("a");
+        Object[] a = list.getSnapshot();
+        list.add("b");
+        Object[] ab = list.getSnapshot();
+        list.remove("a");
+        Object[] b = list.getSnapshot();
+
+        list.releaseSnapshots();
+        // The removed item is no longer reachable, and the current snapshot is kept.
+        assertArrayEquals(new Object[] {null}, a);
+        assertArrayEquals(new Object[] {null, null}, ab);
+        assertSame(b, list.getSnapshot());
+        assertArrayEquals(new Object[] {"b"}, b);
+
+        // The same sizes again, as on the next transition.
+        list.add("c");
+        assertSame(ab, list.getSnapshot());
+        assertArrayEquals(new Object[] {"b", "c"}, ab);
+        list.remove("b");
+        assertSame(a, list.getSnapshot());
+        assertArrayEquals(new Object[] {"c"}, a);
+    }
+
+    @Test
+    public void releaseSnapshots_noEffectWithoutSpareSnapshots() {
+        SnapshotList<String> list = new SnapshotList<>();
+        list.add("a");
+        Object[] a = list.getSnapshot();
+        list.remove("a");
+        list.releaseSnapshots();
+        assertArrayEquals(new Object[] {"a"}, a);
+        assertEquals(0, list.getSnapshot().length);
+    }
+
+    @Test
+    public void getSnapshot_unchangedByModificationDuringDispatch() {
+        SnapshotList<Runnable> list = new SnapshotList<>();
+        int[] calls = new int[1];
+        Runnable counter = () -> calls[0]++;
+        list.add(new Runnable() {
+            @Override
+            public void run() {
+                list.remove(this);
+                list.add(counter);
+            }
+        });
+        list.add(counter);
+
+        dispatch(list);
+        assertEquals(1, calls[0]);
+        // The first listener removed itself and the counter was added a second time.
+        dispatch(list);
+        assertEquals(3, calls[0]);
+    }
+
+    private static void dispatch(SnapshotList<Runnable> list) {
+        Object[] snapshot = list.getSnapshot();
+        for (int i = 0; i < snapshot.length; i++) {
+            ((Runnable) snapshot[i]).run();
+        }
+    }
+}
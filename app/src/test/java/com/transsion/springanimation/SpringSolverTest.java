@@ -0,0 +1,106 @@
+package com.transsion.springanimation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link SpringSolver}.
+ */
+public class SpringSolverTest {
+
+    private static final float EPSILON = 0.01f;
+
+    @Test
+    public void start_matchesInitialConditions() {
+        for (float damping : new float[] {0.5f, 1f, 1.5f}) {
+            SpringSolver solver = new SpringSolver(200, damping);
+            solver.start(100, 10, -300, 50);
+            assertEquals(10, solver.getValue(100), EPSILON);
+            assertEquals(-300, solver.getVelocity(100), EPSILON);
+            assertEquals(10, solver.getValue(0), EPSILON);
+        }
+    }
+
+    @Test
+    public void settleTime_isAtEquilibrium() {
+        for (float damping : new float[] {0.2f, 0.75f, 1f, 2f}) {
+            SpringSolver solver = new SpringSolver(200, damping);
+            solver.start(0, 0, 5000, 1000);
+            assertFalse(solver.isAtEquilibrium(0));
+            float settleTime = solver.getSettleTimeMs();
+            assertTrue(solver.isAtEquilibrium(settleTime));
+            assertEquals(1000, solver.getValue(settleTime), 1f);
+        }
+    }
+
+    @Test
+    public void setFinalPosition_keepsValueAndVelocity() {
+        SpringSolver solver = new SpringSolver(200, 0.8f);
+        solver.start(0, 0, 0, 500);
+        float value = solver.getValue(120);
+        float velocity = solver.getVelocity(120);
+        solver.setFinalPosition(120, -200);
+        assertEquals(value, solver.getValue(120), EPSILON);
+        assertEquals(velocity, solver.getVelocity(120), 0.1f);
+        assertEquals(-200, solver.getValue(solver.getSettleTimeMs()), 1f);
+    }
+
+    @Test
+    public void maxValue_clampsValue() {
+        SpringSolver solver = new SpringSolver(200, 0.2f).setMaxValue(1f);
+        solver.start(0, 0, 10, 1f);
+        for (int t = 0; t < 2000; t += 8) {
+            assertTrue(solver.getValue(t) <= 1f);
+        }
+    }
+
+    @Test
+    public void maxValue_atFinalPosition_staysAtRestOnceReached() {
+        for (float damping : new float[] {0.2f, 0.75f}) {
+            SpringSolver solver = new SpringSolver(200, damping).setMaxValue(1f)
+                    .setMinimumVisibleChange(0.001f);
+            SpringSolver unclamped =
+                    new SpringSolver(200, damping).setMinimumVisibleChange(0.001f);
+            solver.start(0, 0, 10, 1f);
+            unclamped.start(0, 0, 10, 1f);
+            boolean reached = false;
+            for (int t = 0; t < 2000; t++) {
+                if (reached) {
+                    assertEquals(1f, solver.getValue(t), 0);
+                    assertEquals(0, solver.getVelocity(t), 0);
+                    assertTrue(solver.isAtEquilibrium(t));
+                } else if (solver.getValue(t) >= 1f) {
+                    reached = true;
+                } else {
+                    assertEquals(unclamped.getValue(t), solver.getValue(t), EPSILON);
+                }
+            }
+            assertTrue(reached);
+            assertTrue(solver.getSettleTimeMs() < unclamped.getSettleTimeMs());
+        }
+    }
+
+    @Test
+    public void maxValue_aboveFinalPosition_restartsFromMaxAtRest() {
+        SpringSolver solver = new SpringSolver(200, 0.2f).setMaxValue(1.2f)
+                .setMinimumVisibleChange(0.001f);
+        solver.start(0, 0, 0, 1f);
+        float last = 0;
+        boolean reached = false;
+        for (int t = 0; t < 2000; t++) {
+            float value = solver.getValue(t);
+            assertTrue(value <= 1.2f);
+            // Continuous, also when restarting from the max.
+            assertEquals(last, value, 0.05f);
+            reached |= value > 1.19f;
+            last = value;
+        }
+        assertTrue(reached);
+        float settleTime = solver.getSettleTimeMs();
+        assertTrue(solver.isAtEquilibrium(settleTime));
+        assertEquals(1f, solver.getValue(settleTime), 0.01f);
+    }
+}
@@ -0,0 +1,125 @@
+package com.transsion.springanimation;
+
+import org.junit.Test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link TrajectoryStream}.
+ */
+public class TrajectoryStreamTest {
+
+    private static final float STEP_MS = RectFSpringAnim.FIXED_STEP_MS;
+    private static final float FRAME_INTERVAL_MS = 1000f / 60;
+    private static final int STRIDE = TrajectoryStream.STRIDE;
+    private static final int MAX_FRAMES = 600;
+    private static final int RESTARTS = 200;
+
+    @Test
+    public void getFrame_matchesBakedTrajectory() {
+        TrajectoryStream stream = new TrajectoryStream(18, 30);
+        // Produce on the calling thread, so that every frame is available when read.
+        start(stream, Runnable::run);
+        BakedTrajectory baked = BakedTrajectory.bake(newSolver(), STEP_MS);
+
+        float[] frame = new float[STRIDE];
+        float[] expected = new float[STRIDE];
+        for (int i = 0; i < MAX_FRAMES; i++) {
+            float timeMs = i * FRAME_INTERVAL_MS;
+            boolean atEnd = stream.getFrame(timeMs, frame);
+            boolean bakedAtEnd = baked.getFrame(timeMs, expected);
+            for (int j = 0; j < STRIDE; j++) {
+                assertEquals(expected[j], frame[j], 0.01f);
+            }
+            assertEquals(bakedAtEnd, atEnd);
+            if (atEnd) {
+                assertTrue(stream.isIdle());
+                return;
+            }
+        }
+        throw new AssertionError("Stream did not end");
+    }
+
+    @Test
+    public void getFrame_endsOnTarget_withBackgroundProducer() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            TrajectoryStream stream = new TrajectoryStream(18, 30);
+            start(stream, executor);
+            float[] frame = new float[STRIDE];
+            boolean atEnd = false;
+            for (int i = 0; i < MAX_FRAMES * 100 && !atEnd; i++) {
+                atEnd = stream.getFrame(i * FRAME_INTERVAL_MS, frame);
+                if (!atEnd) {
+                    // Leave the producer some time, like the main thread between frames.
+                    Thread.sleep(0, 100_000);
+                }
+            }
+            assertTrue(atEnd);
+            assertEquals(100, frame[0], 0.01f);
+            assertEquals(200, frame[1], 0.01f);
+            assertEquals(300, frame[2], 0.01f);
+            assertEquals(400, frame[3], 0.01f);
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void start_afterCancelWhileProducing_producesOnlyNewTrajectory()
+            throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            TrajectoryStream stream = new TrajectoryStream(18, 30);
+            BakedTrajectory baked = BakedTrajectory.bake(newSolver(), STEP_MS);
+            float[] frame = new float[STRIDE];
+            float[] expected = new float[STRIDE];
+            for (int run = 0; run < RESTARTS; run++) {
+                // A gesture canceled early, while the producer is still filling the buffer.
+                stream.start(executor, STEP_MS, 0, 0, 1080, 1920, 500, 600, 700, 800, -2, 1);
+                stream.cancel();
+                awaitIdle(stream);
+                start(stream, executor);
+
+                // Only read frames once the producer paused, so that each one was computed.
+                boolean atEnd = false;
+                for (int i = 0; i < MAX_FRAMES && !atEnd; i++) {
+                    awaitIdle(stream);
+                    atEnd = stream.getFrame(i * STEP_MS, frame);
+                    baked.getFrame(i * STEP_MS, expected);
+                    for (int j = 0; j < STRIDE; j++) {
+                        assertEquals(expected[j], frame[j], 0.01f);
+                    }
+                }
+                assertTrue(atEnd);
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void awaitIdle(TrajectoryStream stream) {
+        while (!stream.isIdle()) {
+            Thread.yield();
+        }
+    }
+
+    private static void start(TrajectoryStream stream, Executor executor) {
+        stream.start(executor, STEP_MS, 0, 0, 1080, 1920, 100, 200, 300, 400, 0.5f, -3);
+    }
+
+    private static RectFSpringSolver newSolver() {
+        RectFSpringSolver solver = new RectFSpringSolver(18, 30);
+        solver.setRects(0, 0, 1080, 1920, 100, 200, 300, 400);
+        solver.start(0.5f, -3);
+        return solver;
+    }
+}
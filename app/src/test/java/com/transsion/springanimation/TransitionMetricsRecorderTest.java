@@ -0,0 +1,75 @@
+package com.transsion.springanimation;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link TransitionMetricsRecorder}.
+ */
+public class TransitionMetricsRecorderTest {
+
+    private static final long MS = 1_000_000;
+    private static final long FRAME_INTERVAL = 16_666_666;
+
+    @Test
+    public void recordsFramesMissedFramesAndSettleTime() {
+        TransitionMetricsRecorder recorder = new TransitionMetricsRecorder(60);
+        recorder.onTransitionStart(0);
+        long frameTime = 0;
+        for (int i = 0; i < 10; i++) {
+            // Skip two vsyncs before the sixth frame.
+            frameTime += i == 5 ? 3 * FRAME_INTERVAL : FRAME_INTERVAL;
+            recorder.onFrameDispatched(frameTime, frameTime + 2 * MS, frameTime + 3 * MS);
+            recorder.onIconDrawn(frameTime + 4 * MS, frameTime + 6 * MS);
+        }
+        recorder.onTransitionEnd(400 * MS, false);
+
+        assertEquals(1, recorder.getTransitionCount());
+        assertEquals(10, recorder.getFrameCount());
+        assertEquals(2, recorder.getMissedFrameCount());
+        assertEquals(10, recorder.getUpdateCost().getCount());
+        assertEquals(MS, recorder.getUpdateCost().getMax());
+        assertEquals(3 * MS, recorder.getVsyncToDispatch().getMax());
+        assertEquals(10, recorder.getDrawCost().getCount());
+        assertEquals(2 * MS, recorder.getDrawCost().getMax());
+        assertEquals(400 * MS, recorder.getSettleTime().getSum());
+        assertEquals(400 * MS, recorder.getSettleTime().getPercentileUpperBound(50));
+        assertEquals(2, recorder.getMissedFrames().getPercentileUpperBound(100));
+    }
+
+    @Test
+    public void canceledTransitionsHaveNoSettleTime() {
+        TransitionMetricsRecorder recorder = new TransitionMetricsRecorder(60);
+        recorder.onTransitionStart(0);
+        recorder.onFrameDispatched(-1, 0, MS);
+        recorder.onTransitionEnd(100 * MS, true);
+
+        assertEquals(1, recorder.getCanceledCount());
+        assertEquals(0, recorder.getSettleTime().getCount());
+        assertEquals(0, recorder.getVsyncToDispatch().getCount());
+
+        StringWriter out = new StringWriter();
+        recorder.dump("", new PrintWriter(out));
+        assertTrue(out.toString().contains("canceled=1"));
+    }
+
+    @Test
+    public void histogram_bucketsByUpperBound() {
+        TransitionMetricsRecorder.Histogram histogram =
+                new TransitionMetricsRecorder.Histogram(new long[] {10, 20});
+        histogram.record(10);
+        histogram.record(11);
+        histogram.record(100);
+        assertEquals(3, histogram.getBucketCount());
+        assertEquals(1, histogram.getBucketValue(0));
+        assertEquals(1, histogram.getBucketValue(1));
+        assertEquals(1, histogram.getBucketValue(2));
+        assertEquals(Long.MAX_VALUE, histogram.getBucketUpperBound(2));
+        assertEquals(100, histogram.getPercentileUpperBound(99));
+    }
+}
@@ -0,0 +1,69 @@
+package com.transsion.springanimation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Local unit tests for {@link Vector2SpringSolver}.
+ */
+public class Vector2SpringSolverTest {
+
+    private static final float EPSILON = 0.01f;
+
+    @Test
+    public void compute_matchesOneSpringSolverPerAxis() {
+        for (float damping : new float[] {0.5f, 0.75f, 1f, 1.5f}) {
+            Vector2SpringSolver solver = new Vector2SpringSolver(200, damping);
+            SpringSolver springX = new SpringSolver(200, damping);
+            SpringSolver springY = new SpringSolver(200, damping);
+            solver.start(0, 10, -40, 300, -500, 60, 75);
+            springX.start(0, 10, 300, 60);
+            springY.start(0, -40, -500, 75);
+            for (int t = 0; t < 400; t += 16) {
+                if (solver.compute(t)) {
+                    break;
+                }
+                assertEquals(springX.getValue(t), solver.getX(), EPSILON);
+                assertEquals(springY.getValue(t), solver.getY(), EPSILON);
+                assertEquals(springX.getVelocity(t), solver.getVelocityX(), 0.1f);
+                assertEquals(springY.getVelocity(t), solver.getVelocityY(), 0.1f);
+            }
+        }
+    }
+
+    @Test
+    public void setFinalPosition_keepsPositionAndVelocity() {
+        Vector2SpringSolver solver = new Vector2SpringSolver(200, 0.75f);
+        solver.start(0, 0, 0, 0, 0, 60, 75);
+        assertFalse(solver.compute(120));
+        float x = solver.getX();
+        float y = solver.getY();
+        float velocityX = solver.getVelocityX();
+        float velocityY = solver.getVelocityY();
+
+        solver.setFinalPosition(120, -30, 20);
+        assertFalse(solver.compute(120));
+        assertEquals(x, solver.getX(), EPSILON);
+        assertEquals(y, solver.getY(), EPSILON);
+        assertEquals(velocityX, solver.getVelocityX(), 0.1f);
+        assertEquals(velocityY, solver.getVelocityY(), 0.1f);
+    }
+
+    @Test
+    public void compute_endsOnFinalPositionOnceBothAxesSettle() {
+        Vector2SpringSolver solver = new Vector2SpringSolver(200, 0.75f);
+        solver.start(0, 0, 0, 0, 0, 60, 75);
+        int t = 0;
+        while (!solver.compute(t)) {
+            t += 16;
+            assertTrue("Spring never settled", t < 5000);
+        }
+        assertEquals(60, solver.getX(), 0);
+        assertEquals(75, solver.getY(), 0);
+        assertEquals(0, solver.getVelocityX(), 0);
+        assertEquals(0, solver.getVelocityY(), 0);
+    }
+}
@@ -0,0 +1,42 @@
+package com.transsion.springanimation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Local unit tests for {@link VelocityEstimator}.
+ */
+public class VelocityEstimatorTest {
+
+    @Test
+    public void computeVelocity_linearMotion() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        // More samples than the estimator keeps, some of them older than its horizon.
+        for (int i = 0; i < 40; i++) {
+            estimator.addSample(1000 + i * 8, 10 + i * 8 * 0.5f, 500 - i * 8 * 2f);
+        }
+        estimator.computeVelocity(1000 + 39 * 8);
+        assertEquals(0.5f, estimator.getVelocityX(), 0.001f);
+        assertEquals(-2f, estimator.getVelocityY(), 0.001f);
+    }
+
+    @Test
+    public void computeVelocity_stoppedOrMissingSamples_isZero() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        estimator.addSample(1000, 0, 0);
+        estimator.computeVelocity(1000);
+        assertEquals(0, estimator.getVelocityX(), 0);
+
+        estimator.addSample(1010, 100, 100);
+        estimator.computeVelocity(1100);
+        assertEquals(0, estimator.getVelocityX(), 0);
+        assertEquals(0, estimator.getVelocityY(), 0);
+
+        estimator.computeVelocity(1010);
+        assertEquals(10, estimator.getVelocityX(), 0.001f);
+        estimator.clear();
+        estimator.computeVelocity(1010);
+        assertEquals(0, estimator.getVelocityX(), 0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.transsion.springanimation;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building, adding and drawing the path of every shape.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IconShapeBenchmark {
+
+    @Param({"circle", "roundedSquare", "tearDrop", "squircle"})
+    public String shape;
+
+    private IconShape mShape;
+    private final Path mPath = new Path();
+    private final Canvas mCanvas = new Canvas();
+    private final Paint mPaint = new Paint();
+    private final ShapeMaskCache mMaskCache = new ShapeMaskCache(1024 * 1024);
+
+    @Setup
+    public void setUp() {
+        mShape = createShape(shape);
+    }
+
+    @Benchmark
+    public Path addShapeToPath() {
+        mPath.reset();
+        mShape.addShapeToPath(mPath, 0, 0, IconShape.DEFAULT_PATH_SIZE * 0.5f);
+        return mPath;
+    }
+
+    @Benchmark
+    public Path addToPath() {
+        mPath.reset();
+        mShape.addToPath(mPath, 0, 0, IconShape.DEFAULT_PATH_SIZE * 0.5f);
+        return mPath;
+    }
+
+    @Benchmark
+    public Canvas drawShape() {
+        mShape.drawShape(mCanvas, 10, 10, IconShape.DEFAULT_PATH_SIZE * 0.5f, mPaint);
+        return mCanvas;
+    }
+
+    @Benchmark
+    public Canvas drawShapeFromMaskCache() {
+        mMaskCache.drawShape(mShape, mCanvas, 10, 10, IconShape.DEFAULT_PATH_SIZE * 0.5f, mPaint);
+        return mCanvas;
+    }
+
+    static IconShape createShape(String name) {
+        switch (name) {
+            case "circle":
+                return new IconShape.Circle();
+            case "roundedSquare":
+                return new IconShape.RoundedSquare(0.5f);
+            case "tearDrop":
+                return new IconShape.TearDrop(0.3f);
+            case "squircle":
+                return new IconShape.Squircle(0.2f);
+            default:
+                throw new IllegalArgumentException("Unknown shape " + name);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.transsion.springanimation;
+
+import android.graphics.Path;
+import android.graphics.Rect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single frame of the shape reveal of {@link IconShape.TearDrop} and
+ * {@link IconShape.Squircle}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RevealBenchmark {
+
+    private static final float PROGRESS_STEP = 1f / 64;
+
+    @Param({"tearDrop", "squircle"})
+    public String shape;
+
+    private final Rect mStartRect = new Rect(0, 0, 200, 200);
+    private final Rect mEndRect = new Rect(0, 0, 200, 360);
+    private final Path mPath = new Path();
+    // Only one of them is set, depending on #shape.
+    private IconShape.TearDrop mTearDrop;
+    private IconShape.Squircle mSquircle;
+    private float mProgress;
+
+    @Setup
+    public void setUp() {
+        if ("tearDrop".equals(shape)) {
+            mTearDrop = new IconShape.TearDrop(0.3f);
+        } else {
+            mSquircle = new IconShape.Squircle(0.2f);
+        }
+    }
+
+    @Benchmark
+    public Path pathShapeReveal() {
+        mPath.reset();
+        float progress = nextProgress();
+        if (mTearDrop != null) {
+            mTearDrop.addRevealToPath(mStartRect, mEndRect, 24, progress, mPath);
+        } else {
+            mSquircle.addRevealToPath(mStartRect, mEndRect, 24, progress, mPath);
+        }
+        return mPath;
+    }
+
+    private float nextProgress() {
+        mProgress += PROGRESS_STEP;
+        if (mProgress > 1) {
+            mProgress = 0;
+        }
+        return mProgress;
+    }
+}
@@ -0,0 +1,44 @@
+package com.transsion.springanimation;
+
+import android.graphics.Rect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single frame of the reveal used by the circle and rounded square shapes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoundedRectRevealBenchmark {
+
+    private static final float PROGRESS_STEP = 1f / 64;
+
+    private final RoundedRectRevealOutlineProvider mOutlineProvider =
+            new RoundedRectRevealOutlineProvider(100, 24, new Rect(0, 0, 200, 200),
+                    new Rect(0, 0, 200, 360));
+    private float mProgress;
+
+    @Benchmark
+    public float setProgress() {
+        mProgress += PROGRESS_STEP;
+        if (mProgress > 1) {
+            mProgress = 0;
+        }
+        mOutlineProvider.setProgress(mProgress);
+        return mOutlineProvider.getRadius();
+    }
+}
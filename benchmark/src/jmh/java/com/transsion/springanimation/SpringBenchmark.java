@@ -0,0 +1,180 @@
+package com.transsion.springanimation;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.PointF;
+import android.graphics.RectF;
+import android.view.Choreographer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the spring stepping of a whole swipe-up-to-home transition with
+ * {@link RectFSpringSolver}, {@link FlingSpringSolver} and {@link BakedTrajectory}, as used by the
+ * analytic and baked backends of {@link RectFSpringAnim}, and the whole frame path of a
+ * {@link RectFSpringAnim} on its analytic and fixed-step backends: frame callbacks run by the
+ * stand-in Choreographer, stepping, mapping to a rect and dispatching it to an update listener.
+ *
+ * The androidx {@code SpringAnimation} and {@code FlingAnimation} stepping of the default
+ * {@link RectFSpringAnim#BACKEND_DYNAMIC_ANIMATION} backend is not covered. It needs a Looper,
+ * a Choreographer and the androidx library, none of which run on this plain JVM. So these results
+ * are not a baseline for the default backend. Compare the backends on a device instead, e.g.
+ * with the frame metrics of {@link TransitionMetricsRecorder}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpringBenchmark {
+
+    private static final float MIN_VIS_CHANGE = 18;
+    private static final float Y_OVERSHOOT = 30;
+    private static final int MAX_FRAMES = 600;
+
+    @Param({"60", "120"})
+    public float refreshRate;
+
+    private final RectFSpringSolver mSolver = new RectFSpringSolver(MIN_VIS_CHANGE, Y_OVERSHOOT);
+    private final FlingSpringSolver mFlingSpringSolver = new FlingSpringSolver();
+    private final float[] mFrame = new float[RectFSpringSolver.FRAME_STRIDE];
+    private BakedTrajectory mTrajectory;
+    private float mFrameIntervalMs;
+
+    private final RectF mStartRect = new RectF(0, 0, 1080, 1920);
+    private final RectF mTargetRect = new RectF(440, 400, 640, 600);
+    private final PointF mVelocity = new PointF(0.2f, -3f);
+    private RectFSpringAnim mAnalyticAnim;
+    private RectFSpringAnim mFixedStepAnim;
+    private long mFrameTimeNanos;
+    private float mRectSum;
+    private boolean mAnimEnded;
+    private final RectFSpringAnim.OnUpdateListener mOnUpdateListener =
+            (currentRect, progress) -> mRectSum += currentRect.bottom;
+    private final Animator.AnimatorListener mEndListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            mAnimEnded = true;
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        mFrameIntervalMs = 1000f / refreshRate;
+        startSolver();
+        mTrajectory = BakedTrajectory.bake(mSolver, mFrameIntervalMs);
+
+        Resources resources = new Context().getResources();
+        resources.setDimensionPixelSize(R.dimen.swipe_up_fling_min_visible_change,
+                (int) MIN_VIS_CHANGE);
+        resources.setDimensionPixelSize(R.dimen.swipe_up_y_overshoot, (int) Y_OVERSHOOT);
+        mAnalyticAnim = newAnim(resources, RectFSpringAnim.BACKEND_ANALYTIC);
+        mFixedStepAnim = newAnim(resources, RectFSpringAnim.BACKEND_FIXED_STEP);
+    }
+
+    /**
+     * All the frames of a single dimension, as computed by the {@link FlingSpringSolver} behind
+     * each dimension of {@link RectFSpringSolver}.
+     */
+    @Benchmark
+    public float flingSpringTransition() {
+        mFlingSpringSolver.start(1920, 400, -3000, MIN_VIS_CHANGE, 400 - Y_OVERSHOOT, 1920, 0.2f);
+        float sum = 0;
+        for (int i = 0; !mFlingSpringSolver.isAtEquilibrium(i * mFrameIntervalMs); i++) {
+            sum += mFlingSpringSolver.getPosition(i * mFrameIntervalMs);
+        }
+        return sum;
+    }
+
+    /**
+     * All the frames of a {@link RectFSpringAnim}, including mapping them to a rect.
+     */
+    @Benchmark
+    public float rectTransition() {
+        startSolver();
+        float sum = 0;
+        for (int i = 0; !mSolver.compute(i * mFrameIntervalMs); i++) {
+            mSolver.getFrame(mFrame, 0);
+            sum += mFrame[1];
+        }
+        return sum;
+    }
+
+    /**
+     * All the frames of a {@link RectFSpringAnim} played back from a {@link BakedTrajectory}.
+     */
+    @Benchmark
+    public float bakedPlayback() {
+        float sum = 0;
+        for (int i = 0; !mTrajectory.getFrame(i * mFrameIntervalMs, mFrame); i++) {
+            sum += mFrame[1];
+        }
+        return sum;
+    }
+
+    /**
+     * All the frames of a {@link RectFSpringAnim} on the analytic backend, from the frame
+     * callback to the update listener.
+     */
+    @Benchmark
+    public float analyticAnimTransition() {
+        return runAnim(mAnalyticAnim);
+    }
+
+    /**
+     * All the frames of a {@link RectFSpringAnim} on the fixed-step backend, from the frame
+     * callback to the update listener.
+     */
+    @Benchmark
+    public float fixedStepAnimTransition() {
+        return runAnim(mFixedStepAnim);
+    }
+
+    @Benchmark
+    public BakedTrajectory bake() {
+        startSolver();
+        return BakedTrajectory.bake(mSolver, mFrameIntervalMs);
+    }
+
+    private RectFSpringAnim newAnim(Resources resources, int backend) {
+        RectFSpringAnim anim = new RectFSpringAnim(mStartRect, mTargetRect, resources);
+        anim.setBackend(backend);
+        anim.addOnUpdateListener(mOnUpdateListener);
+        anim.addAnimatorListener(mEndListener);
+        return anim;
+    }
+
+    private float runAnim(RectFSpringAnim anim) {
+        mRectSum = 0;
+        mAnimEnded = false;
+        anim.reset(mStartRect, mTargetRect);
+        anim.start(mVelocity);
+        Choreographer choreographer = Choreographer.getInstance();
+        long frameIntervalNanos = (long) (mFrameIntervalMs * 1_000_000);
+        for (int i = 0; i < MAX_FRAMES && !mAnimEnded; i++) {
+            mFrameTimeNanos += frameIntervalNanos;
+            choreographer.doFrame(mFrameTimeNanos);
+        }
+        return mRectSum;
+    }
+
+    private void startSolver() {
+        mSolver.setRects(0, 0, 1080, 1920, 440, 400, 640, 600);
+        mSolver.start(0.2f, -3f);
+    }
+}
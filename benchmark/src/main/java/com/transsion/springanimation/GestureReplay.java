@@ -0,0 +1,244 @@
+package com.transsion.springanimation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replays {@link GestureRecording}s headlessly, frame by frame at a fixed refresh rate, and
+ * reports how many frames each transition took, when it settled and how long each frame took to
+ * compute. Target changes are applied on the first frame at or after the time they were recorded,
+ * counted from the first frame like the recordings, so replays are deterministic and can be
+ * compared across changes.
+ *
+ * Each recording is replayed with the backend it was recorded with: {@link RectFSpringBatch} for
+ * the fixed step one, {@link TrajectoryStream} producing on the calling thread for the
+ * precomputed one and {@link RectFSpringSolver} for the analytic one. The androidx animations of
+ * the default backend need a Looper and cannot run here, so those recordings are replayed with
+ * {@link RectFSpringSolver}, which follows the same physics but not their exact frames, and are
+ * counted separately in the report.
+ *
+ * Run with ./gradlew :benchmark:replay --args="[--refresh-rate 60] [--iterations 5] [--verbose]
+ * recordings..."
+ */
+public class GestureReplay {
+
+    // Stop replaying transitions that never settle after this long, like BakedTrajectory.
+    private static final float MAX_DURATION_MS = 10_000;
+
+    private final float mFrameIntervalMs;
+    private final float[] mFrame = new float[RectFSpringSolver.FRAME_STRIDE];
+
+    public GestureReplay(float refreshRate) {
+        mFrameIntervalMs = 1000f / refreshRate;
+    }
+
+    /**
+     * Replays {@param recording} until it settles and writes the outcome into {@param out}.
+     */
+    public void replay(GestureRecording recording, Result out) {
+        int backend = recording.getBackend();
+        float minVisChange = recording.getMinVisChange();
+        float yOvershoot = recording.getYOvershoot();
+        float[] start = recording.getStartRect();
+        float[] target = recording.getTargetRect();
+        float velocityX = recording.getVelocityXPxPerMs();
+        float velocityY = recording.getVelocityYPxPerMs();
+        RectFSpringSolver solver = null;
+        RectFSpringBatch stepper = null;
+        TrajectoryStream stream = null;
+        if (backend == RectFSpringAnim.BACKEND_FIXED_STEP) {
+            stepper = new RectFSpringBatch(1, minVisChange, yOvershoot);
+            stepper.setFixedTimestep(RectFSpringAnim.FIXED_STEP_MS);
+            stepper.add(start[0], start[1], start[2], start[3],
+                    target[0], target[1], target[2], target[3], velocityX, velocityY);
+        } else if (backend == RectFSpringAnim.BACKEND_PRECOMPUTED) {
+            stream = new TrajectoryStream(minVisChange, yOvershoot);
+            stream.start(Runnable::run, RectFSpringAnim.FIXED_STEP_MS, start[0], start[1],
+                    start[2], start[3], target[0], target[1], target[2], target[3], velocityX,
+                    velocityY);
+        } else {
+            solver = new RectFSpringSolver(minVisChange, yOvershoot);
+            solver.setRects(start[0], start[1], start[2], start[3],
+                    target[0], target[1], target[2], target[3]);
+            solver.start(velocityX, velocityY);
+        }
+        out.approximated = backend == RectFSpringAnim.BACKEND_DYNAMIC_ANIMATION;
+
+        float[] retargets = recording.getRetargets();
+        int retargetCount = recording.getRetargetCount();
+        int nextRetarget = 0;
+
+        out.frames = 0;
+        out.settled = false;
+        out.totalFrameCostNanos = 0;
+        out.maxFrameCostNanos = 0;
+        while (!out.settled) {
+            float timeMs = out.frames * mFrameIntervalMs;
+            if (timeMs > MAX_DURATION_MS) {
+                break;
+            }
+            long startNanos = System.nanoTime();
+            while (nextRetarget < retargetCount
+                    && retargets[nextRetarget * GestureRecording.RETARGET_STRIDE] <= timeMs) {
+                // The precomputed backend ignores target changes, as RectFSpringAnim does.
+                int o = nextRetarget * GestureRecording.RETARGET_STRIDE;
+                if (stepper != null) {
+                    stepper.setTarget(0, retargets[o + 1], retargets[o + 2], retargets[o + 3],
+                            retargets[o + 4]);
+                } else if (solver != null) {
+                    solver.onTargetPositionChanged(retargets[o], retargets[o + 1],
+                            retargets[o + 2], retargets[o + 3], retargets[o + 4]);
+                }
+                nextRetarget++;
+            }
+            boolean atRest;
+            if (stepper != null) {
+                // Like RectFSpringAnim, the first frame only shows the start rect.
+                atRest = stepper.step(out.frames == 0 ? 0 : mFrameIntervalMs);
+            } else if (stream != null) {
+                atRest = stream.getFrame(timeMs, mFrame);
+            } else {
+                atRest = solver.compute(timeMs);
+                solver.getFrame(mFrame, 0);
+            }
+            out.settled = atRest && nextRetarget == retargetCount;
+            long costNanos = System.nanoTime() - startNanos;
+
+            out.totalFrameCostNanos += costNanos;
+            out.maxFrameCostNanos = Math.max(out.maxFrameCostNanos, costNanos);
+            out.settleTimeMs = timeMs;
+            out.frames++;
+        }
+    }
+
+    /**
+     * Reads every recording stored one after the other in {@param path}.
+     */
+    public static List<GestureRecording> readRecordings(String path) throws IOException {
+        List<GestureRecording> recordings = new ArrayList<>();
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            while (true) {
+                in.mark(1);
+                if (in.read() < 0) {
+                    break;
+                }
+                in.reset();
+                GestureRecording recording = new GestureRecording();
+                recording.readFrom(in);
+                recordings.add(recording);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated recording in " + path, e);
+        }
+        return recordings;
+    }
+
+    public static void main(String[] args) throws IOException {
+        float refreshRate = 60;
+        int iterations = 5;
+        boolean verbose = false;
+        List<GestureRecording> recordings = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--refresh-rate":
+                    refreshRate = Float.parseFloat(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Math.max(1, Integer.parseInt(args[++i]));
+                    break;
+                case "--verbose":
+                    verbose = true;
+                    break;
+                default:
+                    recordings.addAll(readRecordings(args[i]));
+                    break;
+            }
+        }
+        if (recordings.isEmpty()) {
+            System.err.println("Usage: GestureReplay [--refresh-rate hz] [--iterations n]"
+                    + " [--verbose] recordings...");
+            System.exit(1);
+        }
+
+        GestureReplay replay = new GestureReplay(refreshRate);
+        Result[] results = new Result[recordings.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new Result();
+        }
+        // Earlier iterations warm up the JIT, only the last one is reported.
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int i = 0; i < results.length; i++) {
+                replay.replay(recordings.get(i), results[i]);
+            }
+        }
+        report(results, refreshRate, verbose, System.out);
+    }
+
+    private static void report(Result[] results, float refreshRate, boolean verbose,
+            PrintStream out) {
+        int count = results.length;
+        float[] settleTimes = new float[count];
+        long totalFrames = 0;
+        long totalCostNanos = 0;
+        long maxCostNanos = 0;
+        int unsettled = 0;
+        int approximated = 0;
+        for (int i = 0; i < count; i++) {
+            Result result = results[i];
+            if (verbose) {
+                out.println(String.format("gesture %d: frames=%d settleMs=%.1f%s%s"
+                                + " avgFrameNs=%d maxFrameNs=%d", i, result.frames,
+                        result.settleTimeMs, result.settled ? "" : " (unsettled)",
+                        result.approximated ? " (approximated)" : "",
+                        result.totalFrameCostNanos / result.frames, result.maxFrameCostNanos));
+            }
+            settleTimes[i] = result.settleTimeMs;
+            totalFrames += result.frames;
+            totalCostNanos += result.totalFrameCostNanos;
+            maxCostNanos = Math.max(maxCostNanos, result.maxFrameCostNanos);
+            if (!result.settled) {
+                unsettled++;
+            }
+            if (result.approximated) {
+                approximated++;
+            }
+        }
+        Arrays.sort(settleTimes);
+        out.println(String.format("gestures=%d unsettled=%d approximated=%d refreshRate=%.0f",
+                count, unsettled, approximated, refreshRate));
+        out.println(String.format("frames: total=%d avg=%.1f", totalFrames,
+                (float) totalFrames / count));
+        out.println(String.format("settleMs: p50=%.1f p90=%.1f p99=%.1f max=%.1f",
+                percentile(settleTimes, 50), percentile(settleTimes, 90),
+                percentile(settleTimes, 99), settleTimes[count - 1]));
+        out.println(String.format("frameCostNs: avg=%d max=%d", totalCostNanos / totalFrames,
+                maxCostNanos));
+    }
+
+    private static float percentile(float[] sorted, float percentile) {
+        int index = (int) Math.ceil(sorted.length * percentile / 100) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    /**
+     * Outcome of replaying one recording.
+     */
+    public static final class Result {
+        public int frames;
+        public boolean settled;
+        // Time of the first frame at rest, or of the last frame replayed if it never settled.
+        public float settleTimeMs;
+        public long totalFrameCostNanos;
+        public long maxFrameCostNanos;
+        // Whether the recorded backend could not run here and the analytic one replayed it.
+        public boolean approximated;
+    }
+}
@@ -0,0 +1,367 @@
+package com.transsion.springanimation;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Simulates the fling and spring of the y axis of {@link RectFSpringAnim} with a
+ * {@link FlingSpringSolver}, over a grid of fling friction, spring stiffness, spring damping and
+ * spring velocity factor, for several start velocities. Each combination is sampled frame by
+ * frame at a fixed refresh rate and reports how many frames it took to settle, when it settled
+ * and how far the spring overshot. Combinations are simulated in parallel on a
+ * {@link ForkJoinPool}. Only the y axis is simulated: the x axis uses the same fling and spring,
+ * but with a velocity factor of 1 and no overshoot allowed to the fling.
+ *
+ * The overshoot is measured once the spring has taken over, past the target or, if the fling
+ * already went past it, past where the fling ended: the fling itself may go up to --y-overshoot
+ * past the target, so that distance is not held against the spring.
+ *
+ * The velocity factor is the value of the spring velocity factor at rest: the factor used for a
+ * start velocity v is {@code base + (1 - base) * |v| / 20000}, as in
+ * {@link RectFSpringSolver#start} where the base is 0.1.
+ *
+ * The best combinations are the ones that settle in the fewest frames for the worst start
+ * velocity, among those whose spring overshoot is less than --max-overshoot for every start
+ * velocity, which defaults to the y overshoot the fling is allowed. If none is, the combinations
+ * that overshoot the least are reported instead.
+ *
+ * Run with ./gradlew :benchmark:sweep --args="[--friction min:max:count] [--stiffness ...]
+ * [--damping ...] [--velocity-factor ...] [--velocities v1,v2,...] [--refresh-rate 60]
+ * [--distance px] [--min-vis-change px] [--y-overshoot px] [--max-overshoot px] [--top n]
+ * [--threads n] [--csv path]". Every grid accepts either a range or a list of values.
+ */
+public class SpringParameterSweep {
+
+    // Stop simulating combinations that never settle after this long, like GestureReplay.
+    private static final float MAX_DURATION_MS = 10_000;
+    // Velocity, in pixels per second, at which the spring velocity factor reaches 1.
+    private static final float FULL_VELOCITY_FACTOR_VELOCITY = 20000;
+    // Number of combinations simulated by a single task without forking.
+    private static final int LEAF_SIZE = 32;
+
+    private final float[] mFrictions;
+    private final float[] mStiffnesses;
+    private final float[] mDampings;
+    private final float[] mVelocityFactors;
+    private final float[] mVelocities;
+    private final float mFrameIntervalMs;
+    private final float mStartY;
+    private final float mTargetY;
+    private final float mMinVisChange;
+    private final float mYOvershoot;
+
+    public SpringParameterSweep(float[] frictions, float[] stiffnesses, float[] dampings,
+            float[] velocityFactors, float[] velocities, float refreshRate, float distance,
+            float minVisChange, float yOvershoot) {
+        mFrictions = frictions;
+        mStiffnesses = stiffnesses;
+        mDampings = dampings;
+        mVelocityFactors = velocityFactors;
+        mVelocities = velocities;
+        mFrameIntervalMs = 1000f / refreshRate;
+        // Like closing to an icon: the bottom of the rect moves up from the bottom of the screen.
+        mStartY = distance;
+        mTargetY = 0;
+        mMinVisChange = minVisChange;
+        mYOvershoot = yOvershoot;
+    }
+
+    public int getCombinationCount() {
+        return mFrictions.length * mStiffnesses.length * mDampings.length
+                * mVelocityFactors.length;
+    }
+
+    /**
+     * Simulates every combination of the grid on {@param pool}.
+     */
+    public Result[] run(ForkJoinPool pool) {
+        Result[] results = new Result[getCombinationCount()];
+        pool.invoke(new SweepTask(results, 0, results.length));
+        return results;
+    }
+
+    /**
+     * Simulates the combination at {@param index} of the grid, for every start velocity.
+     */
+    public Result simulate(int index) {
+        int i = index;
+        float velocityFactor = mVelocityFactors[i % mVelocityFactors.length];
+        i /= mVelocityFactors.length;
+        float damping = mDampings[i % mDampings.length];
+        i /= mDampings.length;
+        float stiffness = mStiffnesses[i % mStiffnesses.length];
+        i /= mStiffnesses.length;
+        float friction = mFrictions[i];
+        return simulate(friction, stiffness, damping, velocityFactor);
+    }
+
+    /**
+     * Simulates the given parameters for every start velocity.
+     */
+    public Result simulate(float friction, float stiffness, float damping,
+            float velocityFactor) {
+        Result result = new Result(friction, stiffness, damping, velocityFactor);
+        FlingSpringSolver solver = new FlingSpringSolver(friction, stiffness, damping);
+        float startY = mStartY;
+        float endY = mTargetY;
+        float direction = Math.signum(endY - startY);
+        for (float velocity : mVelocities) {
+            float springVelocityFactor = velocityFactor
+                    + (1 - velocityFactor) * Math.abs(velocity) / FULL_VELOCITY_FACTOR_VELOCITY;
+            solver.start(startY, endY, velocity, mMinVisChange,
+                    Math.min(startY, endY - mYOvershoot), Math.max(startY, endY),
+                    springVelocityFactor);
+
+            // The spring starts where the fling ended, which may already be past the target.
+            float handoffTimeMs = solver.getHandoffTimeMs();
+            float overshootBase = Math.max(endY * direction,
+                    solver.getPosition(handoffTimeMs) * direction);
+            int frames = 0;
+            float overshoot = 0;
+            boolean settled = false;
+            float timeMs = 0;
+            while (!settled && timeMs <= MAX_DURATION_MS) {
+                timeMs = frames * mFrameIntervalMs;
+                if (!solver.isFlinging(timeMs)) {
+                    overshoot = Math.max(overshoot,
+                            solver.getPosition(timeMs) * direction - overshootBase);
+                }
+                settled = solver.isAtEquilibrium(timeMs);
+                frames++;
+            }
+            result.add(frames, timeMs, overshoot, settled);
+        }
+        return result;
+    }
+
+    private final class SweepTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Result[] mResults;
+        private final int mStart;
+        private final int mEnd;
+
+        SweepTask(Result[] results, int start, int end) {
+            mResults = results;
+            mStart = start;
+            mEnd = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (mEnd - mStart <= LEAF_SIZE) {
+                for (int i = mStart; i < mEnd; i++) {
+                    mResults[i] = simulate(i);
+                }
+                return;
+            }
+            int middle = (mStart + mEnd) >>> 1;
+            invokeAll(new SweepTask(mResults, mStart, middle),
+                    new SweepTask(mResults, middle, mEnd));
+        }
+    }
+
+    /**
+     * Parses either a range "min:max:count" of evenly spaced values, or a list "v1,v2,...".
+     */
+    static float[] parseValues(String spec) {
+        String[] range = spec.split(":");
+        if (range.length == 3) {
+            float min = Float.parseFloat(range[0]);
+            float max = Float.parseFloat(range[1]);
+            int count = Integer.parseInt(range[2]);
+            if (count < 1) {
+                throw new IllegalArgumentException("Range needs at least one value: " + spec);
+            }
+            float[] values = new float[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = count == 1 ? min : min + (max - min) * i / (count - 1);
+            }
+            return values;
+        }
+        String[] list = spec.split(",");
+        float[] values = new float[list.length];
+        for (int i = 0; i < list.length; i++) {
+            values[i] = Float.parseFloat(list[i].trim());
+        }
+        return values;
+    }
+
+    public static void main(String[] args) throws FileNotFoundException {
+        float[] frictions = parseValues("0.75:3:10");
+        float[] stiffnesses = parseValues("100:800:15");
+        float[] dampings = parseValues("0.5:1.2:15");
+        float[] velocityFactors = parseValues("0:1:11");
+        // Towards the target, from a slow release to a hard fling.
+        float[] velocities = parseValues("0,-1000,-3000,-6000,-10000,-15000,-20000");
+        float refreshRate = 60;
+        // Defaults for a 1080x1920 xxhdpi screen, see the swipe_up dimens.
+        float distance = 1300;
+        float minVisChange = 54;
+        float yOvershoot = 30;
+        float maxOvershoot = -1;
+        int top = 20;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String csvPath = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--friction":
+                    frictions = parseValues(args[++i]);
+                    break;
+                case "--stiffness":
+                    stiffnesses = parseValues(args[++i]);
+                    break;
+                case "--damping":
+                    dampings = parseValues(args[++i]);
+                    break;
+                case "--velocity-factor":
+                    velocityFactors = parseValues(args[++i]);
+                    break;
+                case "--velocities":
+                    velocities = parseValues(args[++i]);
+                    break;
+                case "--refresh-rate":
+                    refreshRate = Float.parseFloat(args[++i]);
+                    break;
+                case "--distance":
+                    distance = Float.parseFloat(args[++i]);
+                    break;
+                case "--min-vis-change":
+                    minVisChange = Float.parseFloat(args[++i]);
+                    break;
+                case "--y-overshoot":
+                    yOvershoot = Float.parseFloat(args[++i]);
+                    break;
+                case "--max-overshoot":
+                    maxOvershoot = Float.parseFloat(args[++i]);
+                    break;
+                case "--top":
+                    top = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Math.max(1, Integer.parseInt(args[++i]));
+                    break;
+                case "--csv":
+                    csvPath = args[++i];
+                    break;
+                default:
+                    System.err.println("Unknown argument " + args[i] + ", see the documentation"
+                            + " of SpringParameterSweep for usage. Only the y axis is"
+                            + " simulated.");
+                    System.exit(1);
+            }
+        }
+
+        if (maxOvershoot < 0) {
+            maxOvershoot = yOvershoot;
+        }
+
+        SpringParameterSweep sweep = new SpringParameterSweep(frictions, stiffnesses, dampings,
+                velocityFactors, velocities, refreshRate, distance, minVisChange, yOvershoot);
+        long startNanos = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Result[] results = sweep.run(pool);
+        pool.shutdown();
+        long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+
+        PrintStream out = System.out;
+        out.println(String.format("axis=y combinations=%d velocities=%d threads=%d elapsedMs=%d",
+                results.length, velocities.length, threads, elapsedMs));
+        out.println("current:");
+        out.println("  " + sweep.simulate(FlingSpringSolver.FLING_FRICTION,
+                FlingSpringSolver.SPRING_STIFFNESS, FlingSpringSolver.SPRING_DAMPING, 0.1f));
+
+        List<Result> candidates = new ArrayList<>();
+        for (Result result : results) {
+            if (result.unsettled == 0 && result.maxOvershoot < maxOvershoot) {
+                candidates.add(result);
+            }
+        }
+        Result[] best = candidates.toArray(new Result[0]);
+        Arrays.sort(best, (a, b) -> a.maxFrames != b.maxFrames
+                ? Integer.compare(a.maxFrames, b.maxFrames)
+                : Integer.compare(a.totalFrames, b.totalFrames));
+        out.println(String.format("best of %d settled with spring overshoot < %.1fpx:",
+                best.length, maxOvershoot));
+        for (int i = 0; i < Math.min(top, best.length); i++) {
+            out.println("  " + best[i]);
+        }
+        if (best.length == 0) {
+            // Still show how close the grid gets, so that the limit or the grid can be revised.
+            Result[] closest = results.clone();
+            Arrays.sort(closest, (a, b) -> a.unsettled != b.unsettled
+                    ? Integer.compare(a.unsettled, b.unsettled)
+                    : Float.compare(a.maxOvershoot, b.maxOvershoot));
+            out.println("none, least spring overshoot:");
+            for (int i = 0; i < Math.min(top, closest.length); i++) {
+                out.println("  " + closest[i]);
+            }
+        }
+
+        if (csvPath != null) {
+            try (PrintStream csv = new PrintStream(csvPath)) {
+                csv.println("friction,stiffness,damping,velocityFactor,maxFrames,avgFrames,"
+                        + "maxSettleMs,maxOvershootPx,unsettled");
+                for (Result result : results) {
+                    csv.println(String.format("%.4f,%.2f,%.4f,%.4f,%d,%.2f,%.1f,%.2f,%d",
+                            result.friction, result.stiffness, result.damping,
+                            result.velocityFactor, result.maxFrames,
+                            (float) result.totalFrames / result.count, result.maxSettleTimeMs,
+                            result.maxOvershoot, result.unsettled));
+                }
+            }
+        }
+    }
+
+    /**
+     * Outcome of one combination of parameters, over every start velocity.
+     */
+    public static final class Result {
+        public final float friction;
+        public final float stiffness;
+        public final float damping;
+        public final float velocityFactor;
+        public int count;
+        public int maxFrames;
+        public int totalFrames;
+        // Time of the first frame at rest, or of the last frame simulated if it never settled.
+        public float maxSettleTimeMs;
+        // Furthest distance the spring went past the target, or past the end of the fling if
+        // that was already past the target, in pixels.
+        public float maxOvershoot;
+        public int unsettled;
+
+        Result(float friction, float stiffness, float damping, float velocityFactor) {
+            this.friction = friction;
+            this.stiffness = stiffness;
+            this.damping = damping;
+            this.velocityFactor = velocityFactor;
+        }
+
+        void add(int frames, float settleTimeMs, float overshoot, boolean settled) {
+            count++;
+            maxFrames = Math.max(maxFrames, frames);
+            totalFrames += frames;
+            maxSettleTimeMs = Math.max(maxSettleTimeMs, settleTimeMs);
+            maxOvershoot = Math.max(maxOvershoot, overshoot);
+            if (!settled) {
+                unsettled++;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("friction=%.3f stiffness=%.1f damping=%.3f velocityFactor=%.2f"
+                            + " maxFrames=%d avgFrames=%.1f maxSettleMs=%.1f maxOvershootPx=%.2f%s",
+                    friction, stiffness, damping, velocityFactor, maxFrames,
+                    (float) totalFrames / count, maxSettleTimeMs, maxOvershoot,
+                    unsettled == 0 ? "" : " unsettled=" + unsettled);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package android.animation;
+
+/**
+ * JVM stand-in for the framework class, see the benchmark module's build.gradle.
+ */
+public abstract class Animator {
+
+    public void addListener(AnimatorListener listener) { }
+
+    public void start() { }
+
+    public void pause() { }
+
+    public void end() { }
+
+    public interface AnimatorListener {
+        void onAnimationStart(Animator animation);
+        void onAnimationEnd(Animator animation);
+        void onAnimationCancel(Animator animation);
+        void onAnimationRepeat(Animator animation);
+    }
+}
@@ -0,0 +1,19 @@
+package android.animation;
+
+/**
+ * JVM stand-in for the framework class, see the benchmark module's build.gradle.
+ */
+public abstract class AnimatorListenerAdapter implements Animator.AnimatorListener {
+
+    @Override
+    public void onAnimationStart(Animator animation) { }
+
+    @Override
+    public void onAnimationEnd(Animator animation) { }
+
+    @Override
+    public void onAnimationCancel(Animator animation) { }
+
+    @Override
+    public void onAnimationRepeat(Animator animation) { }
+}
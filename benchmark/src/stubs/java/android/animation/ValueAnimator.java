@@ -0,0 +1,48 @@
+package android.animation;
+
+import java.util.ArrayList;
+
+/**
+ * JVM stand-in for the framework class. Only supports linear float animations, which are driven
+ * manually through {@link #setCurrentFraction(float)}.
+ */
+public class ValueAnimator extends Animator {
+
+    private final ArrayList<AnimatorUpdateListener> mUpdateListeners = new ArrayList<>();
+    private float mStartValue;
+    private float mEndValue;
+    private float mFraction;
+    private float mValue;
+
+    public static ValueAnimator ofFloat(float... values) {
+        ValueAnimator anim = new ValueAnimator();
+        anim.mStartValue = values[0];
+        anim.mEndValue = values[values.length - 1];
+        anim.mValue = anim.mStartValue;
+        return anim;
+    }
+
+    public void addUpdateListener(AnimatorUpdateListener listener) {
+        mUpdateListeners.add(listener);
+    }
+
+    public void setCurrentFraction(float fraction) {
+        mFraction = fraction;
+        mValue = mStartValue + fraction * (mEndValue - mStartValue);
+        for (int i = 0; i < mUpdateListeners.size(); i++) {
+            mUpdateListeners.get(i).onAnimationUpdate(this);
+        }
+    }
+
+    public float getAnimatedFraction() {
+        return mFraction;
+    }
+
+    public Object getAnimatedValue() {
+        return mValue;
+    }
+
+    public interface AnimatorUpdateListener {
+        void onAnimationUpdate(ValueAnimator animation);
+    }
+}
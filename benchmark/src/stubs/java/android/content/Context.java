@@ -0,0 +1,15 @@
+package android.content;
+
+import android.content.res.Resources;
+
+/**
+ * JVM stand-in for the framework class, only holding resources.
+ */
+public class Context {
+
+    private final Resources mResources = new Resources();
+
+    public Resources getResources() {
+        return mResources;
+    }
+}
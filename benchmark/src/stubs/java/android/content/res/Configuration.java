@@ -0,0 +1,26 @@
+package android.content.res;
+
+/**
+ * JVM stand-in for the framework class, with only the orientation.
+ */
+public final class Configuration {
+
+    public int orientation;
+
+    public Configuration() { }
+
+    public Configuration(Configuration o) {
+        orientation = o.orientation;
+    }
+
+    @Override
+    public boolean equals(Object that) {
+        return that instanceof Configuration
+                && ((Configuration) that).orientation == orientation;
+    }
+
+    @Override
+    public int hashCode() {
+        return orientation;
+    }
+}
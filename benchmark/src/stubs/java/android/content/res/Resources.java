@@ -0,0 +1,35 @@
+package android.content.res;
+
+import android.util.DisplayMetrics;
+import android.util.SparseArray;
+
+/**
+ * JVM stand-in for the framework class. Dimensions are set through
+ * {@link #setDimensionPixelSize(int, int)}, which has no framework equivalent.
+ */
+public class Resources {
+
+    private final DisplayMetrics mMetrics = new DisplayMetrics();
+    private final Configuration mConfiguration = new Configuration();
+    private final SparseArray<Integer> mDimensions = new SparseArray<>();
+
+    public DisplayMetrics getDisplayMetrics() {
+        return mMetrics;
+    }
+
+    public Configuration getConfiguration() {
+        return mConfiguration;
+    }
+
+    public int getDimensionPixelSize(int id) {
+        Integer size = mDimensions.get(id);
+        if (size == null) {
+            throw new IllegalArgumentException("No dimension 0x" + Integer.toHexString(id));
+        }
+        return size;
+    }
+
+    public void setDimensionPixelSize(int id, int size) {
+        mDimensions.put(id, size);
+    }
+}
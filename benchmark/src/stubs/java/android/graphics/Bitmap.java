@@ -0,0 +1,23 @@
+package android.graphics;
+
+/**
+ * JVM stand-in for the framework class, backed by one byte per pixel whatever the config.
+ */
+public final class Bitmap {
+
+    public enum Config { ALPHA_8, ARGB_8888 }
+
+    private final byte[] mPixels;
+
+    private Bitmap(int width, int height) {
+        mPixels = new byte[width * height];
+    }
+
+    public static Bitmap createBitmap(int width, int height, Config config) {
+        return new Bitmap(width, height);
+    }
+
+    public int getAllocationByteCount() {
+        return mPixels.length;
+    }
+}
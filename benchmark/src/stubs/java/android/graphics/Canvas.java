@@ -0,0 +1,46 @@
+package android.graphics;
+
+/**
+ * JVM stand-in for the framework class. Drawing is a no-op, the matrix is always the identity.
+ */
+public class Canvas {
+
+    private static final Matrix IDENTITY = new Matrix();
+
+    private int mSaveCount = 1;
+
+    public Canvas() { }
+
+    public Canvas(Bitmap bitmap) { }
+
+    public int save() {
+        return mSaveCount++;
+    }
+
+    public void restoreToCount(int saveCount) {
+        mSaveCount = saveCount;
+    }
+
+    public void getMatrix(Matrix ctm) {
+        ctm.set(IDENTITY);
+    }
+
+    public boolean clipPath(Path path) {
+        return true;
+    }
+
+    public void translate(float dx, float dy) { }
+
+    public void scale(float sx, float sy) { }
+
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) { }
+
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) { }
+
+    public void drawPath(Path path, Paint paint) { }
+
+    public void drawCircle(float cx, float cy, float radius, Paint paint) { }
+
+    public void drawRoundRect(float left, float top, float right, float bottom, float rx, float ry,
+            Paint paint) { }
+}
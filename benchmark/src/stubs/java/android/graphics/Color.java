@@ -0,0 +1,9 @@
+package android.graphics;
+
+/**
+ * JVM stand-in for the framework class, see the benchmark module's build.gradle.
+ */
+public class Color {
+
+    public static final int TRANSPARENT = 0;
+}
@@ -0,0 +1,51 @@
+package android.graphics;
+
+/**
+ * JVM stand-in for the framework class, limited to scale and translation.
+ */
+public class Matrix {
+
+    public static final int MSCALE_X = 0;
+    public static final int MSKEW_X = 1;
+    public static final int MTRANS_X = 2;
+    public static final int MSKEW_Y = 3;
+    public static final int MSCALE_Y = 4;
+    public static final int MTRANS_Y = 5;
+
+    float mScaleX = 1;
+    float mScaleY = 1;
+    float mTransX;
+    float mTransY;
+
+    public void setScale(float sx, float sy) {
+        mScaleX = sx;
+        mScaleY = sy;
+        mTransX = 0;
+        mTransY = 0;
+    }
+
+    public void set(Matrix src) {
+        mScaleX = src.mScaleX;
+        mScaleY = src.mScaleY;
+        mTransX = src.mTransX;
+        mTransY = src.mTransY;
+    }
+
+    public void getValues(float[] values) {
+        values[MSCALE_X] = mScaleX;
+        values[MSKEW_X] = 0;
+        values[MTRANS_X] = mTransX;
+        values[MSKEW_Y] = 0;
+        values[MSCALE_Y] = mScaleY;
+        values[MTRANS_Y] = mTransY;
+        values[6] = 0;
+        values[7] = 0;
+        values[8] = 1;
+    }
+
+    public boolean postTranslate(float dx, float dy) {
+        mTransX += dx;
+        mTransY += dy;
+        return true;
+    }
+}
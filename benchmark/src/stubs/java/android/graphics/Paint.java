@@ -0,0 +1,25 @@
+package android.graphics;
+
+/**
+ * JVM stand-in for the framework class, see the benchmark module's build.gradle.
+ */
+public class Paint {
+
+    public static final int ANTI_ALIAS_FLAG = 1;
+
+    public enum Style { FILL, STROKE, FILL_AND_STROKE }
+
+    private Style mStyle = Style.FILL;
+
+    public Paint() { }
+
+    public Paint(int flags) { }
+
+    public Style getStyle() {
+        return mStyle;
+    }
+
+    public void setStyle(Style style) {
+        mStyle = style;
+    }
+}
@@ -0,0 +1,83 @@
+package android.graphics;
+
+import java.util.Arrays;
+
+/**
+ * JVM stand-in for the framework class. Records the coordinates of every operation into a
+ * growable array, roughly the work the native path does to store its verbs and points, so that
+ * benchmarks measure the cost of building a path rather than an empty call.
+ */
+public class Path {
+
+    public enum Direction { CW, CCW }
+
+    private float[] mPoints = new float[64];
+    private int mSize;
+
+    public void reset() {
+        mSize = 0;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public void moveTo(float x, float y) {
+        add(x, y);
+    }
+
+    public void rLineTo(float dx, float dy) {
+        add(dx, dy);
+    }
+
+    public void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        add(x1, y1);
+        add(x2, y2);
+        add(x3, y3);
+    }
+
+    public void close() { }
+
+    public void addCircle(float x, float y, float radius, Direction dir) {
+        add(x, y);
+        add(radius, radius);
+    }
+
+    public void addRoundRect(float left, float top, float right, float bottom, float rx, float ry,
+            Direction dir) {
+        add(left, top);
+        add(right, bottom);
+        add(rx, ry);
+    }
+
+    public void addRoundRect(float left, float top, float right, float bottom, float[] radii,
+            Direction dir) {
+        add(left, top);
+        add(right, bottom);
+        for (int i = 0; i < 8; i += 2) {
+            add(radii[i], radii[i + 1]);
+        }
+    }
+
+    public void addPath(Path src, float dx, float dy) {
+        for (int i = 0; i < src.mSize; i += 2) {
+            add(src.mPoints[i] + dx, src.mPoints[i + 1] + dy);
+        }
+    }
+
+    public void transform(Matrix matrix, Path dst) {
+        dst.mSize = 0;
+        for (int i = 0; i < mSize; i += 2) {
+            dst.add(mPoints[i] * matrix.mScaleX + matrix.mTransX,
+                    mPoints[i + 1] * matrix.mScaleY + matrix.mTransY);
+        }
+    }
+
+    private void add(float x, float y) {
+        if (mSize + 2 > mPoints.length) {
+            mPoints = Arrays.copyOf(mPoints, mPoints.length * 2);
+        }
+        mPoints[mSize++] = x;
+        mPoints[mSize++] = y;
+    }
+}
@@ -0,0 +1,21 @@
+package android.graphics;
+
+/**
+ * JVM stand-in for the framework class, see the benchmark module's build.gradle.
+ */
+public class PointF {
+
+    public float x;
+    public float y;
+
+    public PointF() { }
+
+    public PointF(float x, float y) {
+        set(x, y);
+    }
+
+    public final void set(float x, float y) {
+        this.x = x;
+        this.y = y;
+    }
+}
@@ -0,0 +1,31 @@
+package android.graphics.drawable;
+
+import android.graphics.Canvas;
+
+/**
+ * JVM stand-in for the framework class. Drawing is a no-op.
+ */
+public class AdaptiveIconDrawable extends Drawable {
+
+    private final Drawable mBackground;
+    private final Drawable mForeground;
+
+    public AdaptiveIconDrawable(Drawable backgroundDrawable, Drawable foregroundDrawable) {
+        mBackground = backgroundDrawable;
+        mForeground = foregroundDrawable;
+    }
+
+    public Drawable getBackground() {
+        return mBackground;
+    }
+
+    public Drawable getForeground() {
+        return mForeground;
+    }
+
+    @Override
+    public void draw(Canvas canvas) { }
+
+    @Override
+    public void setAlpha(int alpha) { }
+}
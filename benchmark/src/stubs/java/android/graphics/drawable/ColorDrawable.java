@@ -0,0 +1,28 @@
+package android.graphics.drawable;
+
+import android.graphics.Canvas;
+
+/**
+ * JVM stand-in for the framework class. Drawing is a no-op.
+ */
+public class ColorDrawable extends Drawable {
+
+    private int mColor;
+
+    public ColorDrawable(int color) {
+        mColor = color;
+    }
+
+    @Override
+    public void draw(Canvas canvas) { }
+
+    @Override
+    public int getAlpha() {
+        return mColor >>> 24;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mColor = (alpha << 24) | (mColor & 0x00FFFFFF);
+    }
+}
@@ -0,0 +1,32 @@
+package android.graphics.drawable;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+/**
+ * JVM stand-in for the framework class, with only the bounds and alpha.
+ */
+public abstract class Drawable {
+
+    private final Rect mBounds = new Rect();
+
+    public abstract void draw(Canvas canvas);
+
+    public void setBounds(int left, int top, int right, int bottom) {
+        mBounds.set(left, top, right, bottom);
+    }
+
+    public void setBounds(Rect bounds) {
+        setBounds(bounds.left, bounds.top, bounds.right, bounds.bottom);
+    }
+
+    public final Rect getBounds() {
+        return mBounds;
+    }
+
+    public int getAlpha() {
+        return 0xFF;
+    }
+
+    public abstract void setAlpha(int alpha);
+}
@@ -0,0 +1,15 @@
+package android.os;
+
+/**
+ * JVM stand-in for the framework class, reporting the newest version the app targets.
+ */
+public class Build {
+
+    public static class VERSION {
+        public static final int SDK_INT = VERSION_CODES.Q;
+    }
+
+    public static class VERSION_CODES {
+        public static final int Q = 29;
+    }
+}
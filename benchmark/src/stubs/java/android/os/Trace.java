@@ -0,0 +1,17 @@
+package android.os;
+
+/**
+ * JVM stand-in for the framework class. Tracing is never enabled.
+ */
+public final class Trace {
+
+    public static boolean isEnabled() {
+        return false;
+    }
+
+    public static void beginSection(String sectionName) { }
+
+    public static void endSection() { }
+
+    public static void setCounter(String counterName, long counterValue) { }
+}
@@ -0,0 +1,10 @@
+package android.util;
+
+/**
+ * JVM stand-in for the framework class, see the benchmark module's build.gradle.
+ */
+public class DisplayMetrics {
+
+    public int widthPixels;
+    public int heightPixels;
+}
@@ -0,0 +1,78 @@
+package android.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JVM stand-in for the framework class, with the same accounting but no synchronization.
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> mMap = new LinkedHashMap<>(0, 0.75f, true);
+    private final int mMaxSize;
+    private int mSize;
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+
+    public LruCache(int maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    public final V get(K key) {
+        V value = mMap.get(key);
+        if (value != null) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+        return value;
+    }
+
+    public final V put(K key, V value) {
+        mSize += sizeOf(key, value);
+        V previous = mMap.put(key, value);
+        if (previous != null) {
+            mSize -= sizeOf(key, previous);
+        }
+        trimToSize(mMaxSize);
+        return previous;
+    }
+
+    private void trimToSize(int maxSize) {
+        while (mSize > maxSize && !mMap.isEmpty()) {
+            Map.Entry<K, V> eldest = mMap.entrySet().iterator().next();
+            mMap.remove(eldest.getKey());
+            mSize -= sizeOf(eldest.getKey(), eldest.getValue());
+            mEvictionCount++;
+        }
+    }
+
+    public final void evictAll() {
+        trimToSize(-1);
+    }
+
+    protected int sizeOf(K key, V value) {
+        return 1;
+    }
+
+    public final int size() {
+        return mSize;
+    }
+
+    public final int maxSize() {
+        return mMaxSize;
+    }
+
+    public final int hitCount() {
+        return mHitCount;
+    }
+
+    public final int missCount() {
+        return mMissCount;
+    }
+
+    public final int evictionCount() {
+        return mEvictionCount;
+    }
+}
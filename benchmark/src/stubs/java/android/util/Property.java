@@ -0,0 +1,29 @@
+package android.util;
+
+/**
+ * JVM stand-in for the framework class, see the benchmark module's build.gradle.
+ */
+public abstract class Property<T, V> {
+
+    private final String mName;
+    private final Class<V> mType;
+
+    public Property(Class<V> type, String name) {
+        mType = type;
+        mName = name;
+    }
+
+    public abstract V get(T object);
+
+    public void set(T object, V value) {
+        throw new UnsupportedOperationException("Property " + mName + " is read-only");
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public Class<V> getType() {
+        return mType;
+    }
+}
@@ -0,0 +1,6 @@
+package android.util;
+
+/**
+ * JVM stand-in for the framework class, see the benchmark module's build.gradle.
+ */
+public class TypedValue { }
@@ -0,0 +1,51 @@
+package android.view;
+
+import android.view.animation.AnimationUtils;
+
+import java.util.ArrayList;
+
+/**
+ * JVM stand-in for the framework class, on a single thread. There is no vsync: frames happen
+ * when {@link #doFrame(long)} is called, which has no framework equivalent.
+ */
+public final class Choreographer {
+
+    private static final Choreographer sInstance = new Choreographer();
+
+    private final ArrayList<FrameCallback> mCallbacks = new ArrayList<>();
+    // Callbacks of the frame being run, so that those posted meanwhile wait for the next one.
+    private final ArrayList<FrameCallback> mRunning = new ArrayList<>();
+
+    public static Choreographer getInstance() {
+        return sInstance;
+    }
+
+    public void postFrameCallback(FrameCallback callback) {
+        mCallbacks.add(callback);
+    }
+
+    public void removeFrameCallback(FrameCallback callback) {
+        while (mCallbacks.remove(callback)) { }
+    }
+
+    /**
+     * Runs the callbacks posted before this call, as a frame with the vsync time
+     * {@param frameTimeNanos} would, with the animation clock locked to that time.
+     */
+    public void doFrame(long frameTimeNanos) {
+        for (int i = 0; i < mCallbacks.size(); i++) {
+            mRunning.add(mCallbacks.get(i));
+        }
+        mCallbacks.clear();
+        AnimationUtils.lockAnimationClock(frameTimeNanos / 1_000_000);
+        for (int i = 0; i < mRunning.size(); i++) {
+            mRunning.get(i).doFrame(frameTimeNanos);
+        }
+        AnimationUtils.unlockAnimationClock();
+        mRunning.clear();
+    }
+
+    public interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+}
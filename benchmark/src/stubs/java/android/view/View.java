@@ -0,0 +1,168 @@
+package android.view;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.util.AttributeSet;
+
+/**
+ * JVM stand-in for the framework class, with just the state touched by the reveal animations and
+ * the floating icon. There is no view hierarchy: invalidating and laying out only record state.
+ */
+public class View {
+
+    private final Context mContext;
+    private ViewGroup.LayoutParams mLayoutParams;
+    private ViewOutlineProvider mOutlineProvider;
+    private boolean mClipToOutline;
+    private Drawable mBackground;
+    private int mLeft;
+    private int mTop;
+    private int mRight;
+    private int mBottom;
+    private float mTranslationX;
+    private float mTranslationY;
+    private float mTranslationZ;
+    private float mScaleX = 1;
+    private float mScaleY = 1;
+    private float mPivotX;
+    private float mPivotY;
+    private float mAlpha = 1;
+
+    public View(Context context) {
+        mContext = context;
+    }
+
+    public View(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        this(context);
+    }
+
+    public final Context getContext() {
+        return mContext;
+    }
+
+    public Resources getResources() {
+        return mContext.getResources();
+    }
+
+    public ViewGroup.LayoutParams getLayoutParams() {
+        return mLayoutParams;
+    }
+
+    public void setLayoutParams(ViewGroup.LayoutParams params) {
+        mLayoutParams = params;
+    }
+
+    public void layout(int l, int t, int r, int b) {
+        mLeft = l;
+        mTop = t;
+        mRight = r;
+        mBottom = b;
+    }
+
+    public final int getLeft() {
+        return mLeft;
+    }
+
+    public final int getTop() {
+        return mTop;
+    }
+
+    public final int getWidth() {
+        return mRight - mLeft;
+    }
+
+    public final int getHeight() {
+        return mBottom - mTop;
+    }
+
+    public ViewOutlineProvider getOutlineProvider() {
+        return mOutlineProvider;
+    }
+
+    public void setOutlineProvider(ViewOutlineProvider provider) {
+        mOutlineProvider = provider;
+    }
+
+    public boolean getClipToOutline() {
+        return mClipToOutline;
+    }
+
+    public void setClipToOutline(boolean clipToOutline) {
+        mClipToOutline = clipToOutline;
+    }
+
+    public void setBackground(Drawable background) {
+        mBackground = background;
+    }
+
+    public float getElevation() {
+        return 0;
+    }
+
+    public float getTranslationX() {
+        return mTranslationX;
+    }
+
+    public void setTranslationX(float translationX) {
+        mTranslationX = translationX;
+    }
+
+    public float getTranslationY() {
+        return mTranslationY;
+    }
+
+    public void setTranslationY(float translationY) {
+        mTranslationY = translationY;
+    }
+
+    public void setTranslationZ(float translationZ) {
+        mTranslationZ = translationZ;
+    }
+
+    public float getScaleX() {
+        return mScaleX;
+    }
+
+    public void setScaleX(float scaleX) {
+        mScaleX = scaleX;
+    }
+
+    public float getScaleY() {
+        return mScaleY;
+    }
+
+    public void setScaleY(float scaleY) {
+        mScaleY = scaleY;
+    }
+
+    public void setPivotX(float pivotX) {
+        mPivotX = pivotX;
+    }
+
+    public void setPivotY(float pivotY) {
+        mPivotY = pivotY;
+    }
+
+    public float getAlpha() {
+        return mAlpha;
+    }
+
+    public void setAlpha(float alpha) {
+        mAlpha = alpha;
+    }
+
+    public void invalidate() { }
+
+    public void invalidateOutline() { }
+
+    public void draw(Canvas canvas) {
+        if (mBackground != null) {
+            mBackground.draw(canvas);
+        }
+    }
+
+    protected void onConfigurationChanged(Configuration newConfig) { }
+}
@@ -0,0 +1,40 @@
+package android.view;
+
+import android.content.Context;
+
+/**
+ * JVM stand-in for the framework class, only for its layout params.
+ */
+public abstract class ViewGroup extends View {
+
+    public ViewGroup(Context context) {
+        super(context);
+    }
+
+    public static class LayoutParams {
+
+        public int width;
+        public int height;
+
+        public LayoutParams(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    public static class MarginLayoutParams extends LayoutParams {
+
+        public int leftMargin;
+        public int topMargin;
+        public int rightMargin;
+        public int bottomMargin;
+
+        public MarginLayoutParams(int width, int height) {
+            super(width, height);
+        }
+
+        public int getMarginStart() {
+            return leftMargin;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package android.view;
+
+import android.graphics.Outline;
+
+/**
+ * JVM stand-in for the framework class, see the benchmark module's build.gradle.
+ */
+public abstract class ViewOutlineProvider {
+
+    public abstract void getOutline(View view, Outline outline);
+}
@@ -0,0 +1,22 @@
+package android.view.animation;
+
+/**
+ * JVM stand-in for the framework class. Like the framework's, the animation clock is locked to
+ * the vsync time while the stand-in Choreographer runs a frame.
+ */
+public class AnimationUtils {
+
+    private static long sLockedTimeMs = -1;
+
+    public static long currentAnimationTimeMillis() {
+        return sLockedTimeMs >= 0 ? sLockedTimeMs : System.nanoTime() / 1_000_000;
+    }
+
+    public static void lockAnimationClock(long vsyncMillis) {
+        sLockedTimeMs = vsyncMillis;
+    }
+
+    public static void unlockAnimationClock() {
+        sLockedTimeMs = -1;
+    }
+}
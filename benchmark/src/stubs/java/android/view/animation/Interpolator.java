@@ -0,0 +1,9 @@
+package android.view.animation;
+
+/**
+ * JVM stand-in for the framework interface, see the benchmark module's build.gradle.
+ */
+public interface Interpolator {
+
+    float getInterpolation(float input);
+}
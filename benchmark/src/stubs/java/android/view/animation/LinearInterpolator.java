@@ -0,0 +1,12 @@
+package android.view.animation;
+
+/**
+ * JVM stand-in for the framework class, see the benchmark module's build.gradle.
+ */
+public class LinearInterpolator implements Interpolator {
+
+    @Override
+    public float getInterpolation(float input) {
+        return input;
+    }
+}
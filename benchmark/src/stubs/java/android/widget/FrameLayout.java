@@ -0,0 +1,21 @@
+package android.widget;
+
+import android.content.Context;
+import android.view.ViewGroup;
+
+/**
+ * JVM stand-in for the framework class, only for its layout params.
+ */
+public class FrameLayout extends ViewGroup {
+
+    public FrameLayout(Context context) {
+        super(context);
+    }
+
+    public static class LayoutParams extends MarginLayoutParams {
+
+        public LayoutParams(int width, int height) {
+            super(width, height);
+        }
+    }
+}
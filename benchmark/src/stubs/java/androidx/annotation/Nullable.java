@@ -0,0 +1,6 @@
+package androidx.annotation;
+
+/**
+ * JVM stand-in for the androidx annotation, see the benchmark module's build.gradle.
+ */
+public @interface Nullable { }
@@ -0,0 +1,56 @@
+package androidx.core.util;
+
+/**
+ * JVM stand-in for the library class, with the same behavior.
+ */
+public final class Pools {
+
+    private Pools() { }
+
+    public interface Pool<T> {
+        T acquire();
+
+        boolean release(T instance);
+    }
+
+    public static class SimplePool<T> implements Pool<T> {
+
+        private final Object[] mPool;
+        private int mPoolSize;
+
+        public SimplePool(int maxPoolSize) {
+            if (maxPoolSize <= 0) {
+                throw new IllegalArgumentException("The max pool size must be > 0");
+            }
+            mPool = new Object[maxPoolSize];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T acquire() {
+            if (mPoolSize > 0) {
+                int lastPooledIndex = mPoolSize - 1;
+                T instance = (T) mPool[lastPooledIndex];
+                mPool[lastPooledIndex] = null;
+                mPoolSize--;
+                return instance;
+            }
+            return null;
+        }
+
+        @Override
+        public boolean release(T instance) {
+            for (int i = 0; i < mPoolSize; i++) {
+                if (mPool[i] == instance) {
+                    throw new IllegalStateException("Already in the pool!");
+                }
+            }
+            if (mPoolSize < mPool.length) {
+                mPool[mPoolSize] = instance;
+                mPoolSize++;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package androidx.dynamicanimation.animation;
+
+/**
+ * JVM stand-in for the library class, only for the sources using it to compile. The library runs
+ * on a Looper, so the benchmarks and tests only use the backends of RectFSpringAnim that don't
+ * start it, and starting one throws.
+ */
+public abstract class DynamicAnimation<T extends DynamicAnimation<T>> {
+
+    public T setStartValue(float startValue) {
+        return self();
+    }
+
+    public T setStartVelocity(float startVelocity) {
+        return self();
+    }
+
+    public T setMaxValue(float max) {
+        return self();
+    }
+
+    public T setMinValue(float min) {
+        return self();
+    }
+
+    public T setMinimumVisibleChange(float minimumVisibleChange) {
+        return self();
+    }
+
+    public T addEndListener(OnAnimationEndListener listener) {
+        return self();
+    }
+
+    public T addUpdateListener(OnAnimationUpdateListener listener) {
+        return self();
+    }
+
+    public void start() {
+        throw new UnsupportedOperationException("DynamicAnimation needs a Looper");
+    }
+
+    public void cancel() { }
+
+    public boolean isRunning() {
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T self() {
+        return (T) this;
+    }
+
+    public interface OnAnimationEndListener {
+        void onAnimationEnd(DynamicAnimation animation, boolean canceled, float value,
+                float velocity);
+    }
+
+    public interface OnAnimationUpdateListener {
+        void onAnimationUpdate(DynamicAnimation animation, float value, float velocity);
+    }
+}
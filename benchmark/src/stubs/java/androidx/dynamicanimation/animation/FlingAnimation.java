@@ -0,0 +1,13 @@
+package androidx.dynamicanimation.animation;
+
+/**
+ * JVM stand-in for the library class, see {@link DynamicAnimation}.
+ */
+public final class FlingAnimation extends DynamicAnimation<FlingAnimation> {
+
+    public <K> FlingAnimation(K object, FloatPropertyCompat<K> property) { }
+
+    public FlingAnimation setFriction(float friction) {
+        return this;
+    }
+}
@@ -0,0 +1,13 @@
+package androidx.dynamicanimation.animation;
+
+/**
+ * JVM stand-in for the library class, see {@link DynamicAnimation}.
+ */
+public abstract class FloatPropertyCompat<T> {
+
+    public FloatPropertyCompat(String name) { }
+
+    public abstract float getValue(T object);
+
+    public abstract void setValue(T object, float value);
+}
@@ -0,0 +1,23 @@
+package androidx.dynamicanimation.animation;
+
+/**
+ * JVM stand-in for the library class, see {@link DynamicAnimation}.
+ */
+public final class SpringAnimation extends DynamicAnimation<SpringAnimation> {
+
+    public <K> SpringAnimation(K object, FloatPropertyCompat<K> property) { }
+
+    public SpringAnimation setSpring(SpringForce force) {
+        return this;
+    }
+
+    public void animateToFinalPosition(float finalPosition) {
+        start();
+    }
+
+    public boolean canSkipToEnd() {
+        return false;
+    }
+
+    public void skipToEnd() { }
+}
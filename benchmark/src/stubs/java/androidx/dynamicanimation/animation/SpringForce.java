@@ -0,0 +1,22 @@
+package androidx.dynamicanimation.animation;
+
+/**
+ * JVM stand-in for the library class, with the same constants. See {@link DynamicAnimation}.
+ */
+public final class SpringForce {
+
+    public static final float STIFFNESS_LOW = 200f;
+    public static final float DAMPING_RATIO_LOW_BOUNCY = 0.75f;
+
+    public SpringForce() { }
+
+    public SpringForce(float finalPosition) { }
+
+    public SpringForce setStiffness(float stiffness) {
+        return this;
+    }
+
+    public SpringForce setDampingRatio(float dampingRatio) {
+        return this;
+    }
+}
@@ -0,0 +1,13 @@
+package com.transsion.springanimation;
+
+/**
+ * JVM stand-in for the class generated from the app resources, with the ids read by the sources
+ * compiled here. Their values are set on the stand-in Resources.
+ */
+public final class R {
+
+    public static final class dimen {
+        public static final int swipe_up_fling_min_visible_change = 0x7f050000;
+        public static final int swipe_up_y_overshoot = 0x7f050001;
+    }
+}
@@ -0,0 +1,91 @@
+package com.transsion.springanimation;
+
+import android.content.Context;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.view.View;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static com.transsion.springanimation.AllocationCounter.assertNoAllocation;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that the shape reveal of {@link IconShape}, driven by {@link RectFSpringSolver} as in
+ * a transition, doesn't allocate on every frame once warmed up. Runs on the stand-ins for the
+ * Android classes, so only allocations of the app code are caught, not those of the framework.
+ */
+public class RevealAllocationTest {
+
+    private static final float FRAME_INTERVAL_MS = 1000f / 60;
+    private static final int MAX_FRAMES = 600;
+
+    private final Rect mStartRect = new Rect(0, 0, 200, 200);
+    private final Rect mEndRect = new Rect(0, 0, 200, 360);
+    private final RectFSpringSolver mSolver = new RectFSpringSolver(18, 30);
+    private final float[] mFrame = new float[RectFSpringSolver.FRAME_STRIDE];
+
+    @BeforeClass
+    public static void setUpClass() {
+        AllocationCounter.assumeSupported();
+    }
+
+    @Test
+    public void circleReveal_doesNotAllocatePerFrame() {
+        assertRevealDoesNotAllocate(new IconShape.Circle());
+    }
+
+    @Test
+    public void roundedSquareReveal_doesNotAllocatePerFrame() {
+        assertRevealDoesNotAllocate(new IconShape.RoundedSquare(0.6f));
+    }
+
+    @Test
+    public void tearDropReveal_doesNotAllocatePerFrame() {
+        assertRevealDoesNotAllocate(new IconShape.TearDrop(0.3f));
+    }
+
+    @Test
+    public void squircleReveal_doesNotAllocatePerFrame() {
+        assertRevealDoesNotAllocate(new IconShape.Squircle(0.2f));
+    }
+
+    private void assertRevealDoesNotAllocate(IconShape shape) {
+        ClipTarget target = new ClipTarget();
+        ShapeReveal reveal = shape.createReveal(target);
+        Runnable transition = () -> {
+            mSolver.setRects(0, 0, 1080, 1920, 300, 600, 500, 800);
+            mSolver.start(0.5f, -3);
+            reveal.reset(mStartRect, mEndRect, 24, false);
+            for (int i = 0; i < MAX_FRAMES; i++) {
+                boolean atRest = mSolver.compute(i * FRAME_INTERVAL_MS);
+                mSolver.getFrame(mFrame, 0);
+                reveal.setProgress(mFrame[4]);
+                if (atRest) {
+                    return;
+                }
+            }
+            throw new AssertionError("Solver did not settle");
+        };
+        transition.run();
+        // Path shapes must keep setting the same path rather than a new one.
+        Path clipPath = target.mClipPath;
+        assertNoAllocation(transition);
+        assertSame(clipPath, target.mClipPath);
+    }
+
+    private static final class ClipTarget extends View implements ClipPathView {
+
+        Path mClipPath;
+
+        ClipTarget() {
+            super(new Context());
+        }
+
+        @Override
+        public void setClipPath(Path clipPath) {
+            mClipPath = clipPath;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.transsion.springanimation;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.PointF;
+import android.graphics.RectF;
+import android.graphics.drawable.AdaptiveIconDrawable;
+import android.graphics.drawable.ColorDrawable;
+import android.view.Choreographer;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static com.transsion.springanimation.AllocationCounter.assertNoAllocation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a whole transition, a {@link RectFSpringAnim} driving a {@link FloatingIconView}
+ * as in the app, doesn't allocate on every frame once warmed up. Frames are run through the
+ * stand-in Choreographer, and the icon is drawn after each of them: the update listeners, the
+ * icon update with its foreground spring and reveal, and the draw are all covered. Runs on the
+ * stand-ins for the Android classes, so only allocations of the app code are caught.
+ */
+public class TransitionAllocationTest {
+
+    private static final long FRAME_INTERVAL_NANOS = 16_666_667;
+    private static final int MAX_FRAMES = 600;
+    // Same as the dimens of the app on a 1080x1920 xxhdpi screen.
+    private static final int FLING_MIN_VISIBLE_CHANGE_PX = 54;
+    private static final int Y_OVERSHOOT_PX = 30;
+    private static final int ICON_SIZE_PX = 200;
+    private static final int ICON_LEFT_PX = 100;
+    private static final int ICON_TOP_PX = 300;
+
+    private final Context mContext = new Context();
+    private final TransitionFrameScheduler mScheduler = new TransitionFrameScheduler();
+    private final Canvas mCanvas = new Canvas();
+    private final RectF mStartRect = new RectF(0, 0, 1080, 1920);
+    private final RectF mTargetRect = new RectF(ICON_LEFT_PX, ICON_TOP_PX,
+            ICON_LEFT_PX + ICON_SIZE_PX, ICON_TOP_PX + ICON_SIZE_PX);
+    private final PointF mVelocity = new PointF(0.5f, -3);
+    private final RectF mLastRect = new RectF();
+    private FloatingIconView mIconView;
+    private long mFrameTimeNanos;
+    private int mUpdates;
+    private int mEnds;
+
+    private final RectFSpringAnim.OnUpdateListener mOnUpdateListener =
+            (currentRect, progress) -> {
+                mUpdates++;
+                mLastRect.set(currentRect.left, currentRect.top, currentRect.right,
+                        currentRect.bottom);
+                float cornerRadius = progress * mTargetRect.width() / 2;
+                mIconView.update(currentRect, 1f, progress,
+                        1f - FloatingIconView.SHAPE_PROGRESS_DURATION, cornerRadius, false);
+            };
+    private final Animator.AnimatorListener mEndListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            mEnds++;
+        }
+    };
+
+    @BeforeClass
+    public static void setUpClass() {
+        AllocationCounter.assumeSupported();
+    }
+
+    @Before
+    public void setUp() {
+        Resources resources = mContext.getResources();
+        resources.getDisplayMetrics().widthPixels = 1080;
+        resources.getDisplayMetrics().heightPixels = 1920;
+        resources.setDimensionPixelSize(R.dimen.swipe_up_fling_min_visible_change,
+                FLING_MIN_VISIBLE_CHANGE_PX);
+        resources.setDimensionPixelSize(R.dimen.swipe_up_y_overshoot, Y_OVERSHOOT_PX);
+
+        mIconView = new FloatingIconView(mContext);
+        FrameLayout.LayoutParams lp = new FrameLayout.LayoutParams(ICON_SIZE_PX, ICON_SIZE_PX);
+        lp.leftMargin = ICON_LEFT_PX;
+        lp.topMargin = ICON_TOP_PX;
+        mIconView.setLayoutParams(lp);
+        mIconView.setIcon(new AdaptiveIconDrawable(new ColorDrawable(0xFF3DDC84),
+                new ColorDrawable(0xFFFFFFFF)), null, 0);
+        mIconView.setFrameScheduler(mScheduler);
+    }
+
+    @Test
+    public void analyticTransition_doesNotAllocatePerFrame() {
+        assertTransitionDoesNotAllocate(RectFSpringAnim.BACKEND_ANALYTIC);
+    }
+
+    @Test
+    public void fixedStepTransition_doesNotAllocatePerFrame() {
+        assertTransitionDoesNotAllocate(RectFSpringAnim.BACKEND_FIXED_STEP);
+    }
+
+    @Test
+    public void transition_endsWithIconOnTarget() {
+        RectFSpringAnim anim = newAnim(RectFSpringAnim.BACKEND_ANALYTIC);
+        int frames = runTransition(anim);
+
+        assertEquals(1, mEnds);
+        // One update per frame of the rect, the foreground may spring for a few more frames.
+        assertTrue(mUpdates > 1 && mUpdates <= frames);
+        assertEquals(mTargetRect.left, mLastRect.left, 0.01f);
+        assertEquals(mTargetRect.bottom, mLastRect.bottom, 0.01f);
+        assertEquals(0, mIconView.getTranslationX(), 0.01f);
+        assertEquals(0, mIconView.getTranslationY(), 0.01f);
+        assertEquals(1, mIconView.getScaleX(), 0.01f);
+    }
+
+    private void assertTransitionDoesNotAllocate(int backend) {
+        RectFSpringAnim anim = newAnim(backend);
+        assertNoAllocation(() -> runTransition(anim));
+    }
+
+    /**
+     * Returns an animation kept across transitions, as listeners are kept by
+     * {@link RectFSpringAnim#reset}.
+     */
+    private RectFSpringAnim newAnim(int backend) {
+        RectFSpringAnim anim =
+                new RectFSpringAnim(mStartRect, mTargetRect, mContext.getResources());
+        anim.setBackend(backend);
+        anim.setFrameScheduler(mScheduler);
+        anim.addOnUpdateListener(mOnUpdateListener);
+        anim.addAnimatorListener(mEndListener);
+        return anim;
+    }
+
+    /**
+     * Runs a transition of {@param anim} from the start rect, and the foreground spring it
+     * starts, until both are at rest.
+     *
+     * @return The number of frames run.
+     */
+    private int runTransition(RectFSpringAnim anim) {
+        anim.reset(mStartRect, mTargetRect);
+        anim.start(mVelocity);
+        Choreographer choreographer = Choreographer.getInstance();
+        for (int frame = 1; frame <= MAX_FRAMES; frame++) {
+            mFrameTimeNanos += FRAME_INTERVAL_NANOS;
+            choreographer.doFrame(mFrameTimeNanos);
+            mIconView.draw(mCanvas);
+            if (!mScheduler.isRunning()) {
+                return frame;
+            }
+        }
+        throw new AssertionError("Transition did not end");
+    }
+}
@@ -0,0 +1,113 @@
+package com.transsion.springanimation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link TransitionFrameScheduler}, driving frames by calling
+ * {@link TransitionFrameScheduler#doFrame} directly. Runs on the stand-in Choreographer, which
+ * never runs the frame callback on its own.
+ */
+public class TransitionFrameSchedulerTest {
+
+    private static final long FRAME_INTERVAL_NANOS = 16_666_667;
+
+    private final TransitionFrameScheduler mScheduler = new TransitionFrameScheduler();
+
+    @Test
+    public void doFrame_stepsEveryClientBeforeCommitting() {
+        StringBuilder calls = new StringBuilder();
+        TestClient first = new TestClient(calls, "a");
+        TestClient second = new TestClient(calls, "b");
+        mScheduler.add(first);
+        mScheduler.add(second);
+        mScheduler.add(first);
+
+        mScheduler.doFrame(FRAME_INTERVAL_NANOS);
+        assertEquals("step a, step b, commit a, commit b, ", calls.toString());
+    }
+
+    @Test
+    public void doFrame_removesClientsThatStopped() {
+        TestClient client = new TestClient(new StringBuilder(), "a");
+        mScheduler.add(client);
+        client.mRunning = false;
+
+        mScheduler.doFrame(FRAME_INTERVAL_NANOS);
+        assertFalse(mScheduler.isRunning());
+        mScheduler.doFrame(2 * FRAME_INTERVAL_NANOS);
+        assertEquals(1, client.mSteps);
+    }
+
+    @Test
+    public void doFrame_keepsClientRestartedByACommit() {
+        StringBuilder calls = new StringBuilder();
+        TestClient restarted = new TestClient(calls, "a");
+        restarted.mRunning = false;
+        // Like FloatingIconView restarting its foreground spring from the commit of the rect.
+        TestClient restarting = new TestClient(calls, "b") {
+            @Override
+            public void onCommit(long frameTimeNanos) {
+                super.onCommit(frameTimeNanos);
+                restarted.mRunning = true;
+                mScheduler.add(restarted);
+            }
+        };
+        mScheduler.add(restarted);
+        mScheduler.add(restarting);
+
+        mScheduler.doFrame(FRAME_INTERVAL_NANOS);
+        assertTrue(mScheduler.isRunning());
+        mScheduler.doFrame(2 * FRAME_INTERVAL_NANOS);
+        assertEquals(2, restarted.mSteps);
+    }
+
+    @Test
+    public void doFrame_keepsClientRemovedAndAddedAgainDuringFrame() {
+        TestClient restarted = new TestClient(new StringBuilder(), "a");
+        restarted.mRunning = false;
+        TestClient restarting = new TestClient(new StringBuilder(), "b") {
+            @Override
+            public void onCommit(long frameTimeNanos) {
+                super.onCommit(frameTimeNanos);
+                mScheduler.remove(restarted);
+                mScheduler.add(restarted);
+            }
+        };
+        mScheduler.add(restarted);
+        mScheduler.add(restarting);
+
+        mScheduler.doFrame(FRAME_INTERVAL_NANOS);
+        mScheduler.remove(restarting);
+        mScheduler.doFrame(2 * FRAME_INTERVAL_NANOS);
+        assertEquals(2, restarted.mSteps);
+    }
+
+    private static class TestClient implements TransitionFrameScheduler.FrameClient {
+
+        private final StringBuilder mCalls;
+        private final String mName;
+        boolean mRunning = true;
+        int mSteps;
+
+        TestClient(StringBuilder calls, String name) {
+            mCalls = calls;
+            mName = name;
+        }
+
+        @Override
+        public boolean onStep(long frameTimeNanos) {
+            mSteps++;
+            mCalls.append("step ").append(mName).append(", ");
+            return mRunning;
+        }
+
+        @Override
+        public void onCommit(long frameTimeNanos) {
+            mCalls.append("commit ").append(mName).append(", ");
+        }
+    }
+}